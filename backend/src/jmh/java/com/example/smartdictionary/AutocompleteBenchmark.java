@@ -0,0 +1,239 @@
+package com.example.smartdictionary;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Autocomplete keystrokes answered as one HTTP /suggest request each against a
+ * /suggest/ws connection. Simulated users type dictionary words with the odd typo and
+ * backspace; one operation is one keystroke: the lookup plus the JSON reply, walking
+ * the prefix from the root for HTTP, moving the connection's trie cursor for the socket.
+ *
+ * The Traffic counters land in the JMH result next to the time; divide each by
+ * keystrokes for a per-keystroke figure. wireBytes counts both directions, using the
+ * headers a browser fetch and Spring MVC typically send on a kept-alive connection and
+ * minimal WebSocket frames. trieNodes is the nodes walked or stepped, and lookups is
+ * how many lookups run once the 20 ms debounce has merged fast keystrokes. Run with
+ * -prof gc for bytes allocated per keystroke:
+ * mvn -Pbenchmarks verify -Djmh.args="AutocompleteBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class AutocompleteBenchmark {
+
+    private static final int USERS = 1024;
+    private static final long DEBOUNCE_MS = 20;
+
+    //What a browser sends with fetch('/suggest?...') besides the request line, and what comes back
+    private static final int HTTP_REQUEST_HEADERS = ("Host: localhost:8080\r\nConnection: keep-alive\r\n"
+            + "sec-ch-ua-platform: \"Linux\"\r\nUser-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/129.0.0.0 Safari/537.36\r\nsec-ch-ua: \"Chromium\";v=\"129\"\r\n"
+            + "sec-ch-ua-mobile: ?0\r\nAccept: */*\r\nOrigin: http://localhost:3000\r\nSec-Fetch-Site: same-site\r\n"
+            + "Sec-Fetch-Mode: cors\r\nSec-Fetch-Dest: empty\r\nReferer: http://localhost:3000/\r\n"
+            + "Accept-Encoding: gzip, deflate, br, zstd\r\nAccept-Language: en-US,en;q=0.9\r\n\r\n").length();
+    private static final int HTTP_RESPONSE_HEADERS = ("HTTP/1.1 200 \r\nVary: Origin\r\n"
+            + "Vary: Access-Control-Request-Method\r\nVary: Access-Control-Request-Headers\r\n"
+            + "Access-Control-Allow-Origin: *\r\nContent-Type: application/json\r\nTransfer-Encoding: chunked\r\n"
+            + "Date: Sun, 18 Oct 2026 10:00:00 GMT\r\nKeep-Alive: timeout=60\r\nConnection: keep-alive\r\n\r\n"
+            + "ffff\r\n\r\n0\r\n\r\n").length();
+
+    /**
+     * Per-keystroke traffic, reported by JMH as totals for each iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Traffic {
+        public long keystrokes;
+        public long wireBytes;
+        public long trieNodes;
+        public long lookups;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            keystrokes = 0;
+            wireBytes = 0;
+            trieNodes = 0;
+            lookups = 0;
+        }
+
+        void count(int bytes, int nodes, int lookup) {
+            keystrokes++;
+            wireBytes += bytes;
+            trieNodes += nodes;
+            lookups += lookup;
+        }
+    }
+
+    @Param({"100000", "1000000"})
+    public int words;
+
+    @Param({"0", "2"})
+    public int fuzzy;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private Trie trie;
+    private AutocompleteService service;
+    private AutocompleteService.Session connection;
+    //The keystrokes of all users one after another; firsts marks where each user starts
+    private String[] prefixes;
+    private boolean[] firsts;
+    private int[] httpWire;
+    private int[] socketWire;
+    private int[] cursorSteps;
+    private boolean[] debounced;
+    private int next;
+    private long seq;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> dictionary = GeneratedDictionary.words(words);
+        trie = new Trie();
+        for (String word : dictionary) {
+            trie.insert(word);
+        }
+        Random random = new Random(42);
+        List<String> typed = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            starts.add(typed.size());
+            type(dictionary.get(random.nextInt(dictionary.size())), random, typed, times);
+        }
+        int keystrokes = typed.size();
+        prefixes = typed.toArray(new String[0]);
+        firsts = new boolean[keystrokes];
+        httpWire = new int[keystrokes];
+        socketWire = new int[keystrokes];
+        cursorSteps = new int[keystrokes];
+        debounced = new boolean[keystrokes];
+        for (int start : starts) {
+            firsts[start] = true;
+        }
+
+        Trie.Cursor cursor = null;
+        long windowEnd = Long.MIN_VALUE;
+        for (int i = 0; i < keystrokes; i++) {
+            String prefix = prefixes[i];
+            if (firsts[i]) {
+                cursor = trie.cursor();
+                windowEnd = Long.MIN_VALUE;
+            }
+            cursorSteps[i] = cursor.moveTo(prefix);
+            // A burst starts at a keystroke and takes in those within the debounce
+            if (times.get(i) > windowEnd) {
+                windowEnd = times.get(i) + DEBOUNCE_MS;
+            } else {
+                debounced[i] = true;
+            }
+            byte[] body = json.writeValueAsBytes(fuzzy > 0
+                    ? trie.searchFuzzyPrefix(prefix, fuzzy) : trie.searchPrefix(prefix));
+            String query = URLEncoder.encode(prefix, StandardCharsets.UTF_8);
+            httpWire[i] = ("GET /suggest?q=" + query + "&fuzzy=" + fuzzy + " HTTP/1.1\r\n").length()
+                    + HTTP_REQUEST_HEADERS + HTTP_RESPONSE_HEADERS + body.length;
+            int request = json.writeValueAsBytes(Map.of("seq", i + 1, "q", prefix, "fuzzy", fuzzy)).length;
+            int reply = ("{\"seq\":" + (i + 1) + ",\"q\":").length() + json.writeValueAsBytes(prefix).length
+                    + ",\"suggestions\":}".length() + body.length;
+            // Client frames carry a 4-byte mask
+            socketWire[i] = frame(request) + 4 + request + frame(reply) + reply;
+        }
+
+        service = new AutocompleteService(() -> trie, DEBOUNCE_MS, 1, new MetricsRegistry());
+        connection = service.open((s, p, l) -> {});
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    private int nextKeystroke() {
+        int i = next;
+        next = i + 1 == prefixes.length ? 0 : i + 1;
+        return i;
+    }
+
+    //Each keystroke as its own request: walk the prefix from the root, serialize the list
+    @Benchmark
+    public byte[] http(Traffic traffic) throws IOException {
+        int i = nextKeystroke();
+        String prefix = prefixes[i];
+        List<String> suggestions = fuzzy > 0 ? trie.searchFuzzyPrefix(prefix, fuzzy) : trie.searchPrefix(prefix);
+        traffic.count(httpWire[i], prefix.length(), 1);
+        return json.writeValueAsBytes(suggestions);
+    }
+
+    //Each user on a connection of their own: move the cursor, serialize the reply as the handler does
+    @Benchmark
+    public byte[] socket(Traffic traffic) throws IOException {
+        int i = nextKeystroke();
+        if (firsts[i]) {
+            connection.close();
+            connection = service.open((s, p, l) -> {});
+        }
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("seq", ++seq);
+        reply.put("q", prefixes[i]);
+        reply.put("suggestions", connection.lookup(prefixes[i], fuzzy));
+        traffic.count(socketWire[i], cursorSteps[i], debounced[i] ? 0 : 1);
+        return json.writeValueAsBytes(reply);
+    }
+
+    // WebSocket frame header: 2 bytes, plus 2 or 8 for longer payloads
+    private static int frame(int payload) {
+        return payload < 126 ? 2 : payload < 65_536 ? 4 : 10;
+    }
+
+    // Types word at 80-250 ms a key with bursts of fast keys, a typo now and then (fixed with a backspace)
+    private static void type(String word, Random random, List<String> keys, List<Long> times) {
+        StringBuilder box = new StringBuilder();
+        long now = 0;
+        for (int i = 0; i < word.length(); i++) {
+            if (random.nextInt(12) == 0) {
+                box.append((char) ('a' + random.nextInt(26)));
+                now += gap(random);
+                keys.add(box.toString());
+                times.add(now);
+                box.setLength(box.length() - 1);
+                now += gap(random);
+                keys.add(box.toString());
+                times.add(now);
+            }
+            box.append(word.charAt(i));
+            now += gap(random);
+            keys.add(box.toString());
+            times.add(now);
+        }
+    }
+
+    private static long gap(Random random) {
+        return random.nextInt(4) == 0 ? 5 + random.nextInt(20) : 80 + random.nextInt(170);
+    }
+}
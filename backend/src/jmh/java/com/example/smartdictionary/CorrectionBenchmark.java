@@ -0,0 +1,83 @@
+package com.example.smartdictionary;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Spelling correction for /search misses: the symmetric-delete SpellingIndex the
+ * controller uses, against the linear Levenshtein.findClosest scan it replaced.
+ * Queries are dictionary words with one or two typos.
+ *
+ * The index holds every word under all its 1- and 2-character deletes, so the
+ * 5M-word size needs far more heap than the 4 GB fork; pass -p words=5000000 with
+ * -jvmArgsAppend -Xmx16g to run it. The linear scan is only measured up to 100k
+ * words by default, since one lookup over 1M words takes about a second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class CorrectionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int words;
+
+    //Set to false to include the linear scan at sizes above 100k
+    @Param({"true"})
+    public boolean skipSlowScan;
+
+    private SpellingIndex index;
+    private Set<String> keys;
+    private String[] queries;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        List<String> dictionary = GeneratedDictionary.words(words);
+        index = new SpellingIndex(dictionary, Levenshtein.MAX_CORRECTION_DISTANCE);
+        keys = new HashSet<>(dictionary);
+        queries = GeneratedDictionary.misspellings(dictionary, 1024).toArray(new String[0]);
+    }
+
+    private String query(Cursor cursor) {
+        return queries[cursor.next++ & (queries.length - 1)];
+    }
+
+    @Benchmark
+    public String spellingIndex(Cursor cursor) {
+        return index.findClosest(query(cursor));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String spellingIndexConcurrent(Cursor cursor) {
+        return index.findClosest(query(cursor));
+    }
+
+    @Benchmark
+    public String linearScan(Cursor cursor) {
+        if (skipSlowScan && words > 100_000) return null;
+        return Levenshtein.findClosest(query(cursor), keys);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.smartdictionary;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reverse lookup by meaning: top-20 BM25 queries against a DefinitionIndex. The
+ * generated definitions share one template, so they are replaced here by 8-20 words
+ * drawn from a Zipf-like vocabulary, which gives the index realistic posting
+ * lengths: a few terms in a large share of definitions, most in very few. Queries
+ * are one to three terms from the same distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class DefinitionSearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+
+    @Param({"100000", "1000000", "5000000"})
+    public int words;
+
+    private DefinitionIndex index;
+    private String[] queries;
+    private String commonTerm;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<String> vocabulary = GeneratedDictionary.words(VOCABULARY);
+        commonTerm = vocabulary.get(0);
+        Random random = new Random(11);
+        DefinitionIndex.Builder builder = new DefinitionIndex.Builder();
+        StringBuilder definition = new StringBuilder();
+        int doc = 0;
+        for (String word : GeneratedDictionary.words(words)) {
+            definition.setLength(0);
+            int length = 8 + random.nextInt(13);
+            for (int i = 0; i < length; i++) {
+                definition.append(zipf(vocabulary, random)).append(' ');
+            }
+            builder.add(word + doc++, definition.toString());
+        }
+        index = builder.build();
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            StringBuilder query = new StringBuilder();
+            int terms = 1 + random.nextInt(3);
+            for (int t = 0; t < terms; t++) {
+                query.append(zipf(vocabulary, random)).append(' ');
+            }
+            queries[i] = query.toString();
+        }
+    }
+
+    //Rank r is drawn with probability roughly proportional to 1/r
+    private static String zipf(List<String> vocabulary, Random random) {
+        return vocabulary.get((int) Math.pow(vocabulary.size(), random.nextDouble()) - 1);
+    }
+
+    @Benchmark
+    public List<DefinitionIndex.Hit> search() {
+        return index.search(queries[next++ & (queries.length - 1)], 20);
+    }
+
+    //The longest posting list: the rank-1 term appears in most definitions
+    @Benchmark
+    public List<DefinitionIndex.Hit> mostCommonTerm() {
+        return index.search(commonTerm, 20);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.smartdictionary;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Favorites: isFavorite and get for a mix of saved and unsaved words (the star on
+ * every search result), single threaded and from every core, plus add/remove
+ * through UserSession, the path POST and DELETE /favorites take.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FavoritesBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int favorites;
+
+    private FavoriteWords store;
+    private UserSession session;
+    private String[] lookups;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        // Half of the lookups hit a saved word, half miss
+        List<String> words = GeneratedDictionary.words(favorites * 2);
+        store = new FavoriteWords();
+        session = new UserSession("bench", HistoryStack.DEFAULT_MAX_SIZE, new FlashcardList());
+        for (String word : words.subList(0, favorites)) {
+            store.add(new WordItem(word, GeneratedDictionary.definition(word)));
+            session.addFavorite(new WordItem(word, GeneratedDictionary.definition(word)));
+        }
+        lookups = new String[4096];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = words.get((int) ((i * 2654435761L) % words.size()));
+        }
+    }
+
+    private String lookup(Cursor cursor) {
+        return lookups[cursor.next++ & (lookups.length - 1)];
+    }
+
+    @Benchmark
+    public boolean isFavorite(Cursor cursor) {
+        return store.isFavorite(lookup(cursor));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean isFavoriteConcurrent(Cursor cursor) {
+        return store.isFavorite(lookup(cursor));
+    }
+
+    @Benchmark
+    public WordItem get(Cursor cursor) {
+        return store.get(lookup(cursor));
+    }
+
+    @Benchmark
+    public boolean addAndRemove(Cursor cursor) {
+        String word = lookup(cursor) + "x";
+        session.addFavorite(new WordItem(word, "temporary"));
+        return session.removeFavorite(word);
+    }
+}
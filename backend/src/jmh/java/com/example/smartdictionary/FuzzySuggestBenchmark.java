@@ -0,0 +1,64 @@
+package com.example.smartdictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * /suggest?fuzzy=2: Trie.searchFuzzyPrefix on 3-8 letter prefixes of dictionary words
+ * with one or two typos, next to the exact searchPrefix on the same prefixes. Sampled,
+ * so the JMH result holds p99 and p99.9 as well as the mean.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class FuzzySuggestBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int words;
+
+    private Trie trie;
+    private String[] prefixes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<String> dictionary = GeneratedDictionary.words(words);
+        trie = new Trie();
+        for (String word : dictionary) {
+            trie.insert(word);
+        }
+        Random random = new Random(7);
+        List<String> typed = new ArrayList<>();
+        for (String word : GeneratedDictionary.misspellings(dictionary, 4096)) {
+            typed.add(word.substring(0, Math.min(word.length(), 3 + random.nextInt(6))));
+        }
+        prefixes = typed.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public List<String> fuzzy() {
+        return trie.searchFuzzyPrefix(prefixes[next++ & (prefixes.length - 1)], Trie.MAX_FUZZY_DISTANCE);
+    }
+
+    @Benchmark
+    public List<String> exact() {
+        return trie.searchPrefix(prefixes[next++ & (prefixes.length - 1)]);
+    }
+}
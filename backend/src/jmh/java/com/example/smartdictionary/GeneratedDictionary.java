@@ -0,0 +1,125 @@
+package com.example.smartdictionary;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Word lists for the benchmarks: pronounceable lowercase words of 2-5 syllables
+ * (3-12 letters, like the bundled dictionary), the same list for a given size on
+ * every run. Also writes them as dictionary.json and binary dictionary files.
+ */
+final class GeneratedDictionary {
+
+    private static final String CONSONANTS = "bcdfghjklmnprstvwyz";
+    private static final String VOWELS = "aeiou";
+    private static final long SEED = 20240601L;
+
+    private GeneratedDictionary() {
+    }
+
+    static List<String> words(int count) {
+        Random random = new Random(SEED);
+        Set<String> seen = new HashSet<>(count * 2);
+        List<String> words = new ArrayList<>(count);
+        StringBuilder sb = new StringBuilder(16);
+        while (words.size() < count) {
+            sb.setLength(0);
+            int syllables = 2 + random.nextInt(4);
+            for (int s = 0; s < syllables; s++) {
+                sb.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+                sb.append(VOWELS.charAt(random.nextInt(VOWELS.length())));
+                if (random.nextInt(4) == 0) {
+                    sb.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+                }
+            }
+            String word = sb.toString();
+            if (seen.add(word)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    static String definition(String word) {
+        return "A generated entry for " + word + ", used to size dictionary benchmarks.";
+    }
+
+    static Map<String, String> entries(List<String> words) {
+        Map<String, String> entries = new LinkedHashMap<>(words.size() * 2);
+        for (String word : words) {
+            entries.put(word, definition(word));
+        }
+        return entries;
+    }
+
+    /**
+     * Query words near the dictionary: each is a dictionary word with one or two
+     * typos (substitution, deletion, insertion or transposition), the kind /search
+     * has to correct.
+     */
+    static List<String> misspellings(List<String> words, int count) {
+        Random random = new Random(SEED + 1);
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            int typos = 1 + random.nextInt(2);
+            for (int t = 0; t < typos && word.length() > 2; t++) {
+                word = typo(word, random);
+            }
+            queries.add(word);
+        }
+        return queries;
+    }
+
+    private static String typo(String word, Random random) {
+        int at = random.nextInt(word.length() - 1);
+        char letter = (char) ('a' + random.nextInt(26));
+        return switch (random.nextInt(4)) {
+            case 0 -> word.substring(0, at) + letter + word.substring(at + 1);
+            case 1 -> word.substring(0, at) + word.substring(at + 1);
+            case 2 -> word.substring(0, at) + letter + word.substring(at);
+            default -> word.substring(0, at) + word.charAt(at + 1) + word.charAt(at) + word.substring(at + 2);
+        };
+    }
+
+    /**
+     * Prefixes of 1-4 letters taken from dictionary words, as typed into /suggest.
+     */
+    static List<String> prefixes(List<String> words, int count) {
+        Random random = new Random(SEED + 2);
+        List<String> prefixes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            prefixes.add(word.substring(0, Math.min(word.length(), 1 + random.nextInt(4))));
+        }
+        return prefixes;
+    }
+
+    static void writeJson(List<String> words, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+             JsonGenerator json = new JsonFactory().createGenerator(writer)) {
+            json.writeStartObject();
+            for (String word : words) {
+                json.writeStringField(word, definition(word));
+            }
+            json.writeEndObject();
+        }
+    }
+
+    static void writeBinary(List<String> words, Path file) throws IOException {
+        BinaryDictionary.write(entries(words), file);
+    }
+}
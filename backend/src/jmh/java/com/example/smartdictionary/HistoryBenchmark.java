@@ -0,0 +1,76 @@
+package com.example.smartdictionary;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Search history: HistoryStack.push with searches drawn from a vocabulary about
+ * ten times the cap, so pushes mix new words, repeats and evictions; reading the
+ * list back; and pushes from every core into one stack (the shared anonymous
+ * session).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+
+    @Param({"100", "1000"})
+    public int maxSize;
+
+    private HistoryStack history;
+    private String[] searches;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        List<String> vocabulary = GeneratedDictionary.words(maxSize * 10);
+        // Skewed towards low indexes, so some words are searched far more often than others
+        Random random = new Random(7);
+        searches = new String[1 << 16];
+        for (int i = 0; i < searches.length; i++) {
+            double u = random.nextDouble();
+            searches[i] = vocabulary.get((int) (vocabulary.size() * u * u));
+        }
+        history = new HistoryStack(maxSize);
+        for (String word : searches) {
+            history.push(word);
+        }
+    }
+
+    @Benchmark
+    public void push(Cursor cursor) {
+        history.push(searches[cursor.next++ & (searches.length - 1)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void pushConcurrent(Cursor cursor) {
+        history.push(searches[cursor.next++ & (searches.length - 1)]);
+    }
+
+    @Benchmark
+    public List<String> read() {
+        return history.getHistory();
+    }
+}
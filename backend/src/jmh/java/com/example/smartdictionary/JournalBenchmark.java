@@ -0,0 +1,180 @@
+package com.example.smartdictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Session persistence: each thread plays one user adding and removing favorites.
+ * fsyncPerChange is what saving on every POST would cost, a write and an fsync per
+ * change; durableChange appends through the SessionJournal and waits until the change
+ * is on disk, so many users share one group commit; change is what a request thread
+ * actually pays, since requests do not wait for the disk. recover replays a log of
+ * 80,000 changes into the session files, as a restart after a crash does.
+ *
+ * The 16 threads stand for concurrent requests. They wait on the disk rather than the
+ * CPU, so their number does not follow the cores; sweep it with -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class JournalBenchmark {
+
+    private static final int USERS = 16;
+    private static final int CHANGES_PER_USER = 5_000;
+
+    @Param({"0", "2", "5"})
+    public long commitDelayMs;
+
+    private final FlashcardList deck = new FlashcardList();
+    private final byte[] record = new byte[64];
+    private final AtomicInteger userIds = new AtomicInteger();
+    private final Collection<UserSession> sessions = new ConcurrentLinkedQueue<>();
+    private Path dir;
+    private SessionJournal journal;
+    private FileChannel baseline;
+
+    /**
+     * One user's session, toggling favorites from a small vocabulary so every call is a change.
+     */
+    @State(Scope.Thread)
+    public static class User {
+        UserSession session;
+        int next;
+
+        @Setup
+        public void setUp(JournalBenchmark benchmark) {
+            session = new UserSession("user" + benchmark.userIds.getAndIncrement(), 100, benchmark.deck);
+            benchmark.journal.restore(session);
+            benchmark.sessions.add(session);
+        }
+
+        void change() {
+            int n = next++;
+            String word = "word" + ((n >>> 1) & 511);
+            if ((n & 1) == 0) {
+                session.addFavorite(new WordItem(word, "definition of " + word));
+            } else {
+                session.removeFavorite(word);
+            }
+        }
+    }
+
+    /**
+     * A log left by a crash, written afresh before each recovery.
+     */
+    @State(Scope.Benchmark)
+    public static class CrashedLog {
+        Path dir;
+        SessionJournal recovered;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws Exception {
+            dir = Files.createTempDirectory("journal-recovery");
+            SessionJournal journal = new SessionJournal(dir, 2, Long.MAX_VALUE, Long.MAX_VALUE);
+            journal.open();
+            FlashcardList deck = new FlashcardList();
+            for (int u = 0; u < USERS; u++) {
+                UserSession session = new UserSession("user" + u, 100, deck);
+                journal.restore(session);
+                for (int i = 0; i < CHANGES_PER_USER; i++) {
+                    session.addFavorite(new WordItem("word" + i, "definition of word " + i));
+                }
+            }
+            journal.sync();
+            journal.halt();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            if (recovered != null) {
+                recovered.halt();
+                recovered = null;
+            }
+            delete(dir);
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal-benchmark");
+        journal = new SessionJournal(dir.resolve("journal"), commitDelayMs, 64L * 1024 * 1024, 60_000);
+        journal.open();
+        journal.start(() -> sessions);
+        baseline = FileChannel.open(dir.resolve("baseline.log"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.halt();
+        baseline.close();
+        delete(dir);
+    }
+
+    @Benchmark
+    public void fsyncPerChange() throws IOException {
+        synchronized (baseline) {
+            baseline.write(ByteBuffer.wrap(record));
+            baseline.force(false);
+        }
+    }
+
+    @Benchmark
+    public void durableChange(User user) throws IOException, InterruptedException {
+        user.change();
+        journal.sync();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void change(User user) {
+        user.change();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    public SessionJournal recover(CrashedLog log) throws IOException {
+        log.recovered = new SessionJournal(log.dir, 2, Long.MAX_VALUE, Long.MAX_VALUE);
+        log.recovered.open();
+        return log.recovered;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.smartdictionary;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The edit-distance kernel on its own: unbounded distance against the banded,
+ * early-exit version used for corrections (bound 2), over random word pairs and
+ * over near pairs (a word and a typo of it).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevenshteinBenchmark {
+
+    private String[] left;
+    private String[] right;
+    private String[] typos;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<String> words = GeneratedDictionary.words(2048);
+        left = words.subList(0, 1024).toArray(new String[0]);
+        right = words.subList(1024, 2048).toArray(new String[0]);
+        typos = new String[left.length];
+        for (int i = 0; i < left.length; i++) {
+            typos[i] = GeneratedDictionary.misspellings(List.of(left[i]), 1).get(0);
+        }
+    }
+
+    @Benchmark
+    public int randomPairUnbounded() {
+        int i = next++ & 1023;
+        return Levenshtein.calculate(left[i], right[i]);
+    }
+
+    @Benchmark
+    public int randomPairBounded() {
+        int i = next++ & 1023;
+        return Levenshtein.calculate(left[i], right[i], Levenshtein.MAX_CORRECTION_DISTANCE);
+    }
+
+    @Benchmark
+    public int nearPairBounded() {
+        int i = next++ & 1023;
+        return Levenshtein.calculate(left[i], typos[i], Levenshtein.MAX_CORRECTION_DISTANCE);
+    }
+}
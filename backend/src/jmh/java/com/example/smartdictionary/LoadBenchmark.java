@@ -0,0 +1,88 @@
+package com.example.smartdictionary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Dictionary loading, one cold load per iteration: reading the file into a map
+ * (streamed JSON, or mapping a binary dictionary and walking its keys), and the
+ * whole path to readiness that DictionaryController.loadDictionary takes, which
+ * also builds the trie and the shared flashcard deck.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class LoadBenchmark {
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int words;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> dictionary = GeneratedDictionary.words(words);
+        file = Files.createTempFile("dictionary-" + words, "json".equals(format) ? ".json" : ".sdict");
+        if ("json".equals(format)) {
+            GeneratedDictionary.writeJson(dictionary, file);
+        } else {
+            GeneratedDictionary.writeBinary(dictionary, file);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<String> read() throws IOException {
+        Map<String, String> data = DictionaryLoader.open(file);
+        return new ArrayList<>(data.keySet());
+    }
+
+    @Benchmark
+    public void readAndIndex(Blackhole blackhole) throws IOException {
+        Map<String, String> data = DictionaryLoader.open(file);
+        boolean mapped = data instanceof BinaryDictionary;
+        List<String> keys = new ArrayList<>(data.keySet());
+        // Same split as the controller: trie on a pool thread, deck on this one
+        Trie trie = new Trie();
+        CompletableFuture<Void> trieBuilt = CompletableFuture.runAsync(() -> {
+            for (String word : keys) {
+                trie.insert(word);
+            }
+        });
+        FlashcardList deck = new FlashcardList();
+        deck.addAll(keys, mapped ? word -> null : data::get);
+        trieBuilt.join();
+        blackhole.consume(trie);
+        blackhole.consume(deck);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.smartdictionary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Response bodies for /search hits, the sample sets and /history: serializing with
+ * Jackson on every request, as the endpoints did, next to sending the bytes cached
+ * in a SerializedResponse (gzip copy included) and answering a revalidation with a
+ * 304. Run with -prof gc to see bytes allocated per request alongside the time:
+ * mvn -Pbenchmarks verify -Djmh.args="ResponseBodyBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseBodyBenchmark {
+
+    private static final int ENTRIES = 4096;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private String[] words;
+    private Map<String, String> definitions;
+    private ResponseCache<String, SerializedResponse> entries;
+    private String[] entryTags;
+    private List<Map<String, String>> animals;
+    private SerializedResponse animalBody;
+    private HistoryStack history;
+    private String historyTag;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        words = GeneratedDictionary.words(ENTRIES).toArray(new String[0]);
+        definitions = GeneratedDictionary.entries(List.of(words));
+        entries = new ResponseCache<>(16L * 1024 * 1024, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1),
+                SerializedResponse::weight, body -> false);
+        entryTags = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            entryTags[i] = entries.get(words[i], this::serializeHit).getETag();
+        }
+        try (InputStream in = ResponseBodyBenchmark.class.getResourceAsStream("/animal.json")) {
+            animals = json.readValue(in, new TypeReference<List<Map<String, String>>>() {});
+        }
+        animalBody = SerializedResponse.of(json.writeValueAsBytes(animals));
+        history = new HistoryStack();
+        for (int i = 0; i < HistoryStack.DEFAULT_MAX_SIZE; i++) {
+            history.push(words[i]);
+        }
+        historyTag = "\"h-" + history.getVersion() + '"';
+    }
+
+    //The hit map lookup builds, as /search returned it before
+    private Map<String, Object> hit(String word) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("found", true);
+        response.put("word", word);
+        response.put("definition", definitions.get(word));
+        return response;
+    }
+
+    private SerializedResponse serializeHit(String word) {
+        try {
+            return SerializedResponse.of(json.writeValueAsBytes(hit(word)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public byte[] searchHitSerialized() throws IOException {
+        return json.writeValueAsBytes(hit(words[next++ & (ENTRIES - 1)]));
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> searchHitCached() {
+        return entries.get(words[next++ & (ENTRIES - 1)], this::serializeHit).respond(null, "gzip, deflate, br");
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> searchHitNotModified() {
+        int i = next++ & (ENTRIES - 1);
+        return entries.get(words[i], this::serializeHit).respond(entryTags[i], null);
+    }
+
+    @Benchmark
+    public byte[] sampleSetSerialized() throws IOException {
+        return json.writeValueAsBytes(animals);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> sampleSetCached() {
+        return animalBody.respond(null, "gzip, deflate, br");
+    }
+
+    @Benchmark
+    public byte[] historySerialized() throws IOException {
+        return json.writeValueAsBytes(history.getHistory());
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> historyNotModified() {
+        String etag = "\"h-" + history.getVersion() + '"';
+        return SerializedResponse.matches(historyTag, etag) ? SerializedResponse.notModified(etag, "X-User-Id") : null;
+    }
+}
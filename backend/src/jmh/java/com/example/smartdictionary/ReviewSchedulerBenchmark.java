@@ -0,0 +1,91 @@
+package com.example.smartdictionary;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A year of daily study, one year per iteration: each day the learner works through
+ * every due card (remembering 85% of them) and then learns new cards, until the whole
+ * deck has been introduced. The Reviews counters in the result give the reviews and
+ * lapses behind the time; time over reviews is the cost of picking and rescheduling
+ * one card.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReviewSchedulerBenchmark {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final int DAYS = 365;
+
+    /**
+     * Reviews done in the measured year, reported by JMH next to the time.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Reviews {
+        public long reviews;
+        public long lapses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            reviews = 0;
+            lapses = 0;
+        }
+    }
+
+    @Param({"10000", "100000"})
+    public int cards;
+
+    private String[] words;
+
+    @Setup
+    public void setUp() {
+        words = new String[cards];
+        for (int i = 0; i < cards; i++) {
+            words[i] = "card" + i;
+        }
+    }
+
+    @Benchmark
+    public ReviewScheduler studyYear(Reviews counters) {
+        int newPerDay = (cards + DAYS - 1) / DAYS + 1;
+        ReviewScheduler scheduler = new ReviewScheduler();
+        Random random = new Random(42);
+        int introduced = 0;
+        for (int day = 0; day < DAYS; day++) {
+            long now = day * DAY;
+            long endOfDay = now + DAY - 1;
+            String word;
+            // Relearned cards come back within the day, so keep going until nothing is due
+            while ((word = scheduler.nextDue(endOfDay)) != null) {
+                boolean remembered = random.nextDouble() < 0.85;
+                scheduler.review(word, remembered, Math.max(now, scheduler.get(word).getDue()));
+                counters.reviews++;
+                if (!remembered) counters.lapses++;
+            }
+            for (int i = 0; i < newPerDay && introduced < cards; i++, introduced++) {
+                scheduler.review(words[introduced], random.nextDouble() < 0.7, now);
+                counters.reviews++;
+            }
+        }
+        return scheduler;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.smartdictionary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Server startup, one cold start of a DictionaryController per iteration: time until
+ * it is live (init() returned and requests are accepted), until it is ready (the
+ * dictionary, trie and deck are built), and until the first /search and /suggest are
+ * answered. The controller is shut down outside the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class StartupBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int words;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    private Path file;
+    private String probe;
+    private DictionaryController controller;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> dictionary = GeneratedDictionary.words(words);
+        probe = dictionary.get(words / 2);
+        file = Files.createTempFile("dictionary-" + words, "json".equals(format) ? ".json" : ".sdict");
+        if ("json".equals(format)) {
+            GeneratedDictionary.writeJson(dictionary, file);
+        } else {
+            GeneratedDictionary.writeBinary(dictionary, file);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    //A live controller still loads in the background; let it finish before the next start
+    @TearDown(Level.Iteration)
+    public void stop() throws InterruptedException {
+        if (controller != null) {
+            controller.awaitReady(600_000);
+            controller.shutdown();
+            controller = null;
+        }
+    }
+
+    private DictionaryController start() {
+        controller = new DictionaryController(100, 1000, 30, file.toString(),
+                UpstreamConfig.defaults(), PersistenceConfig.defaults(), new MetricsRegistry());
+        controller.init();
+        return controller;
+    }
+
+    private void awaitReady() throws InterruptedException {
+        if (!controller.awaitReady(600_000)) {
+            throw new IllegalStateException("Dictionary did not load: " + controller.readiness().getBody());
+        }
+    }
+
+    @Benchmark
+    public DictionaryController live() {
+        return start();
+    }
+
+    @Benchmark
+    public DictionaryController ready() throws InterruptedException {
+        start();
+        awaitReady();
+        return controller;
+    }
+
+    @Benchmark
+    public List<String> firstRequest() throws InterruptedException {
+        start();
+        awaitReady();
+        controller.search(probe, null);
+        return controller.suggest(probe.substring(0, 2), 0);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.smartdictionary;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * /suggest: Trie.searchPrefix over 1-4 letter prefixes of dictionary words, single
+ * threaded, from every core, and while another thread keeps inserting words and
+ * boosting scores (the seqlock read path under writes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class SuggestBenchmark {
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int words;
+
+    private Trie trie;
+    private String[] prefixes;
+    private String[] inserts;
+    private String[] popular;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        List<String> dictionary = GeneratedDictionary.words(words);
+        trie = new Trie();
+        for (String word : dictionary) {
+            trie.insert(word);
+        }
+        prefixes = GeneratedDictionary.prefixes(dictionary, 4096).toArray(new String[0]);
+        popular = dictionary.subList(0, Math.min(4096, dictionary.size())).toArray(new String[0]);
+        // Words past the end of the dictionary, so writers really add nodes for a while
+        List<String> more = GeneratedDictionary.words(words + 4096);
+        inserts = more.subList(words, more.size()).toArray(new String[0]);
+    }
+
+    private String prefix(Cursor cursor) {
+        return prefixes[cursor.next++ & (prefixes.length - 1)];
+    }
+
+    @Benchmark
+    public List<String> searchPrefix(Cursor cursor) {
+        return trie.searchPrefix(prefix(cursor));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<String> searchPrefixConcurrent(Cursor cursor) {
+        return trie.searchPrefix(prefix(cursor));
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(3)
+    public List<String> reader(Cursor cursor) {
+        return trie.searchPrefix(prefix(cursor));
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public void writer(Cursor cursor) {
+        int i = cursor.next++;
+        if ((i & 1) == 0) {
+            trie.insert(inserts[(i >>> 1) & (inserts.length - 1)]);
+        } else {
+            trie.boost(popular[(i >>> 1) & (popular.length - 1)], 1);
+        }
+    }
+}
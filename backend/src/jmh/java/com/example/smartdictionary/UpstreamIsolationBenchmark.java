@@ -0,0 +1,126 @@
+package com.example.smartdictionary;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local /search and /suggest latency while both upstream APIs hang. With upstream
+ * "idle" nothing else runs; with "hanging" a background thread keeps sending
+ * /definitions and /translate calls to a server that never answers, so permits are
+ * held, calls time out and are rejected, and the circuit opens and half-opens again.
+ * Compare the percentiles of the two for what upstream trouble costs local calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpstreamIsolationBenchmark {
+
+    //Upstream calls sent per round, a few times the concurrency limit of each API
+    private static final int CALLS_PER_ROUND = 64;
+
+    @Param({"idle", "hanging"})
+    public String upstream;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private DictionaryController controller;
+    private Thread caller;
+    private volatile boolean running = true;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                release.await(); // never answers while the benchmark runs
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "hanging-upstream");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        UpstreamConfig config = UpstreamConfig.defaults()
+                .withDictionaryApiUrl(base + "/entries/")
+                .withTranslateApiUrl(base + "/get")
+                .withLimits(300, 16, 5, 1_000);
+        controller = new DictionaryController(100, 1000, 30, "", config, PersistenceConfig.defaults(), new MetricsRegistry());
+        controller.init();
+        if (!controller.awaitReady(10_000)) {
+            throw new IllegalStateException("Dictionary did not load: " + controller.readiness().getBody());
+        }
+
+        if ("hanging".equals(upstream)) {
+            caller = new Thread(() -> {
+                long round = 0;
+                while (running) {
+                    for (int i = 0; i < CALLS_PER_ROUND; i++) {
+                        controller.getExternalDefinitions("word" + round + "-" + i);
+                        controller.translate("text " + round + "-" + i);
+                    }
+                    round++;
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "upstream-caller");
+            caller.setDaemon(true);
+            caller.start();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        running = false;
+        if (caller != null) {
+            caller.interrupt();
+            caller.join();
+        }
+        controller.shutdown();
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public Map<String, Object> search() {
+        return controller.search(next++ % 2 == 0 ? "apple" : "aple", null);
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        return controller.suggest("a", 0);
+    }
+}
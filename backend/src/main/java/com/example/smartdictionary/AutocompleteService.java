@@ -0,0 +1,194 @@
+package com.example.smartdictionary;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Autocomplete for clients that stay connected while the user types (/suggest/ws). Each
+ * connection keeps a Trie.Cursor, so a keystroke moves one node from where the last one
+ * left off instead of walking the whole prefix from the root, and no HTTP request is made
+ * per keystroke.
+ *
+ * Keystrokes are debounced per connection: the first of a burst schedules a lookup
+ * debounceMs later, which answers whatever the prefix is by then. Keystrokes superseded
+ * in between are never looked up, and an answer whose prefix changed while it was being
+ * computed is dropped instead of sent. A connection has at most one lookup queued or
+ * running, so its cursor needs no lock and its replies go out in order.
+ */
+public class AutocompleteService {
+
+    //Longest prefix a keystroke may carry; no headword comes close
+    public static final int MAX_PREFIX_LENGTH = 100;
+
+    /**
+     * Sends one answer back over a connection.
+     */
+    public interface Replies {
+        void send(long seq, String prefix, List<String> suggestions) throws IOException;
+    }
+
+    private final Supplier<Trie> tries;
+    private final long debounceMs;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final LongAdder keystrokes;
+    private final LongAdder superseded;
+    private final LongAdder answered;
+    private final LongAdder cursorSteps;
+    private final LatencyHistogram lookupTime;
+
+    /**
+     * @param tries the trie to complete from, read again on every lookup so a reload is
+     *              picked up on the next keystroke
+     */
+    public AutocompleteService(Supplier<Trie> tries, long debounceMs, int threads, MetricsRegistry metrics) {
+        this.tries = tries;
+        this.debounceMs = Math.max(0, debounceMs);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "autocomplete-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.keystrokes = metrics.counter("autocomplete_keystrokes_total", "Prefixes received over /suggest/ws");
+        this.superseded = metrics.counter("autocomplete_superseded_total",
+                "Keystrokes not answered because a newer one from the same connection replaced them");
+        this.answered = metrics.counter("autocomplete_answers_total", "Suggestion lists sent over /suggest/ws");
+        this.cursorSteps = metrics.counter("autocomplete_cursor_steps_total",
+                "Trie nodes stepped down or back up by connection cursors");
+        this.lookupTime = metrics.histogram("autocomplete_lookup_seconds",
+                "Cursor move and completion lookup time per /suggest/ws answer");
+        metrics.gauge("autocomplete_connections", "Open /suggest/ws connections", connections::get);
+    }
+
+    public Session open(Replies replies) {
+        connections.incrementAndGet();
+        return new Session(replies);
+    }
+
+    public int connections() {
+        return connections.get();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    //One keystroke: the whole prefix as typed, so a lost or reordered one cannot desync the cursor
+    private static final class Keystroke {
+        final long seq;
+        final String prefix;
+        final int fuzzy;
+
+        Keystroke(long seq, String prefix, int fuzzy) {
+            this.seq = seq;
+            this.prefix = prefix;
+            this.fuzzy = fuzzy;
+        }
+    }
+
+    /**
+     * The autocomplete state of one connection.
+     */
+    public final class Session {
+
+        private final Replies replies;
+        private final AtomicReference<Keystroke> pending = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        //Only touched by the one lookup this session has running
+        private Trie.Cursor cursor;
+
+        private Session(Replies replies) {
+            this.replies = replies;
+        }
+
+        /**
+         * Records the prefix now in the search box. fuzzy is the number of typos to allow,
+         * as for /suggest; answers carry seq back so the client can match them up.
+         */
+        public void keystroke(long seq, String prefix, int fuzzy) {
+            if (closed.get()) return;
+            keystrokes.increment();
+            if (pending.getAndSet(new Keystroke(seq, prefix, fuzzy)) != null) {
+                superseded.increment();
+            }
+            schedule();
+        }
+
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                connections.decrementAndGet();
+                pending.set(null);
+            }
+        }
+
+        public boolean isClosed() {
+            return closed.get();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) return;
+            try {
+                scheduler.schedule(this::run, debounceMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                close();
+            }
+        }
+
+        private void run() {
+            Keystroke next;
+            while ((next = pending.getAndSet(null)) != null && !closed.get()) {
+                long start = System.nanoTime();
+                List<String> suggestions = lookup(next.prefix, next.fuzzy);
+                lookupTime.recordSince(start);
+                if (pending.get() != null) {
+                    // Typed on while this was computed; answer the newer prefix instead
+                    superseded.increment();
+                    continue;
+                }
+                try {
+                    replies.send(next.seq, next.prefix, suggestions);
+                    answered.increment();
+                } catch (IOException | RuntimeException e) {
+                    close();
+                }
+            }
+            scheduled.set(false);
+            // A keystroke that arrived after the last poll saw the flag still set
+            if (pending.get() != null && !closed.get()) {
+                schedule();
+            }
+        }
+
+        /**
+         * Moves the cursor to prefix and returns what /suggest?fuzzy= would for it. Typos
+         * are only looked for when the exact prefix has fewer than Trie.MAX_SUGGESTIONS
+         * completions; otherwise those are the answer either way.
+         */
+        List<String> lookup(String prefix, int fuzzy) {
+            Trie trie = tries.get();
+            if (cursor == null || cursor.getTrie() != trie) {
+                // First keystroke, or the dictionary was reloaded
+                cursor = trie.cursor();
+            }
+            cursorSteps.add(cursor.moveTo(prefix));
+            List<String> suggestions = cursor.suggestions();
+            if (fuzzy > 0 && suggestions.size() < Trie.MAX_SUGGESTIONS) {
+                suggestions = trie.searchFuzzyPrefix(prefix, fuzzy);
+            }
+            return suggestions;
+        }
+    }
+}
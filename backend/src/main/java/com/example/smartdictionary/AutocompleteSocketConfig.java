@@ -0,0 +1,39 @@
+package com.example.smartdictionary;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Registers the /suggest/ws autocomplete socket. It completes from the trie of whatever
+ * dictionary DictionaryController is serving, so a reload reaches open connections too.
+ */
+@Configuration
+@EnableWebSocket
+public class AutocompleteSocketConfig implements WebSocketConfigurer {
+
+    private final AutocompleteService autocomplete;
+
+    public AutocompleteSocketConfig(DictionaryController dictionary,
+                                    MetricsRegistry metrics,
+                                    @Value("${smartdictionary.autocomplete.debounce-ms:20}") long debounceMs,
+                                    @Value("${smartdictionary.autocomplete.threads:0}") int threads) {
+        this.autocomplete = new AutocompleteService(dictionary::currentTrie, debounceMs,
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), metrics);
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Same origins as the REST endpoints
+        registry.addHandler(new AutocompleteSocketHandler(autocomplete), "/suggest/ws").setAllowedOrigins("*");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        autocomplete.shutdown();
+    }
+}
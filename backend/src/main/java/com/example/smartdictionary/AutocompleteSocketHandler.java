@@ -0,0 +1,75 @@
+package com.example.smartdictionary;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * /suggest/ws: the client sends {"seq": n, "q": prefix, "fuzzy": 0-2} on every change to
+ * the search box and gets {"seq": n, "q": prefix, "suggestions": [...]} back for the
+ * keystrokes that are not superseded (see AutocompleteService). A message that is not
+ * such an object closes the connection with 1007 (bad data).
+ */
+public class AutocompleteSocketHandler extends TextWebSocketHandler {
+
+    private static final String SESSION = "autocomplete";
+    //How long a reply may wait on a slow client, and how much may queue, before it is dropped
+    static final int SEND_TIME_LIMIT_MS = 5_000;
+    static final int SEND_BUFFER_LIMIT = 64 * 1024;
+
+    private final AutocompleteService autocomplete;
+    private final ObjectMapper json = new ObjectMapper();
+
+    public AutocompleteSocketHandler(AutocompleteService autocomplete) {
+        this.autocomplete = autocomplete;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        //Replies are sent from the autocomplete threads; the decorator serializes them
+        WebSocketSession out = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT);
+        session.getAttributes().put(SESSION, autocomplete.open((seq, prefix, suggestions) -> {
+            Map<String, Object> reply = new LinkedHashMap<>();
+            reply.put("seq", seq);
+            reply.put("q", prefix);
+            reply.put("suggestions", suggestions);
+            out.sendMessage(new TextMessage(json.writeValueAsString(reply)));
+        }));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        AutocompleteService.Session typing = (AutocompleteService.Session) session.getAttributes().get(SESSION);
+        JsonNode keystroke;
+        try {
+            keystroke = json.readTree(message.getPayload());
+        } catch (JsonProcessingException e) {
+            keystroke = null;
+        }
+        JsonNode q = keystroke != null ? keystroke.path("q") : null;
+        if (typing == null || q == null || !q.isTextual() || q.asText().length() > AutocompleteService.MAX_PREFIX_LENGTH) {
+            session.close(CloseStatus.BAD_DATA.withReason("Send {\"seq\": n, \"q\": prefix of at most "
+                    + AutocompleteService.MAX_PREFIX_LENGTH + " characters, \"fuzzy\": 0-2}"));
+            return;
+        }
+        typing.keystroke(keystroke.path("seq").asLong(), q.asText(), keystroke.path("fuzzy").asInt(0));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        AutocompleteService.Session typing = (AutocompleteService.Session) session.getAttributes().remove(SESSION);
+        if (typing != null) {
+            typing.close();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.smartdictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only dictionary backed by a memory-mapped file, for dictionaries too large
+ * to hold as a HashMap. Keys are binary searched in place and definitions stay
+ * off-heap until get() decodes the one being returned.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *   int magic "SDIC", int version, int count, int reserved
+ *   int[count + 1] key offsets        (absolute; the last one ends the key block)
+ *   int[count + 1] definition offsets (absolute; the last one ends the file)
+ *   key block        UTF-8 keys, sorted by unsigned byte order
+ *   definition block UTF-8 definitions, in key order
+ * </pre>
+ * The whole file is one mapping, so it is limited to 2 GB.
+ */
+public class BinaryDictionary extends AbstractMap<String, String> {
+
+    static final int MAGIC = 0x53444943;
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int keyOffsets;
+    private final int definitionOffsets;
+
+    BinaryDictionary(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a binary dictionary file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary dictionary version " + buffer.getInt(4));
+        }
+        this.count = buffer.getInt(8);
+        this.keyOffsets = HEADER_SIZE;
+        this.definitionOffsets = keyOffsets + 4 * (count + 1);
+    }
+
+    /**
+     * Maps the file read-only. The mapping stays valid after the channel is closed.
+     */
+    public static BinaryDictionary open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary dictionary larger than 2 GB: " + path);
+            }
+            return new BinaryDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes entries in the binary format, sorting keys by their UTF-8 bytes.
+     */
+    public static void write(Map<String, String> entries, Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(entries, out);
+        }
+    }
+
+    public static void write(Map<String, String> entries, OutputStream target) throws IOException {
+        int n = entries.size();
+        byte[][] keys = new byte[n][];
+        byte[][] definitions = new byte[n][];
+        Integer[] order = new Integer[n];
+        int i = 0;
+        for (Map.Entry<String, String> e : entries.entrySet()) {
+            keys[i] = e.getKey().getBytes(StandardCharsets.UTF_8);
+            definitions[i] = (e.getValue() != null ? e.getValue() : "").getBytes(StandardCharsets.UTF_8);
+            order[i] = i;
+            i++;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(keys[a], keys[b]));
+
+        long position = HEADER_SIZE + 8L * (n + 1);
+        for (byte[] k : keys) position += k.length;
+        for (byte[] d : definitions) position += d.length;
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException("Dictionary too large for a single binary file: " + position + " bytes");
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(n);
+        out.writeInt(0);
+        int offset = HEADER_SIZE + 8 * (n + 1);
+        for (int idx : order) {
+            out.writeInt(offset);
+            offset += keys[idx].length;
+        }
+        out.writeInt(offset);
+        for (int idx : order) {
+            out.writeInt(offset);
+            offset += definitions[idx].length;
+        }
+        out.writeInt(offset);
+        for (int idx : order) out.write(keys[idx]);
+        for (int idx : order) out.write(definitions[idx]);
+        out.flush();
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String)) return null;
+        int index = indexOf((String) key);
+        return index >= 0 ? definitionAt(index) : null;
+    }
+
+    /**
+     * Position of key in sorted order, or -1.
+     */
+    public int indexOf(String key) {
+        byte[] target = key.getBytes(StandardCharsets.UTF_8);
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareKey(mid, target);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public String keyAt(int index) {
+        return decode(keyOffsets, index);
+    }
+
+    public String definitionAt(int index) {
+        return decode(definitionOffsets, index);
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < count;
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next() {
+                        if (next >= count) throw new NoSuchElementException();
+                        return new LazyEntry(next++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    private int compareKey(int index, byte[] target) {
+        int start = buffer.getInt(keyOffsets + 4 * index);
+        int end = buffer.getInt(keyOffsets + 4 * (index + 1));
+        int len = Math.min(end - start, target.length);
+        for (int i = 0; i < len; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(start + i), target[i]);
+            if (cmp != 0) return cmp;
+        }
+        return (end - start) - target.length;
+    }
+
+    private String decode(int offsetTable, int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException(index);
+        int start = buffer.getInt(offsetTable + 4 * index);
+        int end = buffer.getInt(offsetTable + 4 * (index + 1));
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Decodes the key and definition only when asked for
+    private final class LazyEntry implements Map.Entry<String, String> {
+        private final int index;
+
+        LazyEntry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return keyAt(index);
+        }
+
+        @Override
+        public String getValue() {
+            return definitionAt(index);
+        }
+
+        @Override
+        public String setValue(String value) {
+            throw new UnsupportedOperationException("BinaryDictionary is read-only");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e
+                    && getKey().equals(e.getKey()) && getValue().equals(e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ getValue().hashCode();
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.example.smartdictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Inverted index over definition text, for finding words by their meaning.
+ *
+ * Definitions are split into lowercase letter/digit tokens; stopwords and one-letter
+ * tokens are dropped and plurals are folded to the singular ("fruits", "fruit").
+ * Each term maps to a posting list of (document, term frequency) pairs in document
+ * order, stored as a byte array of varints with documents delta-encoded, which takes
+ * 2-3 bytes per posting instead of 8 for an int pair.
+ *
+ * Queries are scored with BM25 and walked document at a time, keeping only the best
+ * limit hits in a small heap, so a query allocates next to nothing however many
+ * documents match. Lists longer than BLOCK_SIZE also keep the highest score any
+ * document in each block can reach, which lets a query skip most of a common
+ * term's postings once it has enough good hits (see search).
+ * Built once by a Builder and read-only afterwards, so it is safe to share.
+ */
+public class DefinitionIndex {
+
+    //BM25 parameters; the usual defaults
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "have", "in", "into",
+            "is", "it", "its", "of", "on", "or", "that", "the", "their", "this", "to", "was", "which",
+            "with");
+
+    public static final class Hit {
+        private final String word;
+        private final double score;
+
+        Hit(String word, double score) {
+            this.word = word;
+            this.score = score;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    //Postings per block; long lists keep a score bound per block so blocks can be skipped
+    static final int BLOCK_SIZE = 128;
+
+    private static final class Postings {
+        final byte[] data;
+        final int docFreq;
+        //Largest tf * (K1 + 1) / (tf + norm) in the list; times idf, the most one document can get
+        float maxScore;
+        //Lists longer than one block: per block, the last document, where its bytes start, and its maxScore
+        int[] blockLastDoc;
+        int[] blockOffset;
+        float[] blockMax;
+
+        Postings(byte[] data, int docFreq) {
+            this.data = data;
+            this.docFreq = docFreq;
+        }
+
+        //Computes the score bounds once the document norms are known
+        void computeBounds(float[] norms) {
+            int blocks = docFreq > BLOCK_SIZE ? (docFreq + BLOCK_SIZE - 1) / BLOCK_SIZE : 0;
+            if (blocks > 0) {
+                blockLastDoc = new int[blocks];
+                blockOffset = new int[blocks];
+                blockMax = new float[blocks];
+            }
+            Cursor cursor = new Cursor(this, 1);
+            for (int i = 0; cursor.doc != Integer.MAX_VALUE; i++) {
+                float bound = Math.nextUp((float) cursor.score(norms[cursor.doc]));
+                maxScore = Math.max(maxScore, bound);
+                if (blocks > 0) {
+                    int block = i / BLOCK_SIZE;
+                    if (i % BLOCK_SIZE == 0) {
+                        blockOffset[block] = cursor.start;
+                    }
+                    blockLastDoc[block] = cursor.doc;
+                    blockMax[block] = Math.max(blockMax[block], bound);
+                }
+                cursor.advance();
+            }
+        }
+    }
+
+    //Reads one posting list in document order
+    private static final class Cursor {
+        final Postings postings;
+        final byte[] data;
+        final double idf;
+        //Byte offset of the next posting, and of the current one
+        int offset;
+        int start;
+        //Index of the current posting in the list
+        int index = -1;
+        int doc;
+        int freq;
+
+        Cursor(Postings postings, double idf) {
+            this.postings = postings;
+            this.data = postings.data;
+            this.idf = idf;
+            advance();
+        }
+
+        //Moves to the next posting; doc is Integer.MAX_VALUE once the list is exhausted
+        void advance() {
+            if (offset >= data.length) {
+                doc = Integer.MAX_VALUE;
+                return;
+            }
+            start = offset;
+            index++;
+            doc += readVarInt();
+            freq = readVarInt();
+        }
+
+        double score(double norm) {
+            return idf * freq * (K1 + 1) / (freq + norm);
+        }
+
+        //The most any document in the current block can score for this term
+        double blockBound() {
+            return postings.blockMax == null ? idf * postings.maxScore : idf * postings.blockMax[index / BLOCK_SIZE];
+        }
+
+        //Jumps to the first posting of the next block, without decoding the rest of this one
+        void skipBlock() {
+            int next = index / BLOCK_SIZE + 1;
+            if (postings.blockMax == null || next == postings.blockMax.length) {
+                doc = Integer.MAX_VALUE;
+                return;
+            }
+            jumpTo(next);
+        }
+
+        //Moves to the first posting at or after target, jumping whole blocks that end before it
+        void advanceTo(int target) {
+            if (postings.blockLastDoc != null) {
+                int block = index / BLOCK_SIZE;
+                int next = block;
+                while (next < postings.blockLastDoc.length && postings.blockLastDoc[next] < target) {
+                    next++;
+                }
+                if (next == postings.blockLastDoc.length) {
+                    doc = Integer.MAX_VALUE;
+                    return;
+                }
+                if (next > block) {
+                    jumpTo(next);
+                }
+            }
+            while (doc < target) {
+                advance();
+            }
+        }
+
+        private void jumpTo(int block) {
+            offset = postings.blockOffset[block];
+            doc = postings.blockLastDoc[block - 1];
+            index = block * BLOCK_SIZE - 1;
+            advance();
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+
+    private final String[] words;
+    //Per document: the BM25 length normalization K1 * (1 - B + B * length / averageLength)
+    private final float[] norms;
+    private final Map<String, Postings> terms;
+    private final long postingBytes;
+
+    private DefinitionIndex(String[] words, int[] lengths, Map<String, Postings> terms) {
+        this.words = words;
+        this.terms = terms;
+        long total = 0;
+        for (int length : lengths) {
+            total += length;
+        }
+        double averageLength = words.length == 0 ? 1 : Math.max(1, (double) total / words.length);
+        this.norms = new float[lengths.length];
+        for (int doc = 0; doc < lengths.length; doc++) {
+            norms[doc] = (float) (K1 * (1 - B + B * lengths[doc] / averageLength));
+        }
+        long bytes = 0;
+        for (Postings postings : terms.values()) {
+            postings.computeBounds(norms);
+            bytes += postings.data.length;
+        }
+        this.postingBytes = bytes;
+    }
+
+    public static DefinitionIndex empty() {
+        return new Builder().build();
+    }
+
+    /**
+     * The best matches for the query, highest BM25 score first (ties by word).
+     * Query text is tokenized the same way as definitions; unknown terms are ignored.
+     *
+     * Once limit hits are held, the lowest of their scores is a floor that anything
+     * new has to reach. Terms whose combined maximum is below the floor can no longer
+     * bring in a document on their own, so candidates come only from the other terms
+     * (MaxScore), and blocks of postings whose bound cannot reach the floor are
+     * skipped without being decoded.
+     */
+    public List<Hit> search(String query, int limit) {
+        if (query == null || limit <= 0) return List.of();
+        List<Cursor> cursors = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Postings postings = terms.get(term);
+            if (postings != null) {
+                double idf = Math.log(1 + (words.length - postings.docFreq + 0.5) / (postings.docFreq + 0.5));
+                cursors.add(new Cursor(postings, idf));
+            }
+        }
+        if (cursors.isEmpty()) return List.of();
+
+        //Lowest maximum first; below[i] is the sum of the maximums of cursors before i
+        cursors.sort(Comparator.comparingDouble(c -> c.idf * c.postings.maxScore));
+        Cursor[] open = cursors.toArray(new Cursor[0]);
+        int n = open.length;
+        double[] below = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            below[i + 1] = below[i] + open[i].idf * open[i].postings.maxScore;
+        }
+
+        Comparator<Hit> worstFirst = Comparator.comparingDouble(Hit::getScore)
+                .thenComparing(Hit::getWord, Comparator.reverseOrder());
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, worstFirst);
+        //Score of the worst hit kept once the heap is full; a document must reach it to get in
+        double floor = Double.NEGATIVE_INFINITY;
+        //Cursors before this one cannot lift a document to the floor on their own
+        int essential = 0;
+        while (true) {
+            while (essential < n && below[essential + 1] < floor) {
+                essential++;
+            }
+            if (essential == n) break;
+
+            int doc = Integer.MAX_VALUE;
+            for (int i = essential; i < n; i++) {
+                Cursor cursor = open[i];
+                double others = below[n] - open[i].idf * cursor.postings.maxScore;
+                while (cursor.doc != Integer.MAX_VALUE && cursor.blockBound() + others < floor) {
+                    cursor.skipBlock();
+                }
+                doc = Math.min(doc, cursor.doc);
+            }
+            if (doc == Integer.MAX_VALUE) break;
+
+            double norm = norms[doc];
+            double score = 0;
+            for (int i = essential; i < n; i++) {
+                if (open[i].doc == doc) {
+                    score += open[i].score(norm);
+                    open[i].advance();
+                }
+            }
+            for (int i = essential - 1; i >= 0 && score + below[i + 1] >= floor; i--) {
+                open[i].advanceTo(doc);
+                if (open[i].doc == doc) {
+                    score += open[i].score(norm);
+                }
+            }
+            if (score < floor) continue;
+            if (top.size() < limit) {
+                top.add(new Hit(words[doc], score));
+            } else if (score > floor || words[doc].compareTo(top.peek().getWord()) < 0) {
+                top.poll();
+                top.add(new Hit(words[doc], score));
+            } else {
+                continue;
+            }
+            if (top.size() == limit) {
+                floor = top.peek().getScore();
+            }
+        }
+        Hit[] hits = top.toArray(new Hit[0]);
+        Arrays.sort(hits, worstFirst.reversed());
+        return Arrays.asList(hits);
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * Bytes held by the compressed posting lists.
+     */
+    public long postingBytes() {
+        return postingBytes;
+    }
+
+    /**
+     * Lowercase terms of text, without stopwords, with plurals folded.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                // Stopwords are matched before stemming, which would turn "this" into "thi"
+                String word = token.toString();
+                if (word.length() > 1 && !STOPWORDS.contains(word)) {
+                    tokens.add(stem(word));
+                }
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    //The "S" stemmer: only plural endings are removed, so terms stay readable
+    static String stem(String term) {
+        int n = term.length();
+        if (n > 4 && term.endsWith("ies") && !term.endsWith("eies") && !term.endsWith("aies")) {
+            return term.substring(0, n - 3) + "y";
+        }
+        if (n > 3 && term.endsWith("es") && !term.endsWith("aes") && !term.endsWith("ees") && !term.endsWith("oes")) {
+            return term.substring(0, n - 1);
+        }
+        if (n > 3 && term.endsWith("s") && !term.endsWith("us") && !term.endsWith("ss")) {
+            return term.substring(0, n - 1);
+        }
+        return term;
+    }
+
+    /**
+     * Collects definitions, one document per word, and builds the index. Not thread safe.
+     */
+    public static class Builder {
+
+        private static final class PostingsBuilder {
+            byte[] data = new byte[8];
+            int size;
+            int lastDoc;
+            int docFreq;
+
+            void add(int doc, int freq) {
+                if (size + 10 > data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                writeVarInt(doc - lastDoc);
+                writeVarInt(freq);
+                lastDoc = doc;
+                docFreq++;
+            }
+
+            private void writeVarInt(int value) {
+                while ((value & ~0x7F) != 0) {
+                    data[size++] = (byte) ((value & 0x7F) | 0x80);
+                    value >>>= 7;
+                }
+                data[size++] = (byte) value;
+            }
+        }
+
+        private final List<String> words = new ArrayList<>();
+        private int[] lengths = new int[1024];
+        private final Map<String, PostingsBuilder> terms = new HashMap<>();
+        //Term frequencies of the document being added, reused between documents
+        private final Map<String, int[]> frequencies = new HashMap<>();
+
+        public Builder add(String word, String definition) {
+            if (word == null || definition == null) return this;
+            int doc = words.size();
+            List<String> tokens = tokenize(definition);
+            frequencies.clear();
+            for (String token : tokens) {
+                frequencies.computeIfAbsent(token, t -> new int[1])[0]++;
+            }
+            for (Map.Entry<String, int[]> e : frequencies.entrySet()) {
+                terms.computeIfAbsent(e.getKey(), t -> new PostingsBuilder()).add(doc, e.getValue()[0]);
+            }
+            if (doc == lengths.length) {
+                lengths = Arrays.copyOf(lengths, doc * 2);
+            }
+            lengths[doc] = tokens.size();
+            words.add(word);
+            return this;
+        }
+
+        public DefinitionIndex build() {
+            Map<String, Postings> frozen = new HashMap<>(terms.size() * 4 / 3 + 1);
+            for (Map.Entry<String, PostingsBuilder> e : terms.entrySet()) {
+                PostingsBuilder postings = e.getValue();
+                frozen.put(e.getKey(), new Postings(Arrays.copyOf(postings.data, postings.size), postings.docFreq));
+            }
+            return new DefinitionIndex(words.toArray(new String[0]), Arrays.copyOf(lengths, words.size()), frozen);
+        }
+    }
+}
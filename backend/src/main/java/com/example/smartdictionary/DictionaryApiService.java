@@ -1,5 +1,7 @@
 package com.example.smartdictionary;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
@@ -7,11 +9,78 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 public class DictionaryApiService {
 
-    private static final String BASE_URL = "https://api.dictionaryapi.dev/api/v2/entries/en/";
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    //Cache budget, weighed in characters of upstream JSON
+    private static final long CACHE_MAX_WEIGHT = 32L * 1024 * 1024;
+    private static final long CACHE_TTL_MS = TimeUnit.HOURS.toMillis(24);
+    private static final long NEGATIVE_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Parsed upstream result. status is "ok", "error" (no response or non-2xx)
+     * or "parse-error"; data is only set when status is "ok".
+     */
+    public static final class Definitions {
+        private final String status;
+        private final Object data;
+        private final String error;
+        private final int weight;
+
+        Definitions(String status, Object data, String error, int weight) {
+            this.status = status;
+            this.data = data;
+            this.error = error;
+            this.weight = weight;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public Object getData() {
+            return data;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isOk() {
+            return "ok".equals(status);
+        }
+    }
+
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+    private final UpstreamGuard guard;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ResponseCache<String, Definitions> cache = new ResponseCache<>(
+            CACHE_MAX_WEIGHT, CACHE_TTL_MS, NEGATIVE_TTL_MS, d -> d.weight, d -> !d.isOk());
+
+    public DictionaryApiService() {
+        this(UpstreamConfig.defaults());
+    }
+
+    public DictionaryApiService(String baseUrl) {
+        this(UpstreamConfig.defaults().withDictionaryApiUrl(baseUrl));
+    }
+
+    public DictionaryApiService(UpstreamConfig config) {
+        this.baseUrl = config.getDictionaryApiUrl();
+        this.requestTimeout = Duration.ofMillis(config.getRequestTimeoutMs());
+        // One client per service so keep-alive connections are reused across requests
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMs()))
+                .build();
+        this.guard = config.newGuard("dictionaryapi.dev");
+    }
 
     /**
      * Fetch raw JSON from dictionaryapi.dev for the given word.
@@ -19,20 +88,93 @@ public class DictionaryApiService {
      */
     public String fetchRawJson(String word) {
         if (word == null || word.isBlank()) return null;
-        String encoded = URLEncoder.encode(word.toLowerCase(), StandardCharsets.UTF_8);
-        String url = BASE_URL + encoded;
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .GET()
-                .build();
         try {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = send(word.toLowerCase()).join();
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 return response.body();
             }
-        } catch (IOException | InterruptedException e) {
+        } catch (CompletionException e) {
             // swallow and return null; caller will handle
         }
         return null;
     }
-}
\ No newline at end of file
+
+    public Definitions fetchDefinitions(String word) {
+        return fetchDefinitionsAsync(word).join();
+    }
+
+    /**
+     * Cached, parsed definitions for the given word. Concurrent lookups of the same
+     * uncached word share one upstream call; "not found" (404) answers are cached for a
+     * shorter time, while any other failure (timeouts, rejected calls, 5xx, 429,
+     * unparseable bodies) is not cached at all, so one bad upstream moment does not
+     * stick to the word. The returned future never completes exceptionally.
+     */
+    public CompletableFuture<Definitions> fetchDefinitionsAsync(String word) {
+        if (word == null || word.isBlank()) {
+            return CompletableFuture.completedFuture(new Definitions("error", null, "Word is empty", 1));
+        }
+        return cache.getAsync(word.toLowerCase(), this::load)
+                .exceptionally(e -> unwrap(e) instanceof ParseFailure
+                        ? new Definitions("parse-error", null, "Failed to parse API response", 1)
+                        : new Definitions("error", null, describe(e), 1));
+    }
+
+    public void registerMetrics(MetricsRegistry metrics) {
+        cache.registerMetrics(metrics, "definitions");
+        guard.registerMetrics(metrics);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = cache.stats();
+        guard.putStats(stats);
+        return stats;
+    }
+
+    private CompletableFuture<Definitions> load(String word) {
+        return send(word).thenApply(response -> {
+            if (response.statusCode() == 404) {
+                // The API's answer for words it has no entry for
+                return new Definitions("error", null, "HTTP 404", 1);
+            }
+            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                throw new CompletionException(new IOException("HTTP " + response.statusCode()));
+            }
+            String json = response.body();
+            try {
+                return new Definitions("ok", mapper.readValue(json, Object.class), null, json.length());
+            } catch (IOException e) {
+                throw new CompletionException(new ParseFailure(e));
+            }
+        });
+    }
+
+    //A 2xx body that is not JSON; failed loads are not cached
+    private static final class ParseFailure extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        ParseFailure(IOException cause) {
+            super("Failed to parse API response", cause);
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(String word) {
+        String encoded = URLEncoder.encode(word, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + encoded))
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+        return guard.call(() -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()),
+                response -> response.statusCode() >= 500);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static String describe(Throwable e) {
+        Throwable cause = unwrap(e);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+}
@@ -1,55 +1,180 @@
 package com.example.smartdictionary;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.beans.factory.annotation.Value;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 @RestController
 @CrossOrigin(origins = "*") // Allow frontend access
 public class DictionaryController {
 
     //Data Structures
-    private final Trie trie = new Trie();
-    private final HistoryStack history = new HistoryStack();
-    private final FlashcardList flashcards = new FlashcardList();
-    private final NotRememberedStack notRemembered = new NotRememberedStack();
-    private final FavoriteWords favorites = new FavoriteWords();
-    private final TranslateService translateService = new TranslateService();
-    private final DictionaryApiService dictionaryApi = new DictionaryApiService();
-    private Map<String, String> dictionaryData = new HashMap<>();
+    //Dictionary, trie, deck and indexes, replaced as a whole on reload; each request reads it once
+    private final AtomicReference<DictionarySnapshot> snapshot = new AtomicReference<>(DictionarySnapshot.empty());
+    //Search hit counts that rank /suggest results; moved to each new snapshot's trie
+    private final SearchPopularity popularity = new SearchPopularity(snapshot.get().getTrie());
+    //The reload in progress, if any; calls made meanwhile share its result
+    private final AtomicReference<CompletableFuture<ResponseEntity<Map<String, Object>>>> reloading = new AtomicReference<>();
+    //The deck sessions fork from; a session moves to a new one on its next use
+    private final Supplier<FlashcardList> currentDeck = () -> snapshot.get().getDeck();
+    //Per-user history, favorites, flashcard cursor and not-remembered words
+    private final SessionStore sessions;
+    //Write-ahead log and snapshots for sessions; null keeps them in memory only
+    private final SessionJournal journal;
+    private final int historyMaxSize;
+    //Upstream clients share one config for timeouts and circuit breaking
+    private final TranslateService translateService;
+    private final DictionaryApiService dictionaryApi;
+    //Either the bundled JSON or, when set, a .json file or memory-mapped BinaryDictionary
+    private final String dictionaryPath;
+    //Counted down once loading finished or failed; ready means the dictionary, trie and deck are usable
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private volatile boolean ready = false;
+    private volatile String loadError;
+    private volatile boolean stopping = false;
     //Store definitions for words not in dictionary
-    private final Map<String, String> sampleSetDefinitions = new HashMap<>();
+    private final Map<String, String> sampleSetDefinitions = new ConcurrentHashMap<>();
     //Sample sets loaded from JSON resources
     private List<Map<String, String>> animalSet = new ArrayList<>();
     private List<Map<String, String>> codingSet = new ArrayList<>();
+    //The sample sets serialized once, with their gzip copy and ETag
+    private SerializedResponse animalBody = SerializedResponse.of(EMPTY_LIST);
+    private SerializedResponse codingBody = SerializedResponse.of(EMPTY_LIST);
+    //Search hits serialized once per headword and snapshot, so serving them skips Jackson
+    private final ResponseCache<String, EntryBody> entryBodies = new ResponseCache<>(
+            ENTRY_CACHE_MAX_WEIGHT, ENTRY_CACHE_TTL_MS, ENTRY_CACHE_TTL_MS, e -> e.body.weight(), e -> false);
+    //Part of every version ETag, so a tag handed out before a restart never matches after it
+    private final String bootTag = Long.toString(System.currentTimeMillis(), 36);
 
-    //Load data when server starts
+    //Prometheus counters and histograms; per-request timing is in RequestMetricsFilter
+    private final MetricsRegistry metrics;
+    private final LongAdder searchHits;
+    private final LongAdder searchMisses;
+    private final LongAdder correctionsFound;
+    private final LongAdder correctionsNone;
+    private final LatencyHistogram suggestTime;
+    private final LatencyHistogram fuzzySuggestTime;
+    private final LatencyHistogram definitionSearchTime;
+    private final LongAdder reloadsOk;
+    private final LongAdder reloadsFailed;
+    private volatile long lastReloadMillis;
+    private volatile long lastReloadHeapDelta;
+
+    //Requests without this header share the anonymous session
+    public static final String USER_HEADER = "X-User-Id";
+    //Most results one /search/definitions request may ask for
+    public static final int MAX_DEFINITION_RESULTS = 100;
+    //Most words one /search/batch request may ask for
+    public static final int MAX_SEARCH_BATCH = 10_000;
+    //Distinct words per parallel lookup task in /search/batch
+    static final int SEARCH_BATCH_CHUNK = 256;
+    //Reads and writes the NDJSON of /search/batch, /export and /import, and serializes the cached bodies
+    private final ObjectMapper json = new ObjectMapper();
+    //Collections /export can include, in the order they are written
+    static final List<String> EXPORT_COLLECTIONS = List.of("favorites", "deck", "history", "not-remembered");
+    //Export lines per deck page, and imported changes applied per session lock
+    static final int TRANSFER_BATCH = 500;
+    //Weight cap of the entry-body cache (entryBodies), in bytes of serialized /search hits and their gzip copies
+    static final long ENTRY_CACHE_MAX_WEIGHT = 16L * 1024 * 1024;
+    static final long ENTRY_CACHE_TTL_MS = TimeUnit.HOURS.toMillis(1);
+    private static final byte[] EMPTY_LIST = "[]".getBytes(StandardCharsets.UTF_8);
+
+    public DictionaryController(@Value("${smartdictionary.history.max-size:100}") int historyMaxSize,
+                                @Value("${smartdictionary.sessions.max:50000}") int maxSessions,
+                                @Value("${smartdictionary.sessions.idle-minutes:30}") long idleMinutes,
+                                @Value("${smartdictionary.dictionary.path:}") String dictionaryPath,
+                                UpstreamConfig upstream,
+                                PersistenceConfig persistence,
+                                MetricsRegistry metrics) {
+        this.dictionaryPath = dictionaryPath;
+        this.historyMaxSize = historyMaxSize;
+        this.translateService = new TranslateService(upstream);
+        this.dictionaryApi = new DictionaryApiService(upstream);
+        this.journal = persistence.newJournal();
+        //Evicted sessions are saved by the journal and rebuilt on their next request
+        this.sessions = new SessionStore(maxSessions, idleMinutes * 60_000, this::openSession,
+                journal != null ? journal::dehydrate : session -> {});
+        this.metrics = metrics;
+        this.searchHits = metrics.counter("dictionary_searches_total", "Searches by outcome", "result", "hit");
+        this.searchMisses = metrics.counter("dictionary_searches_total", "Searches by outcome", "result", "miss");
+        this.correctionsFound = metrics.counter("dictionary_corrections_total",
+                "Spelling corrections looked up for missed searches", "result", "found");
+        this.correctionsNone = metrics.counter("dictionary_corrections_total",
+                "Spelling corrections looked up for missed searches", "result", "none");
+        this.suggestTime = metrics.histogram("dictionary_suggest_seconds", "Trie prefix lookup time for /suggest");
+        this.fuzzySuggestTime = metrics.histogram("dictionary_fuzzy_suggest_seconds",
+                "Typo-tolerant trie walk time for /suggest?fuzzy=");
+        this.definitionSearchTime = metrics.histogram("dictionary_definition_search_seconds",
+                "Inverted index query time for /search/definitions");
+        this.reloadsOk = metrics.counter("dictionary_reloads_total", "Dictionary reloads by outcome", "result", "ok");
+        this.reloadsFailed = metrics.counter("dictionary_reloads_total", "Dictionary reloads by outcome", "result", "failed");
+        metrics.gauge("dictionary_words", "Words in the loaded dictionary", () -> snapshot.get().getData().size());
+        metrics.gauge("dictionary_snapshot_version", "Dictionary loads published so far", () -> snapshot.get().getVersion());
+        metrics.gauge("dictionary_last_reload_seconds", "Build time of the last successful reload",
+                () -> lastReloadMillis / 1000.0);
+        metrics.gauge("dictionary_last_reload_heap_delta_bytes", "Heap growth across the last successful reload",
+                () -> lastReloadHeapDelta);
+        metrics.gauge("dictionary_ready", "1 once the dictionary, trie and deck are built", () -> ready ? 1 : 0);
+        metrics.gauge("sessions_active", "User sessions held in memory", () -> sessions.size());
+        translateService.registerMetrics(metrics);
+        dictionaryApi.registerMetrics(metrics);
+        entryBodies.registerMetrics(metrics, "dictionary_entries");
+        if (journal != null) {
+            journal.registerMetrics(metrics);
+        }
+    }
+
+    private UserSession openSession(String userId) {
+        //The deck follows the snapshot: a session opened while loading moves to the real deck on next use
+        UserSession session = new UserSession(userId, historyMaxSize, currentDeck);
+        if (journal != null) {
+            journal.restore(session);
+        }
+        return session;
+    }
+
+    //Load data when server starts; the dictionary loads in the background so the server is live at once
     @PostConstruct
     public void init() {
         try {
-            //Read from src/main/resources/dictionary.json
-            ObjectMapper mapper = new ObjectMapper();
-            dictionaryData = mapper.readValue(
-                new ClassPathResource("dictionary.json").getInputStream(), 
-                new TypeReference<Map<String, String>>(){}
-            );
-
-            //Populate Data Structures
-            for (Map.Entry<String, String> entry : dictionaryData.entrySet()) {
-                trie.insert(entry.getKey());
-                flashcards.add(entry.getKey(), entry.getValue());
-            }
-            System.out.println("Dictionary loaded successfully!");
-
             //Load sample sets from resources
+            ObjectMapper mapper = new ObjectMapper();
             animalSet = mapper.readValue(
                 new ClassPathResource("animal.json").getInputStream(),
                 new TypeReference<List<Map<String, String>>>() {}
@@ -61,135 +186,787 @@ public class DictionaryController {
             //Keep definitions available for not-remembered lookups
             addSampleDefinitions(animalSet);
             addSampleDefinitions(codingSet);
-
+            animalBody = SerializedResponse.of(json.writeValueAsBytes(animalSet));
+            codingBody = SerializedResponse.of(json.writeValueAsBytes(codingSet));
         } catch (IOException e) {
             e.printStackTrace();
-            System.err.println("Failed to load dictionary.json");
+            System.err.println("Failed to load sample sets");
+        }
+        if (journal != null) {
+            try {
+                //Reads the snapshot and log tail only; sessions are rebuilt on first use
+                journal.open();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot recover sessions from " + journal.getStats().get("directory"), e);
+            }
+        }
+        popularity.start();
+        sessions.start();
+
+        Thread loader = new Thread(this::loadDictionary, "dictionary-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void loadDictionary() {
+        try {
+            DictionarySnapshot built = buildSnapshot(1);
+            popularity.moveTo(built.getTrie());
+            snapshot.set(built);
+            if (journal != null) {
+                //Sessions opened while loading replayed their journal onto the empty deck, where
+                //cursor moves and removals were lost; rebuild them from the journal
+                sessions.evictAll();
+                journal.start(sessions::sessions);
+            } else {
+                sessions.sessions().forEach(UserSession::followSharedDeck);
+            }
+            ready = true;
+            System.out.println("Dictionary loaded successfully! " + built.getData().size() + " words in "
+                    + built.getLoadMillis() + " ms");
+            loaded.countDown();
+
+            Map<String, String> data = built.getData();
+            long version = built.getVersion();
+            //Reverse lookups are rarer than searches too; build their index alongside the spelling index
+            CompletableFuture.runAsync(() -> {
+                DefinitionIndex index = buildDefinitionIndex(data);
+                if (index != null) {
+                    publishIndex(version, current -> current.withDefinitionIndex(index));
+                }
+            });
+
+            //Only misses need corrections, so this index is built after the server is ready
+            SpellingIndex index = buildSpellingIndex(data);
+            if (index != null) {
+                publishIndex(version, current -> current.withSpellingIndex(index));
+            }
+        } catch (IOException | RuntimeException e) {
+            loadError = e.getMessage() != null ? e.getMessage() : e.toString();
+            e.printStackTrace();
+            System.err.println("Failed to load dictionary data");
+        } finally {
+            loaded.countDown();
+        }
+    }
+
+    /**
+     * Reads the dictionary and builds its trie and deck; the indexes are left to the caller.
+     */
+    private DictionarySnapshot buildSnapshot(long version) throws IOException {
+        long start = System.nanoTime();
+        Map<String, String> data = readDictionary();
+        //Mapped definitions stay off-heap; cards look them up when shown
+        boolean mapped = data instanceof BinaryDictionary;
+        List<String> words = new ArrayList<>(data.keySet());
+
+        //The trie and the deck do not depend on each other, so build them side by side
+        Trie trie = new Trie();
+        CompletableFuture<Void> trieBuilt = CompletableFuture.runAsync(() -> {
+            for (String word : words) {
+                trie.insert(word);
+            }
+        });
+        FlashcardList deck = new FlashcardList();
+        deck.addAll(words, mapped ? word -> null : data::get);
+        //Accented, upper-case and full-width spellings of headwords, for /search
+        FoldedIndex folded = FoldedIndex.of(words);
+        trieBuilt.join();
+        return new DictionarySnapshot(version, data, trie, deck, folded, null, null,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Map<String, String> readDictionary() throws IOException {
+        if (dictionaryPath != null && !dictionaryPath.isBlank()) {
+            //A .json file is streamed; anything else is memory-mapped as a BinaryDictionary
+            return DictionaryLoader.open(Path.of(dictionaryPath));
+        }
+        try (InputStream in = new ClassPathResource("dictionary.json").getInputStream()) {
+            return DictionaryLoader.readJson(in);
+        }
+    }
+
+    //Adds an index to the published snapshot, unless a reload has replaced it meanwhile
+    private void publishIndex(long version, UnaryOperator<DictionarySnapshot> update) {
+        snapshot.updateAndGet(current -> current.getVersion() == version ? update.apply(current) : current);
+    }
+
+    //Null if the server is stopping
+    private SpellingIndex buildSpellingIndex(Map<String, String> data) {
+        SpellingIndex index = new SpellingIndex(List.of(), 2);
+        for (String word : data.keySet()) {
+            if (stopping) return null;
+            index.add(word);
+        }
+        return index;
+    }
+
+    //Null if the server is stopping or the build failed
+    private DefinitionIndex buildDefinitionIndex(Map<String, String> data) {
+        try {
+            long start = System.nanoTime();
+            DefinitionIndex.Builder builder = new DefinitionIndex.Builder();
+            for (Map.Entry<String, String> e : data.entrySet()) {
+                if (stopping) return null;
+                builder.add(e.getKey(), e.getValue());
+            }
+            //Sample set words are searchable too, unless the dictionary already defines them
+            for (Map.Entry<String, String> e : sampleSetDefinitions.entrySet()) {
+                if (!data.containsKey(e.getKey())) {
+                    builder.add(e.getKey(), e.getValue());
+                }
+            }
+            DefinitionIndex index = builder.build();
+            System.out.println("Definition index built: " + index.termCount() + " terms, "
+                    + index.postingBytes() / 1024 + " KB of postings in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return index;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            System.err.println("Failed to build the definition index");
+            return null;
+        }
+    }
+
+    // Reload the dictionary from dictionary.path (or the bundled JSON) without downtime: the
+    // new dictionary, trie, deck and both indexes are built on a background thread and then
+    // published in one reference swap, so requests already running finish on the old ones and
+    // nothing waits on a lock. Calls made while a reload runs share its result. Also recovers
+    // from a failed first load. Sessions move to the new deck on their next use, with their
+    // own added, removed and shuffled cards replayed on top
+    @PostMapping("/admin/reload")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> reload() {
+        if (loaded.getCount() > 0) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "loading");
+            response.put("error", "The dictionary is still loading");
+            return CompletableFuture.completedFuture(ResponseEntity.status(409).body(response));
+        }
+        CompletableFuture<ResponseEntity<Map<String, Object>>> result = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Map<String, Object>>> running = reloading.compareAndExchange(null, result);
+        if (running != null) return running;
+
+        Thread reloader = new Thread(() -> {
+            ResponseEntity<Map<String, Object>> response = reloadDictionary();
+            reloading.set(null);
+            result.complete(response);
+        }, "dictionary-reloader");
+        reloader.setDaemon(true);
+        reloader.start();
+        return result;
+    }
+
+    private ResponseEntity<Map<String, Object>> reloadDictionary() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long start = System.nanoTime();
+        Map<String, Object> response = new HashMap<>();
+        try {
+            DictionarySnapshot previous = snapshot.get();
+            DictionarySnapshot built = buildSnapshot(previous.getVersion() + 1);
+            //Unlike the first load, nothing is served from the new dictionary until its indexes exist too
+            SpellingIndex spelling = buildSpellingIndex(built.getData());
+            DefinitionIndex definitions = buildDefinitionIndex(built.getData());
+            if (spelling == null || definitions == null) {
+                throw new IllegalStateException(stopping ? "The server is stopping" : "Failed to build the definition index");
+            }
+            built = built.withSpellingIndex(spelling).withDefinitionIndex(definitions);
+
+            popularity.moveTo(built.getTrie());
+            snapshot.set(built);
+            //Cached hits name their snapshot and would be rebuilt anyway; free them now
+            entryBodies.invalidateAll();
+            //Move every session's deck now, so none of them keeps the old snapshot's cards alive
+            sessions.sessions().forEach(UserSession::followSharedDeck);
+            if (journal != null && !ready) {
+                journal.start(sessions::sessions);
+            }
+            ready = true;
+            loadError = null;
+
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            //Measured without forcing a GC: the old snapshot is still on the heap until collected
+            long heapAfter = memory.getHeapMemoryUsage().getUsed();
+            lastReloadMillis = millis;
+            lastReloadHeapDelta = heapAfter - heapBefore;
+            reloadsOk.increment();
+            System.out.println("Dictionary reloaded: " + built.getData().size() + " words in " + millis + " ms");
+
+            response.put("status", "ok");
+            response.put("version", built.getVersion());
+            response.put("words", built.getData().size());
+            response.put("previousWords", previous.getData().size());
+            response.put("durationMs", millis);
+            response.put("heapBeforeBytes", heapBefore);
+            response.put("heapAfterBytes", heapAfter);
+            response.put("heapDeltaBytes", heapAfter - heapBefore);
+            return ResponseEntity.status(200).body(response);
+        } catch (IOException | RuntimeException e) {
+            reloadsFailed.increment();
+            e.printStackTrace();
+            System.err.println("Failed to reload dictionary data; still serving the previous one");
+            response.put("status", "error");
+            response.put("error", e.getMessage() != null ? e.getMessage() : e.toString());
+            response.put("durationMs", (System.nanoTime() - start) / 1_000_000);
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * Waits until the definition index is built. For tests.
+     */
+    boolean awaitDefinitionIndex(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!snapshot.get().isDefinitionIndexReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
         }
+        return snapshot.get().isDefinitionIndexReady();
+    }
+
+    /**
+     * Waits until loading has finished; true if the dictionary is ready.
+     */
+    boolean awaitReady(long timeoutMs) throws InterruptedException {
+        return loaded.await(timeoutMs, TimeUnit.MILLISECONDS) && ready;
     }
 
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        popularity.stop();
+        sessions.stop();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.err.println("Failed to write final session snapshot");
+            }
+        }
+    }
+
+    //Write-ahead log and snapshot counters; 404 when persistence is off
+    @GetMapping("/persistence/stats")
+    public ResponseEntity<Map<String, Object>> getPersistenceStats() {
+        if (journal == null) return ResponseEntity.status(404).body(Map.of("enabled", false));
+        Map<String, Object> stats = journal.getStats();
+        stats.put("enabled", true);
+        return ResponseEntity.status(200).body(stats);
+    }
+
+    /**
+     * Waits until every session change so far is on disk. For tests.
+     */
+    void syncJournal() throws IOException, InterruptedException {
+        if (journal != null) journal.sync();
+    }
+
+    //Liveness: the process is up and serving, whether or not the dictionary has loaded
+    @GetMapping("/health/live")
+    public Map<String, Object> live() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "up");
+        return response;
+    }
+
+    //Readiness: 503 until the dictionary, trie and deck are built, and once session changes can no longer be saved
+    @GetMapping("/health/ready")
+    public ResponseEntity<Map<String, Object>> readiness() {
+        DictionarySnapshot dictionary = snapshot.get();
+        Map<String, Object> response = new HashMap<>();
+        String journalError = journal != null ? journal.writeError() : null;
+        boolean serving = ready && journalError == null;
+        response.put("status", journalError != null ? "failed" : ready ? "ready" : loadError != null ? "failed" : "loading");
+        response.put("words", dictionary.getData().size());
+        response.put("spellingIndex", dictionary.isSpellingReady() ? "ready" : "building");
+        response.put("definitionIndex", dictionary.isDefinitionIndexReady() ? "ready" : "building");
+        if (ready) {
+            response.put("version", dictionary.getVersion());
+            response.put("loadMillis", dictionary.getLoadMillis());
+        }
+        if (loadError != null) {
+            response.put("error", loadError);
+        }
+        if (journalError != null) {
+            response.put("persistenceError", journalError);
+        }
+        return ResponseEntity.status(serving ? 200 : 503).body(response);
+    }
+
+    // Look up a word. A hit is sent from the bytes cached for its entry: serialized and
+    // gzipped once, with a strong ETag, so a repeat search carrying that ETag gets a 304.
+    // A miss carries a spelling correction and is serialized per request
     @GetMapping("/search")
-    public Map<String, Object> search(@RequestParam String word) {
+    public ResponseEntity<byte[]> searchResponse(@RequestParam String word,
+                                                 @RequestHeader(value = USER_HEADER, required = false) String userId,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding)
+            throws JsonProcessingException {
         String searchWord = word.toLowerCase();
-        Map<String, Object> response = new HashMap<>();
 
         //Always add to history, regardless of whether word is found
-        history.push(searchWord);
+        sessions.get(userId).pushHistory(searchWord);
 
-        if (dictionaryData.containsKey(searchWord)) {
-            response.put("found", true);
-            response.put("word", searchWord);
-            response.put("definition", dictionaryData.get(searchWord));
-        } else {
-            response.put("found", false);
-            String correction = Levenshtein.findClosest(searchWord, dictionaryData.keySet());
-            response.put("correction", correction);
+        DictionarySnapshot dictionary = snapshot.get();
+        String headword = dictionary.resolve(searchWord);
+        if (headword == null) {
+            Map<String, Object> response = lookup(searchWord, dictionary);
+            countSearch(response, 1, true);
+            return ResponseEntity.status(200).contentType(MediaType.APPLICATION_JSON).body(json.writeValueAsBytes(response));
+        }
+        countHit(headword, 1, true);
+        return entryBody(dictionary, headword).respond(ifNoneMatch, acceptEncoding);
+    }
+
+    //What GET /search answers, as a map
+    public Map<String, Object> search(String word, String userId) {
+        String searchWord = word.toLowerCase();
+        sessions.get(userId).pushHistory(searchWord);
+
+        DictionarySnapshot dictionary = snapshot.get();
+        Map<String, Object> response = lookup(searchWord, dictionary);
+        countSearch(response, 1, true);
+        return response;
+    }
+
+    // Search many words in one request: one NDJSON line per word, in request order, holding
+    // what /search and /favorites/{word} return for it. Each distinct word is looked up once;
+    // misses need a spelling correction, the slow part, so large batches run in parallel chunks
+    // and lines are streamed as their chunk finishes. record=false skips history and popularity,
+    // for lookups that are not user searches (e.g. rendering a deck)
+    @PostMapping(value = "/search/batch", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> searchBatch(@RequestBody List<String> words,
+                                                             @RequestParam(defaultValue = "true") boolean record,
+                                                             @RequestHeader(value = USER_HEADER, required = false) String userId) {
+        if (words == null || words.size() > MAX_SEARCH_BATCH || words.stream().anyMatch(Objects::isNull)) {
+            byte[] error = ("{\"status\":\"error\",\"error\":\"Send between 0 and " + MAX_SEARCH_BATCH
+                    + " words\"}\n").getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.status(400).body(out -> out.write(error));
+        }
+        UserSession session = sessions.get(userId);
+        //The whole batch sees one dictionary and index, even if a reload swaps them midway
+        DictionarySnapshot dictionary = snapshot.get();
+
+        Map<String, Integer> slots = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        List<Integer> occurrences = new ArrayList<>();
+        int[] slotOf = new int[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            String searchWord = words.get(i).toLowerCase();
+            if (record) {
+                session.pushHistory(searchWord);
+            }
+            Integer slot = slots.get(searchWord);
+            if (slot == null) {
+                slot = distinct.size();
+                slots.put(searchWord, slot);
+                distinct.add(searchWord);
+                occurrences.add(0);
+            }
+            occurrences.set(slot, occurrences.get(slot) + 1);
+            slotOf[i] = slot;
         }
+
+        List<CompletableFuture<List<Map<String, Object>>>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += SEARCH_BATCH_CHUNK) {
+            int start = from;
+            int end = Math.min(distinct.size(), from + SEARCH_BATCH_CHUNK);
+            Supplier<List<Map<String, Object>>> task = () -> {
+                List<Map<String, Object>> results = new ArrayList<>(end - start);
+                for (int slot = start; slot < end; slot++) {
+                    String searchWord = distinct.get(slot);
+                    Map<String, Object> response = lookup(searchWord, dictionary);
+                    countSearch(response, occurrences.get(slot), record);
+                    results.add(response);
+                }
+                return results;
+            };
+            //A batch that fits in one chunk is not worth a hand-off to the pool
+            chunks.add(distinct.size() <= SEARCH_BATCH_CHUNK
+                    ? CompletableFuture.completedFuture(task.get())
+                    : CompletableFuture.supplyAsync(task));
+        }
+
+        return ResponseEntity.status(200).body(out -> {
+            for (int i = 0; i < words.size(); i++) {
+                CompletableFuture<List<Map<String, Object>>> chunk = chunks.get(slotOf[i] / SEARCH_BATCH_CHUNK);
+                if (!chunk.isDone()) {
+                    //Send what is ready before waiting on the next chunk
+                    out.flush();
+                }
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("query", words.get(i));
+                line.put("search", chunk.join().get(slotOf[i] % SEARCH_BATCH_CHUNK));
+                line.put("favorite", favoriteStatus(session, words.get(i)));
+                out.write(json.writeValueAsBytes(line));
+                out.write('\n');
+            }
+            out.flush();
+        });
+    }
+
+    //Dictionary hit, or a spelling correction for a miss, for one lowercased word. Input that
+    //only differs from a headword in accents, case or width finds it before any correction
+    private Map<String, Object> lookup(String searchWord, DictionarySnapshot dictionary) {
+        String headword = dictionary.resolve(searchWord);
+        if (headword != null) {
+            return hit(dictionary, headword);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("found", false);
+        response.put("correction", dictionary.getSpellingIndex().findClosest(searchWord));
         return response;
     }
 
+    private static Map<String, Object> hit(DictionarySnapshot dictionary, String headword) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("found", true);
+        response.put("word", headword);
+        response.put("definition", dictionary.getData().get(headword));
+        return response;
+    }
+
+    //The serialized hit for a headword. An entry cached from another snapshot, before or
+    //after a reload, is replaced by this request's, so a body never outlives its dictionary
+    private SerializedResponse entryBody(DictionarySnapshot dictionary, String headword) {
+        EntryBody cached = entryBodies.get(headword, k -> serializeHit(dictionary, k));
+        if (cached.version != dictionary.getVersion()) {
+            cached = serializeHit(dictionary, headword);
+            entryBodies.put(headword, cached);
+        }
+        return cached.body;
+    }
+
+    private EntryBody serializeHit(DictionarySnapshot dictionary, String headword) {
+        try {
+            return new EntryBody(dictionary.getVersion(), SerializedResponse.of(json.writeValueAsBytes(hit(dictionary, headword))));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class EntryBody {
+        final long version;
+        final SerializedResponse body;
+
+        EntryBody(long version, SerializedResponse body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+
+    private void countSearch(Map<String, Object> response, int times, boolean recordPopularity) {
+        if (Boolean.TRUE.equals(response.get("found"))) {
+            countHit((String) response.get("word"), times, recordPopularity);
+        } else {
+            searchMisses.add(times);
+            (response.get("correction") != null ? correctionsFound : correctionsNone).add(times);
+        }
+    }
+
+    private void countHit(String headword, int times, boolean recordPopularity) {
+        if (recordPopularity) {
+            //The headword, which may be spelled differently from what was typed
+            for (int i = 0; i < times; i++) {
+                popularity.record(headword);
+            }
+        }
+        searchHits.add(times);
+    }
+
+    // Words starting with q. fuzzy=1 or 2 also allows that many typos in q, with words
+    // that match q exactly ranked first (see Trie.searchFuzzyPrefix)
     @GetMapping("/suggest")
-    public List<String> suggest(@RequestParam String q) {
-        return trie.searchPrefix(q);
+    public List<String> suggest(@RequestParam String q,
+                                @RequestParam(defaultValue = "0") int fuzzy) {
+        Trie trie = snapshot.get().getTrie();
+        long start = System.nanoTime();
+        if (fuzzy <= 0) {
+            List<String> suggestions = trie.searchPrefix(q);
+            suggestTime.recordSince(start);
+            return suggestions;
+        }
+        List<String> suggestions = trie.searchFuzzyPrefix(q, fuzzy);
+        fuzzySuggestTime.recordSince(start);
+        return suggestions;
+    }
+
+    //The trie /suggest reads; /suggest/ws cursors follow it across reloads
+    Trie currentTrie() {
+        return snapshot.get().getTrie();
     }
 
+    // Find words by meaning: definitions matching q, best BM25 score first. Sample set words
+    // are included. Until the index is built after loading, results are empty and index is "building"
+    @GetMapping("/search/definitions")
+    public Map<String, Object> searchDefinitions(@RequestParam String q,
+                                                 @RequestParam(defaultValue = "20") int limit) {
+        DictionarySnapshot dictionary = snapshot.get();
+        long start = System.nanoTime();
+        List<DefinitionIndex.Hit> hits = dictionary.getDefinitionIndex().search(q, Math.max(1, Math.min(limit, MAX_DEFINITION_RESULTS)));
+        definitionSearchTime.recordSince(start);
+
+        List<Map<String, Object>> results = new ArrayList<>(hits.size());
+        for (DefinitionIndex.Hit hit : hits) {
+            Map<String, Object> result = new HashMap<>();
+            String definition = dictionary.getData().get(hit.getWord());
+            result.put("word", hit.getWord());
+            result.put("definition", definition != null ? definition : sampleSetDefinitions.get(hit.getWord()));
+            result.put("score", hit.getScore());
+            results.add(result);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("query", q);
+        response.put("index", dictionary.isDefinitionIndexReady() ? "ready" : "building");
+        response.put("results", results);
+        return response;
+    }
+
+    //Prometheus scrape target
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String getMetrics() {
+        return metrics.scrape();
+    }
+
+    // The user's searches, newest first. The ETag is the history's version, so revalidating
+    // an unchanged history is answered with a 304 before the list is read or serialized
     @GetMapping("/history")
-    public List<String> getHistory() {
-        return history.getHistory();
+    public ResponseEntity<byte[]> historyResponse(@RequestHeader(value = USER_HEADER, required = false) String userId,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+            throws JsonProcessingException {
+        HistoryStack history = sessions.get(userId).getHistory();
+        String etag = versionTag("h", history.getVersion());
+        if (SerializedResponse.matches(ifNoneMatch, etag)) {
+            return SerializedResponse.notModified(etag, USER_HEADER);
+        }
+        return SerializedResponse.ok(json.writeValueAsBytes(history.getHistory()), etag, USER_HEADER);
     }
 
+    //What GET /history answers, as a list
+    public List<String> getHistory(String userId) {
+        return sessions.get(userId).getHistory().getHistory();
+    }
+
+    //Versions are unique across users within one run; the boot tag covers restarts
+    private String versionTag(String collection, long version) {
+        return '"' + collection + '-' + bootTag + '-' + version + '"';
+    }
+
+    //The card to study now: the most overdue review, or else the next new card in the deck
     @GetMapping("/flashcard")
-    public Map<String, String> getFlashcard() {
-        FlashcardList.CardNode card = flashcards.getCurrent();
+    public Map<String, String> getFlashcard(@RequestHeader(value = USER_HEADER, required = false) String userId) {
+        UserSession session = sessions.get(userId);
+        FlashcardList.CardNode card = studyCard(session, System.currentTimeMillis());
         if (card == null) return null;
 
         Map<String, String> response = new HashMap<>();
         response.put("word", card.word);
-        response.put("definition", card.definition);
+        response.put("definition", definitionOf(card));
         return response;
     }
 
     @PostMapping("/flashcard/next")
-    public Map<String, String> nextFlashcard() {
-        FlashcardList.CardNode card = flashcards.getNext();
+    public Map<String, String> nextFlashcard(@RequestHeader(value = USER_HEADER, required = false) String userId) {
+        FlashcardList.CardNode card = sessions.get(userId).advanceDeck();
         if (card == null) return null;
 
         Map<String, String> response = new HashMap<>();
         response.put("word", card.word);
-        response.put("definition", card.definition);
+        response.put("definition", definitionOf(card));
         return response;
     }
 
-    @PostMapping("/flashcard/remember")
-    public Map<String, Object> rememberCurrent() {
-        flashcards.reviewCurrent(true, notRemembered);
+    //Randomize the user's deck order and start from the first card
+    @PostMapping("/flashcard/shuffle")
+    public Map<String, Object> shuffleFlashcards(@RequestHeader(value = USER_HEADER, required = false) String userId) {
+        UserSession session = sessions.get(userId);
+        //Seeded so the journal can replay the same order
+        session.shuffleDeck(ThreadLocalRandom.current().nextLong());
         Map<String, Object> response = new HashMap<>();
         response.put("status", "ok");
-        response.put("action", "remember");
+        response.put("size", session.getFlashcards().getSize());
+        return response;
+    }
+
+    //Move the cursor to a position in the deck and return that card
+    @PostMapping("/flashcard/jump")
+    public Map<String, String> jumpToFlashcard(@RequestParam int index,
+                                               @RequestHeader(value = USER_HEADER, required = false) String userId) {
+        FlashcardList.CardNode card = sessions.get(userId).jumpToCard(index);
+        if (card == null) return null;
+
+        Map<String, String> response = new HashMap<>();
+        response.put("word", card.word);
+        response.put("definition", definitionOf(card));
+        return response;
+    }
+
+    //Take a word out of the user's deck
+    @DeleteMapping("/flashcard/{word}")
+    public Map<String, Object> removeFlashcard(@PathVariable String word,
+                                               @RequestHeader(value = USER_HEADER, required = false) String userId) {
+        boolean removed = sessions.get(userId).removeCard(word.toLowerCase());
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", removed ? "ok" : "not-found");
+        response.put("word", word.toLowerCase());
         return response;
     }
 
+    //Cards built from a mapped dictionary carry no definition until they are shown
+    private String definitionOf(FlashcardList.CardNode card) {
+        return card.definition != null ? card.definition : snapshot.get().getData().get(card.word);
+    }
+
+    @PostMapping("/flashcard/remember")
+    public Map<String, Object> rememberCurrent(@RequestHeader(value = USER_HEADER, required = false) String userId) {
+        return reviewStudyCard(sessions.get(userId), true);
+    }
+
     @PostMapping("/flashcard/not-remember")
-    public Map<String, Object> notRememberCurrent() {
-        flashcards.reviewCurrent(false, notRemembered);
+    public Map<String, Object> notRememberCurrent(@RequestHeader(value = USER_HEADER, required = false) String userId) {
+        return reviewStudyCard(sessions.get(userId), false);
+    }
+
+    //How many cards are on the user's review schedule and when the next one is due
+    @GetMapping("/flashcard/schedule")
+    public Map<String, Object> getSchedule(@RequestHeader(value = USER_HEADER, required = false) String userId) {
+        ReviewScheduler scheduler = sessions.get(userId).getScheduler();
+        Map<String, Object> response = new HashMap<>();
+        response.put("scheduled", scheduler.size());
+        response.put("due", scheduler.countDue(System.currentTimeMillis()));
+        response.put("nextDue", scheduler.nextDueTime());
+        return response;
+    }
+
+    //Read-only: the deck cursor only moves when the card is reviewed
+    private FlashcardList.CardNode studyCard(UserSession session, long now) {
+        String due = session.getScheduler().nextDue(now);
+        if (due != null) {
+            FlashcardList.CardNode card = session.getFlashcards().find(due);
+            return card != null ? card : new FlashcardList.CardNode(due, lookupDefinition(session, due));
+        }
+        // Cards already on the schedule are passed over; they come back when due
+        return session.nextNewCard();
+    }
+
+    //Grades the card /flashcard shows and schedules its next review
+    private Map<String, Object> reviewStudyCard(UserSession session, boolean remembered) {
+        long now = System.currentTimeMillis();
         Map<String, Object> response = new HashMap<>();
         response.put("status", "ok");
-        response.put("action", "not-remember");
+        response.put("action", remembered ? "remember" : "not-remember");
+
+        FlashcardList.CardNode card;
+        ReviewScheduler.CardState state;
+        //Picking and grading the card is one step, so two requests cannot grade the same card
+        synchronized (session) {
+            boolean fresh = session.getScheduler().nextDue(now) == null;
+            card = studyCard(session, now);
+            if (card == null) return response;
+            state = session.review(card.word, remembered, now);
+            if (fresh) {
+                session.moveDeckPast(card.word); // a new card: move the deck past it
+            }
+            if (!remembered) {
+                session.pushNotRemembered(card.word);
+            }
+        }
+        response.put("word", card.word);
+        response.put("intervalDays", state.getIntervalDays());
+        response.put("due", state.getDue());
         return response;
     }
 
     @GetMapping("/flashcard/pending")
-    public List<String> getPendingNotRemembered() {
-        return notRemembered.getPending();
+    public List<String> getPendingNotRemembered(@RequestHeader(value = USER_HEADER, required = false) String userId) {
+        return sessions.get(userId).getNotRemembered().getPending();
     }
 
     // Translate EN -> VI
+    // The request thread is released while the upstream call is in flight
     @PostMapping("/translate")
-    public Map<String, Object> translate(@RequestParam String text) {
+    public CompletableFuture<Map<String, Object>> translate(@RequestParam String text) {
+        return translateService.translateAsync(text).thenApply(translation -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("source", "en");
+            result.put("target", "vi");
+            result.put("text", text);
+            if (translation.isOk()) {
+                result.put("status", "ok");
+                result.put("translation", translation.getTranslation());
+            } else {
+                result.put("status", "error");
+                String detail = translation.getError();
+                result.put("error", detail != null ? detail : "Translation service unavailable or API error. Check backend logs.");
+            }
+            return result;
+        });
+    }
+
+    // Translate many texts EN -> VI in one request; only uncached texts go upstream
+    @PostMapping("/translate/batch")
+    public CompletableFuture<Map<String, Object>> translateBatch(@RequestBody List<String> texts) {
         Map<String, Object> result = new HashMap<>();
         result.put("source", "en");
         result.put("target", "vi");
-        result.put("text", text);
-        String translated = translateService.translateEnToVi(text);
-        if (translated != null) {
-            result.put("status", "ok");
-            result.put("translation", translated);
-        } else {
+        if (texts == null || texts.size() > TranslateService.MAX_BATCH_SIZE) {
             result.put("status", "error");
-            String detail = translateService.getLastError();
-            result.put("error", detail != null ? detail : "Translation service unavailable or API error. Check backend logs.");
+            result.put("error", "Send between 0 and " + TranslateService.MAX_BATCH_SIZE + " texts");
+            return CompletableFuture.completedFuture(result);
         }
-        return result;
+        return translateService.translateBatchAsync(texts).thenApply(translations -> {
+            List<Map<String, Object>> items = new ArrayList<>(translations.size());
+            for (TranslateService.Translation translation : translations) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("text", translation.getText());
+                if (translation.isOk()) {
+                    item.put("status", "ok");
+                    item.put("translation", translation.getTranslation());
+                } else {
+                    item.put("status", "error");
+                    item.put("error", translation.getError());
+                }
+                items.add(item);
+            }
+            result.put("status", "ok");
+            result.put("results", items);
+            return result;
+        });
+    }
+
+    @GetMapping("/translate/stats")
+    public Map<String, Object> getTranslateStats() {
+        return translateService.getStats();
     }
 
-      // External Dictionary API (dictionaryapi.dev)
+      // External Dictionary API (dictionaryapi.dev), cached per word
     @GetMapping("/external/definitions")
-    public Map<String, Object> getExternalDefinitions(@RequestParam String word) {
-        Map<String, Object> result = new HashMap<>();
-        String json = dictionaryApi.fetchRawJson(word);
-        result.put("source", "dictionaryapi.dev");
-        result.put("word", word.toLowerCase());
-        if (json != null) {
-            result.put("status", "ok");
-            try {
-                ObjectMapper mapper = new ObjectMapper();
-                Object parsed = mapper.readValue(json, Object.class);
-                result.put("data", parsed);
-            } catch (IOException e) {
-                result.put("status", "parse-error");
+    public CompletableFuture<Map<String, Object>> getExternalDefinitions(@RequestParam String word) {
+        return dictionaryApi.fetchDefinitionsAsync(word).thenApply(definitions -> {
+            Map<String, Object> result = new HashMap<>();
+            result.put("source", "dictionaryapi.dev");
+            result.put("word", word.toLowerCase());
+            result.put("status", definitions.getStatus());
+            if (definitions.isOk()) {
+                result.put("data", definitions.getData());
+            } else if ("parse-error".equals(definitions.getStatus())) {
                 result.put("error", "Failed to parse API response");
+            } else {
+                String detail = definitions.getError();
+                result.put("error", detail != null ? detail : "No response or non-2xx status");
             }
-        } else {
-            result.put("status", "error");
-            result.put("error", "No response or non-2xx status");
-        }
-        return result;
+            return result;
+        });
+    }
+
+    @GetMapping("/external/definitions/stats")
+    public Map<String, Object> getExternalDefinitionsStats() {
+        return dictionaryApi.getStats();
     }
 
     //Get favorites as flashcard set
     @GetMapping("/flashcard/favorites")
-    public List<Map<String, String>> getFavoriteFlashcards() {
-        List<WordItem> favoriteItems = favorites.list();
+    public List<Map<String, String>> getFavoriteFlashcards(@RequestHeader(value = USER_HEADER, required = false) String userId) {
+        List<WordItem> favoriteItems = sessions.get(userId).getFavorites().list();
         List<Map<String, String>> result = new ArrayList<>();
         for (WordItem item : favoriteItems) {
             Map<String, String> card = new HashMap<>();
@@ -202,37 +979,42 @@ public class DictionaryController {
 
     // Get not-remembered words as flashcard set (with definitions)
     @GetMapping("/flashcard/not-remembered")
-    public List<Map<String, String>> getNotRememberedFlashcards() {
-        List<String> words = notRemembered.getPending();
+    public List<Map<String, String>> getNotRememberedFlashcards(@RequestHeader(value = USER_HEADER, required = false) String userId) {
+        UserSession session = sessions.get(userId);
+        List<String> words = session.getNotRemembered().getPending();
         List<Map<String, String>> result = new ArrayList<>();
         for (String word : words) {
             Map<String, String> card = new HashMap<>();
             card.put("word", word);
-            // Get definition from dictionary, sample set definitions, or use placeholder
-            if (dictionaryData.containsKey(word)) {
-                card.put("definition", dictionaryData.get(word));
-            } else if (sampleSetDefinitions.containsKey(word)) {
-                card.put("definition", sampleSetDefinitions.get(word));
-            } else {
-                card.put("definition", "Definition not available");
-            }
+            card.put("definition", lookupDefinition(session, word));
             result.add(card);
         }
         return result;
     }
 
+    // Get definition from dictionary, the user's own or sample set definitions, or use placeholder
+    private String lookupDefinition(UserSession session, String word) {
+        String definition = snapshot.get().getData().get(word);
+        if (definition == null) definition = session.getCustomDefinitions().get(word);
+        if (definition == null) definition = sampleSetDefinitions.get(word);
+        return definition != null ? definition : "Definition not available";
+    }
+
     // Mark a not-remembered word as remembered (remove from stack)
     @PostMapping("/flashcard/not-remembered/{word}/remember")
-    public Map<String, Object> markNotRememberedAsRemembered(@PathVariable String word) {
+    public Map<String, Object> markNotRememberedAsRemembered(@PathVariable String word,
+                                                             @RequestHeader(value = USER_HEADER, required = false) String userId) {
         Map<String, Object> response = new HashMap<>();
         String key = word.toLowerCase();
+        UserSession session = sessions.get(userId);
         
         // Remove from not-remembered stack
-        boolean removed = notRemembered.remove(key);
+        boolean removed = session.removeNotRemembered(key);
         
-        // Also remove from sample set definitions if it was stored there
+        // Also drop the definition the user sent along with it, and count it as a successful review
         if (removed) {
-            sampleSetDefinitions.remove(key);
+            session.removeCustomDefinition(key);
+            session.review(key, true, System.currentTimeMillis());
         }
         
         response.put("status", removed ? "ok" : "not-found");
@@ -245,17 +1027,20 @@ public class DictionaryController {
     // Accepts optional definition in request body for words not in dictionary (e.g., sample sets)
     @PostMapping("/flashcard/not-remembered/{word}")
     public Map<String, Object> markAsNotRemembered(@PathVariable String word, 
-                                                   @RequestBody(required = false) Map<String, String> body) {
+                                                   @RequestBody(required = false) Map<String, String> body,
+                                                   @RequestHeader(value = USER_HEADER, required = false) String userId) {
         Map<String, Object> response = new HashMap<>();
         String key = word.toLowerCase();
+        UserSession session = sessions.get(userId);
         
         // Allow any word to be marked as not remembered, even if not in dictionary
         // This enables sample sets (animals, coding) to work
-        notRemembered.push(key);
+        session.pushNotRemembered(key);
+        session.review(key, false, System.currentTimeMillis());
         
         // Store definition if provided (for sample sets)
-        if (body != null && body.containsKey("definition") && !dictionaryData.containsKey(key)) {
-            sampleSetDefinitions.put(key, body.get("definition"));
+        if (body != null && body.get("definition") != null && !snapshot.get().getData().containsKey(key)) {
+            session.putCustomDefinition(key, body.get("definition"));
         }
         
         response.put("status", "ok");
@@ -264,15 +1049,17 @@ public class DictionaryController {
         return response;
     }
 
-    // Sample set endpoints
+    // Sample set endpoints, sent from bytes serialized and gzipped at startup
     @GetMapping("/flashcard/sample/animals")
-    public List<Map<String, String>> getAnimalSet() {
-        return animalSet;
+    public ResponseEntity<byte[]> getAnimalSet(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return animalBody.respond(ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/flashcard/sample/coding")
-    public List<Map<String, String>> getCodingSet() {
-        return codingSet;
+    public ResponseEntity<byte[]> getCodingSet(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return codingBody.respond(ifNoneMatch, acceptEncoding);
     }
 
     private void addSampleDefinitions(List<Map<String, String>> sampleSet) {
@@ -289,15 +1076,33 @@ public class DictionaryController {
     // External Dictionary API endpoint removed - using only JSON data
 
     // Favorites APIs
+    //Tagged with the favorites' version, like /history
     @GetMapping("/favorites")
-    public List<WordItem> listFavorites() {
-        return favorites.list();
+    public ResponseEntity<byte[]> favoritesResponse(@RequestHeader(value = USER_HEADER, required = false) String userId,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+            throws JsonProcessingException {
+        FavoriteWords favorites = sessions.get(userId).getFavorites();
+        String etag = versionTag("f", favorites.getVersion());
+        if (SerializedResponse.matches(ifNoneMatch, etag)) {
+            return SerializedResponse.notModified(etag, USER_HEADER);
+        }
+        return SerializedResponse.ok(json.writeValueAsBytes(favorites.list()), etag, USER_HEADER);
+    }
+
+    //What GET /favorites answers, as a list
+    public List<WordItem> listFavorites(String userId) {
+        return sessions.get(userId).getFavorites().list();
     }
 
     @GetMapping("/favorites/{word}")
-    public Map<String, Object> getFavorite(@PathVariable String word) {
+    public Map<String, Object> getFavorite(@PathVariable String word,
+                                           @RequestHeader(value = USER_HEADER, required = false) String userId) {
+        return favoriteStatus(sessions.get(userId), word);
+    }
+
+    private static Map<String, Object> favoriteStatus(UserSession session, String word) {
         Map<String, Object> response = new HashMap<>();
-        WordItem item = favorites.get(word);
+        WordItem item = session.getFavorites().get(word);
         response.put("found", item != null);
         if (item != null) {
             response.put("word", item.getWord());
@@ -308,14 +1113,16 @@ public class DictionaryController {
 
     @PostMapping("/favorites/{word}")
     public Map<String, Object> addFavorite(@PathVariable String word,
-                                          @RequestBody(required = false) Map<String, String> body) {
+                                          @RequestBody(required = false) Map<String, String> body,
+                                          @RequestHeader(value = USER_HEADER, required = false) String userId) {
         String key = word.toLowerCase();
         Map<String, Object> response = new HashMap<>();
 
         // Get definition from dictionary or from request body (for sample sets)
+        Map<String, String> data = snapshot.get().getData();
         String definition;
-        if (dictionaryData.containsKey(key)) {
-            definition = dictionaryData.get(key);
+        if (data.containsKey(key)) {
+            definition = data.get(key);
         } else if (body != null && body.containsKey("definition")) {
             // Allow favoriting words from sample sets with their definitions
             definition = body.get("definition");
@@ -325,7 +1132,7 @@ public class DictionaryController {
         }
 
         WordItem item = new WordItem(key, definition);
-        favorites.add(item);
+        sessions.get(userId).addFavorite(item);
         response.put("status", "ok");
         response.put("favorite", true);
         response.put("word", item.getWord());
@@ -333,9 +1140,10 @@ public class DictionaryController {
     }
 
     @DeleteMapping("/favorites/{word}")
-    public Map<String, Object> removeFavorite(@PathVariable String word) {
+    public Map<String, Object> removeFavorite(@PathVariable String word,
+                                              @RequestHeader(value = USER_HEADER, required = false) String userId) {
         Map<String, Object> response = new HashMap<>();
-        boolean removed = favorites.remove(word);
+        boolean removed = sessions.get(userId).removeFavorite(word);
         response.put("status", removed ? "ok" : "not-found");
         response.put("favorite", false);
         response.put("word", word.toLowerCase());
@@ -343,7 +1151,8 @@ public class DictionaryController {
     }
 
     @PostMapping("/flashcard/add-favorite")
-    public Map<String, Object> addFavoriteToFlashcard(@RequestBody Map<String, String> body) {
+    public Map<String, Object> addFavoriteToFlashcard(@RequestBody Map<String, String> body,
+                                                      @RequestHeader(value = USER_HEADER, required = false) String userId) {
         Map<String, Object> response = new HashMap<>();
         try {
             String word = body.getOrDefault("word", "").toLowerCase();
@@ -355,10 +1164,10 @@ public class DictionaryController {
                 return response;
             }
 
-            flashcards.add(word, definition);
+            boolean added = sessions.get(userId).addCard(word, definition);
 
             response.put("status", "ok");
-            response.put("message", "Added to flashcard list");
+            response.put("message", added ? "Added to flashcard list" : "Already in flashcard list");
             response.put("word", word);
         } catch (Exception e) {
             response.put("status", "error");
@@ -366,4 +1175,150 @@ public class DictionaryController {
         }
         return response;
     }
-}
\ No newline at end of file
+
+    // Export favorites, the flashcard deck, history and not-remembered words as NDJSON, one
+    // {type, word, definition?} line per item. Lines are written straight from the live
+    // collections (the deck a page at a time), so memory use does not grow with their size.
+    // History and not-remembered words come oldest first, so POST /import rebuilds the same order
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportCollections(
+            @RequestParam(defaultValue = "favorites,deck,history,not-remembered") List<String> include,
+            @RequestHeader(value = USER_HEADER, required = false) String userId) {
+        for (String collection : include) {
+            if (!EXPORT_COLLECTIONS.contains(collection)) {
+                byte[] error = ("{\"status\":\"error\",\"error\":\"include must list some of "
+                        + String.join(", ", EXPORT_COLLECTIONS) + "\"}\n").getBytes(StandardCharsets.UTF_8);
+                return ResponseEntity.status(400).body(out -> out.write(error));
+            }
+        }
+        UserSession session = sessions.get(userId);
+        return ResponseEntity.status(200).body(out -> {
+            JsonGenerator lines = json.getFactory().createGenerator(out);
+            lines.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            lines.setRootValueSeparator(null);
+            if (include.contains("favorites")) {
+                Iterator<WordItem> favorites = session.getFavorites().iterator();
+                while (favorites.hasNext()) {
+                    WordItem item = favorites.next();
+                    writeLine(lines, "favorite", item.getWord(), item.getDefinition());
+                }
+            }
+            if (include.contains("deck")) {
+                FlashcardList deck = session.getFlashcards();
+                for (int from = 0; ; from += TRANSFER_BATCH) {
+                    List<FlashcardList.CardNode> page = deck.page(from, TRANSFER_BATCH);
+                    for (FlashcardList.CardNode card : page) {
+                        writeLine(lines, "card", card.word, card.definition);
+                    }
+                    if (page.size() < TRANSFER_BATCH) break;
+                }
+            }
+            if (include.contains("history")) {
+                //Bounded by the history size, so a copy is fine
+                List<String> history = session.getHistory().getHistory();
+                for (int i = history.size() - 1; i >= 0; i--) {
+                    writeLine(lines, "history", history.get(i), null);
+                }
+            }
+            if (include.contains("not-remembered")) {
+                Iterator<String> pending = session.getNotRemembered().oldestFirst();
+                while (pending.hasNext()) {
+                    String word = pending.next();
+                    writeLine(lines, "not-remembered", word, session.getCustomDefinitions().get(word));
+                }
+            }
+            lines.flush();
+        });
+    }
+
+    private static void writeLine(JsonGenerator lines, String type, String word, String definition) throws IOException {
+        lines.writeStartObject();
+        lines.writeStringField("type", type);
+        lines.writeStringField("word", word);
+        if (definition != null) {
+            lines.writeStringField("definition", definition);
+        }
+        lines.writeEndObject();
+        lines.writeRaw('\n');
+    }
+
+    // Import lines in the /export format into the caller's session. Lines are parsed one at a
+    // time and applied TRANSFER_BATCH at a time under the session lock, so any size of upload
+    // runs in constant memory. A bad line stops the import with 400; earlier batches stay applied
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importCollections(InputStream body,
+                                                                 @RequestHeader(value = USER_HEADER, required = false) String userId)
+            throws IOException {
+        UserSession session = sessions.get(userId);
+        Map<String, Object> response = new HashMap<>();
+        List<SessionJournal.Record> batch = new ArrayList<>(TRANSFER_BATCH);
+        long lines = 0;
+        long applied = 0;
+        try (MappingIterator<TransferLine> parsed = json.readerFor(TransferLine.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValues(body)) {
+            while (parsed.hasNextValue()) {
+                TransferLine line = parsed.nextValue();
+                lines++;
+                String problem = toChanges(session, line, batch);
+                if (problem != null) {
+                    applied += session.importBatch(batch);
+                    response.put("status", "error");
+                    response.put("error", "Line " + lines + ": " + problem);
+                    response.put("applied", applied);
+                    return ResponseEntity.status(400).body(response);
+                }
+                if (batch.size() >= TRANSFER_BATCH) {
+                    applied += session.importBatch(batch);
+                    batch.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            applied += session.importBatch(batch);
+            response.put("status", "error");
+            response.put("error", "Line " + (lines + 1) + ": " + e.getOriginalMessage());
+            response.put("applied", applied);
+            return ResponseEntity.status(400).body(response);
+        }
+        applied += session.importBatch(batch);
+        response.put("status", "ok");
+        response.put("lines", lines);
+        response.put("applied", applied);
+        return ResponseEntity.status(200).body(response);
+    }
+
+    //One /export line; also what /import reads
+    static final class TransferLine {
+        public String type;
+        public String word;
+        public String definition;
+    }
+
+    //Adds the changes for one imported line to batch, or returns what is wrong with it
+    private String toChanges(UserSession session, TransferLine line, List<SessionJournal.Record> batch) {
+        if (line == null || line.word == null || line.word.isBlank()) return "word is required";
+        String key = line.word.toLowerCase();
+        String user = session.getUserId();
+        Map<String, String> data = snapshot.get().getData();
+        if ("favorite".equals(line.type)) {
+            //Same fallbacks as POST /favorites/{word}
+            String definition = data.containsKey(key) ? data.get(key)
+                    : line.definition != null ? line.definition : "No definition available";
+            batch.add(new SessionJournal.Record(SessionJournal.FAVORITE_ADD, user, key, definition, 0));
+        } else if ("card".equals(line.type)) {
+            //Cards from a memory-mapped dictionary have no definition of their own; keep it that way
+            batch.add(new SessionJournal.Record(SessionJournal.DECK_ADD, user, key, line.definition, 0));
+        } else if ("history".equals(line.type)) {
+            batch.add(new SessionJournal.Record(SessionJournal.HISTORY_PUSH, user, key, null, 0));
+        } else if ("not-remembered".equals(line.type)) {
+            batch.add(new SessionJournal.Record(SessionJournal.NOT_REMEMBERED_PUSH, user, key, null, 0));
+            //Same rule as POST /flashcard/not-remembered/{word}
+            if (line.definition != null && !data.containsKey(key)) {
+                batch.add(new SessionJournal.Record(SessionJournal.DEFINITION_PUT, user, key, line.definition, 0));
+            }
+        } else {
+            return "unknown type " + line.type;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.smartdictionary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Build tool: converts a {"word": "definition", ...} JSON dictionary into the
+ * memory-mapped format read by BinaryDictionary.
+ *
+ * Usage: DictionaryConverter &lt;dictionary.json&gt; &lt;dictionary.sdict&gt;
+ */
+public class DictionaryConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: DictionaryConverter <dictionary.json> <dictionary.sdict>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        Map<String, String> entries;
+        try (InputStream in = Files.newInputStream(Path.of(args[0]))) {
+            entries = DictionaryLoader.readJson(in);
+        }
+        BinaryDictionary.write(entries, Path.of(args[1]));
+        System.out.printf("Wrote %d entries to %s in %d ms%n", entries.size(), args[1],
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
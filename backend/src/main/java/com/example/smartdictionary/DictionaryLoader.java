@@ -0,0 +1,57 @@
+package com.example.smartdictionary;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opens the word/definition data the server runs on: a JSON object read token by
+ * token (no tree binding), or a memory-mapped BinaryDictionary.
+ */
+public class DictionaryLoader {
+
+    private DictionaryLoader() {
+    }
+
+    /**
+     * Opens path as JSON if it ends in .json, otherwise as a binary dictionary.
+     */
+    public static Map<String, String> open(Path path) throws IOException {
+        if (path.getFileName().toString().endsWith(".json")) {
+            try (InputStream in = Files.newInputStream(path)) {
+                return readJson(in);
+            }
+        }
+        return BinaryDictionary.open(path);
+    }
+
+    /**
+     * Reads a flat JSON object of string values with the streaming parser; later
+     * duplicates win and non-string values are skipped.
+     */
+    public static Map<String, String> readJson(InputStream in) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        try (JsonParser parser = new JsonFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object of word/definition pairs");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String word = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_STRING) {
+                    entries.put(word, parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.smartdictionary;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything built from one dictionary file: the definitions, the trie, the deck new
+ * sessions fork, the folded-key index, and the spelling and definition indexes. A
+ * published snapshot is never changed, only replaced, so a request that reads it once
+ * sees one consistent dictionary even while a reload swaps in the next. The trie's ranking is the exception: popularity
+ * keeps boosting it, which does not change the words it holds.
+ *
+ * The indexes are built after the dictionary is ready on first load; until then they are
+ * null and the getters return empty ones. A reload builds them before publishing.
+ */
+public final class DictionarySnapshot {
+
+    private static final SpellingIndex NO_SPELLING = new SpellingIndex(List.of(), 2);
+
+    private final long version;
+    private final Map<String, String> data;
+    private final Trie trie;
+    private final FlashcardList deck;
+    private final FoldedIndex folded;
+    private final SpellingIndex spellingIndex;
+    private final DefinitionIndex definitionIndex;
+    private final long loadMillis;
+
+    public DictionarySnapshot(long version, Map<String, String> data, Trie trie, FlashcardList deck, FoldedIndex folded,
+                              SpellingIndex spellingIndex, DefinitionIndex definitionIndex, long loadMillis) {
+        this.version = version;
+        this.data = data;
+        this.trie = trie;
+        this.deck = deck;
+        this.folded = folded;
+        this.spellingIndex = spellingIndex;
+        this.definitionIndex = definitionIndex;
+        this.loadMillis = loadMillis;
+    }
+
+    /**
+     * The snapshot served before the first load finishes: no words at all.
+     */
+    public static DictionarySnapshot empty() {
+        return new DictionarySnapshot(0, Map.of(), new Trie(), new FlashcardList(), FoldedIndex.empty(), null, null, -1);
+    }
+
+    public DictionarySnapshot withSpellingIndex(SpellingIndex index) {
+        return new DictionarySnapshot(version, data, trie, deck, folded, index, definitionIndex, loadMillis);
+    }
+
+    public DictionarySnapshot withDefinitionIndex(DefinitionIndex index) {
+        return new DictionarySnapshot(version, data, trie, deck, folded, spellingIndex, index, loadMillis);
+    }
+
+    //Incremented by every load, so late index builds can tell their snapshot was replaced
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, String> getData() {
+        return data;
+    }
+
+    public Trie getTrie() {
+        return trie;
+    }
+
+    public FlashcardList getDeck() {
+        return deck;
+    }
+
+    /**
+     * The headword a lowercased search names: the word itself if the dictionary has it,
+     * else the headword it matches once accents, case and width are folded away; null if
+     * neither. Plain ASCII input that is found directly does no folding at all.
+     */
+    public String resolve(String searchWord) {
+        if (data.containsKey(searchWord)) return searchWord;
+        String key = FoldedIndex.fold(searchWord);
+        if (!key.equals(searchWord) && data.containsKey(key)) return key;
+        return folded.headword(key);
+    }
+
+    public FoldedIndex getFoldedIndex() {
+        return folded;
+    }
+
+    public SpellingIndex getSpellingIndex() {
+        return spellingIndex != null ? spellingIndex : NO_SPELLING;
+    }
+
+    public boolean isSpellingReady() {
+        return spellingIndex != null;
+    }
+
+    public DefinitionIndex getDefinitionIndex() {
+        return definitionIndex != null ? definitionIndex : DefinitionIndex.empty();
+    }
+
+    public boolean isDefinitionIndexReady() {
+        return definitionIndex != null;
+    }
+
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+}
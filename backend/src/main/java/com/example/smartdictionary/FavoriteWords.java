@@ -1,19 +1,27 @@
 package com.example.smartdictionary;
 
+import java.util.Iterator;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.List;
 import java.util.ArrayList;
 
 /**
- * Favorite words store with O(1) lookup using a HashMap.
+ * Favorite words store with O(1) lookup using a ConcurrentHashMap,
+ * safe to share between request threads. Like HistoryStack, every change takes a new
+ * version from a counter shared by all instances.
  */
 public class FavoriteWords {
-    private final Map<String, WordItem> dict = new HashMap<>();
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final Map<String, WordItem> dict = new ConcurrentHashMap<>();
+    private volatile long version;
 
     public void add(WordItem item) {
         if (item == null || item.getWord() == null) return;
         dict.put(item.getWord().toLowerCase(), item);
+        version = VERSIONS.incrementAndGet();
     }
 
     public WordItem get(String word) {
@@ -23,7 +31,9 @@ public class FavoriteWords {
 
     public boolean remove(String word) {
         if (word == null) return false;
-        return dict.remove(word.toLowerCase()) != null;
+        if (dict.remove(word.toLowerCase()) == null) return false;
+        version = VERSIONS.incrementAndGet();
+        return true;
     }
 
     public boolean isFavorite(String word) {
@@ -31,7 +41,21 @@ public class FavoriteWords {
         return dict.containsKey(word.toLowerCase());
     }
 
+    /**
+     * Changes whenever the favorites do; read it before list() to tag what that returns.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     public List<WordItem> list() {
         return new ArrayList<>(dict.values());
     }
+
+    /**
+     * Walks the favorites without copying them; changes made meanwhile may or may not be seen.
+     */
+    public Iterator<WordItem> iterator() {
+        return dict.values().iterator();
+    }
 }
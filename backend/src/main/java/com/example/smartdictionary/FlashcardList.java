@@ -1,11 +1,32 @@
 package com.example.smartdictionary;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Circular deck of flashcards with a review cursor. getNext() and reviewCurrent()
+ * hand out the card under the cursor and move it one slot forward, wrapping at the end.
+ *
+ * A deck is an immutable base shared by every fork plus this list's own edits: the
+ * cards it added (appended after the base's), the cards it removed, and the seed of
+ * its last shuffle. A shuffle does not move cards; it stores a seed, and positions
+ * are mapped through a keyed permutation when read. So a learner's deck costs memory
+ * for what they changed, not for the size of the dictionary, and removing a card
+ * or shuffling does not touch the other cards.
+ *
+ * All operations lock the list; each call is a few array accesses and binary searches
+ * over this list's edits, and decks are per user, so the lock is rarely contended.
+ */
 public class FlashcardList {
 
     static class CardNode {
-        String word;
-        String definition;
-        CardNode next;
+        final String word;
+        final String definition;
 
         public CardNode(String word, String definition) {
             this.word = word;
@@ -13,48 +34,350 @@ public class FlashcardList {
         }
     }
 
-    private CardNode head = null;
-    private CardNode current = null;
-    private int size = 0;
+    //Cards shared by every fork; never changed once built
+    private static final class Base {
+        static final Base EMPTY = new Base(new CardNode[0], Map.of(), 0);
 
-    public void add(String word, String definition) {
-        CardNode newNode = new CardNode(word, definition);
-        
-        if (head == null) {
-            head = newNode;
-            head.next = head; // Point to itself
-            current = head;
-        } else {
-            CardNode temp = head;
-            while (temp.next != head) {
-                temp = temp.next;
+        final CardNode[] cards;
+        final Map<String, Integer> slots;
+        final int size;
+
+        Base(CardNode[] cards, Map<String, Integer> slots, int size) {
+            this.cards = cards;
+            this.slots = slots;
+            this.size = size;
+        }
+    }
+
+    private static final CardNode[] NO_CARDS = new CardNode[0];
+    private static final int[] NO_INDICES = new int[0];
+
+    private Base base = Base.EMPTY;
+    //Cards this list added; card i has virtual index base.size + i
+    private CardNode[] added = NO_CARDS;
+    private Map<String, Integer> addedSlots = Map.of();
+    private int addedCount;
+    //Virtual indices of removed cards, sorted
+    private int[] removed = NO_INDICES;
+    //Order positions of the removed cards, sorted; the same as removed until a shuffle
+    private int[] gaps = NO_INDICES;
+    private int removedCount;
+    //The first shuffled order positions are permuted with seed; later ones are in virtual order
+    private int shuffled;
+    private long seed;
+    private int cursor = 0;
+
+    public FlashcardList() {
+    }
+
+    private FlashcardList(Base base) {
+        this.base = base;
+    }
+
+    /**
+     * Returns a list over the same cards with its own cursor at the first card. Both
+     * lists then share those cards and keep their later edits to themselves.
+     */
+    public synchronized FlashcardList fork() {
+        return new FlashcardList(freeze());
+    }
+
+    /**
+     * Appends a card unless the deck already has one for this word.
+     */
+    public synchronized boolean add(String word, String definition) {
+        if (virtualIndex(word) >= 0) return false;
+        ensureCapacity(addedCount + 1);
+        append(new CardNode(word, definition));
+        return true;
+    }
+
+    /**
+     * Appends cards for all words not already in the deck.
+     */
+    public synchronized void addAll(Collection<String> words, Function<String, String> definitions) {
+        if (words.isEmpty()) return;
+        ensureCapacity(addedCount + words.size());
+        for (String word : words) {
+            if (virtualIndex(word) < 0) {
+                append(new CardNode(word, definitions.apply(word)));
             }
-            temp.next = newNode;
-            newNode.next = head;
         }
-        size++;
     }
 
-    public CardNode getNext() {
-        if (current == null) return null;
-        CardNode data = current;
-        current = current.next;
-        return data;
+    /**
+     * Removes the card for word, keeping the order of the others. If the cursor was
+     * on it, the cursor moves to the card that followed.
+     */
+    public synchronized boolean remove(String word) {
+        int index = virtualIndex(word);
+        if (index < 0) return false;
+        int order = orderOf(index);
+        int at = order - rank(order);
+        if (removedCount == removed.length) {
+            int capacity = Math.max(4, removedCount * 2);
+            removed = Arrays.copyOf(removed, capacity);
+            gaps = Arrays.copyOf(gaps, capacity);
+        }
+        insertSorted(removed, removedCount, index);
+        insertSorted(gaps, removedCount, order);
+        removedCount++;
+        if (at < cursor) {
+            cursor--;
+        }
+        if (cursor >= size()) {
+            cursor = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Puts the cards in an order chosen by seed and moves the cursor to the first one.
+     * The same cards and seed always give the same order.
+     */
+    public synchronized void shuffle(long seed) {
+        this.seed = seed;
+        this.shuffled = base.size + addedCount;
+        for (int i = 0; i < removedCount; i++) {
+            gaps[i] = orderOf(removed[i]);
+        }
+        Arrays.sort(gaps, 0, removedCount);
+        cursor = 0;
+    }
+
+    /**
+     * Moves the cursor to index and returns the card there, or null if index is out of range.
+     */
+    public synchronized CardNode jumpTo(int index) {
+        if (index < 0 || index >= size()) return null;
+        cursor = index;
+        return cardAt(index);
+    }
+
+    /**
+     * The card at index without moving the cursor, or null if index is out of range.
+     */
+    public synchronized CardNode get(int index) {
+        return index < 0 || index >= size() ? null : cardAt(index);
+    }
+
+    /**
+     * Position of word in the deck, or -1.
+     */
+    public synchronized int indexOf(String word) {
+        int index = virtualIndex(word);
+        if (index < 0) return -1;
+        int order = orderOf(index);
+        return order - rank(order);
+    }
+
+    /**
+     * The card for word, or null.
+     */
+    public synchronized CardNode find(String word) {
+        int index = virtualIndex(word);
+        return index >= 0 ? card(index) : null;
+    }
+
+    /**
+     * Copies out up to max cards starting at deck position from, so a large deck can be
+     * read in pages without holding the lock for the whole walk.
+     */
+    public synchronized List<CardNode> page(int from, int max) {
+        int end = Math.min(size(), from + max);
+        if (from >= end) return List.of();
+        List<CardNode> page = new ArrayList<>(end - from);
+        for (int i = from; i < end; i++) {
+            page.add(cardAt(i));
+        }
+        return page;
+    }
+
+    public synchronized boolean contains(String word) {
+        return virtualIndex(word) >= 0;
+    }
+
+    public synchronized CardNode getNext() {
+        return advance();
+    }
+
+    public synchronized int getSize() {
+        return size();
     }
 
-    public int getSize() {
-        return size;
+    public synchronized int getCursor() {
+        return cursor;
     }
 
-    public CardNode getCurrent() {
-        return current;
+    public synchronized CardNode getCurrent() {
+        return size() == 0 ? null : cardAt(cursor);
     }
 
-    public void reviewCurrent(boolean remembered, NotRememberedStack notRememberedStack) {
-        if (current == null) return;
+    public synchronized void reviewCurrent(boolean remembered, NotRememberedStack notRememberedStack) {
+        CardNode reviewed = advance();
+        if (reviewed == null) return;
         if (!remembered && notRememberedStack != null) {
-            notRememberedStack.push(current.word);
+            notRememberedStack.push(reviewed.word);
         }
-        current = current.next;
     }
-}
\ No newline at end of file
+
+    /**
+     * Moves the cursor one card forward and returns the card it was on.
+     */
+    private CardNode advance() {
+        int size = size();
+        if (size == 0) return null;
+        CardNode card = cardAt(cursor);
+        cursor = cursor + 1 == size ? 0 : cursor + 1;
+        return card;
+    }
+
+    /**
+     * Length of the array behind the added cards. For tests.
+     */
+    synchronized int addedCapacity() {
+        return added.length;
+    }
+
+    private int size() {
+        return base.size + addedCount - removedCount;
+    }
+
+    // Cards are numbered base first, then added: the virtual index
+    private CardNode card(int index) {
+        return index < base.size ? base.cards[index] : added[index - base.size];
+    }
+
+    private int virtualIndex(String word) {
+        Integer slot = base.slots.get(word);
+        if (slot != null && !isRemoved(slot)) return slot;
+        slot = addedSlots.get(word);
+        if (slot != null && !isRemoved(base.size + slot)) return base.size + slot;
+        return -1;
+    }
+
+    private boolean isRemoved(int index) {
+        return removedCount > 0 && Arrays.binarySearch(removed, 0, removedCount, index) >= 0;
+    }
+
+    // Order position of a virtual index, counting removed cards
+    private int orderOf(int index) {
+        return index < shuffled ? permute(seed, shuffled, index, true) : index;
+    }
+
+    // Number of removed cards before an order position
+    private int rank(int order) {
+        int lo = 0;
+        int hi = removedCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (gaps[mid] < order) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // The card at a deck position: the smallest order position with that many live cards before it
+    private CardNode cardAt(int position) {
+        int lo = position;
+        int hi = position + removedCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            // Live cards at or before mid
+            if (mid + 1 - rank(mid + 1) > position) hi = mid;
+            else lo = mid + 1;
+        }
+        return card(lo < shuffled ? permute(seed, shuffled, lo, false) : lo);
+    }
+
+    private void append(CardNode card) {
+        if (addedSlots.isEmpty()) {
+            addedSlots = new HashMap<>();
+        }
+        addedSlots.put(card.word, addedCount);
+        added[addedCount++] = card;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > added.length) {
+            added = Arrays.copyOf(added, Math.max(needed, Math.max(4, added.length * 2)));
+        }
+    }
+
+    // Turns this list's cards into a base it can share, and moves onto it with no edits of its own
+    private Base freeze() {
+        if (addedCount == 0 && removedCount == 0 && shuffled == 0) {
+            return base;
+        }
+        if (base.size == 0 && removedCount == 0 && shuffled == 0) {
+            // A deck built by appending: hand over its arrays as they are
+            base = new Base(added, addedSlots, addedCount);
+        } else {
+            int size = size();
+            CardNode[] cards = new CardNode[size];
+            Map<String, Integer> slots = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                cards[i] = cardAt(i);
+                slots.put(cards[i].word, i);
+            }
+            base = new Base(cards, slots, size);
+        }
+        added = NO_CARDS;
+        addedSlots = Map.of();
+        addedCount = 0;
+        removed = NO_INDICES;
+        gaps = NO_INDICES;
+        removedCount = 0;
+        shuffled = 0;
+        seed = 0;
+        return base;
+    }
+
+    private static void insertSorted(int[] values, int count, int value) {
+        int at = Arrays.binarySearch(values, 0, count, value);
+        at = at < 0 ? -at - 1 : at;
+        System.arraycopy(values, at, values, at + 1, count - at);
+        values[at] = value;
+    }
+
+    /**
+     * A keyed bijection on [0, n): a four-round Feistel network over the smallest
+     * even-bit range holding n, applied again while the result falls outside [0, n)
+     * (cycle walking). The range is under 4n, so that takes a few rounds at most on
+     * average. inverse undoes it.
+     */
+    static int permute(long seed, int n, int value, boolean inverse) {
+        if (n <= 1) return value;
+        int bits = 64 - Long.numberOfLeadingZeros(n - 1L);
+        int half = (bits + 1) / 2;
+        long mask = (1L << half) - 1;
+        long x = value;
+        do {
+            long left = x >>> half;
+            long right = x & mask;
+            if (!inverse) {
+                for (int round = 0; round < 4; round++) {
+                    long next = left ^ (mix(seed, round, right) & mask);
+                    left = right;
+                    right = next;
+                }
+            } else {
+                for (int round = 3; round >= 0; round--) {
+                    long previous = right ^ (mix(seed, round, left) & mask);
+                    right = left;
+                    left = previous;
+                }
+            }
+            x = (left << half) | right;
+        } while (x >= n);
+        return (int) x;
+    }
+
+    // SplitMix64 finalizer over seed, round and half-block
+    private static long mix(long seed, int round, long value) {
+        long z = seed + round * 0x9E3779B97F4A7C15L + value * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.smartdictionary;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps folded keys back to dictionary headwords, so input typed without accents, with
+ * different accents, in upper case or in full-width characters still finds its word.
+ * A key is folded by NFKD decomposition, dropping combining marks and lowercasing; only
+ * headwords whose key differs from the headword itself are stored, so a plain lowercase
+ * dictionary costs nothing. A lookup is one hash probe, O(key length).
+ */
+public final class FoldedIndex {
+
+    private final Map<String, String> headwords;
+
+    private FoldedIndex(Map<String, String> headwords) {
+        this.headwords = headwords;
+    }
+
+    public static FoldedIndex empty() {
+        return new FoldedIndex(Map.of());
+    }
+
+    /**
+     * Indexes every headword that folding changes. When several fold to the same key,
+     * the alphabetically first is kept so the result does not depend on load order.
+     */
+    public static FoldedIndex of(Iterable<String> words) {
+        Map<String, String> headwords = new HashMap<>();
+        for (String word : words) {
+            String key = fold(word);
+            if (key.equals(word)) continue;
+            String existing = headwords.get(key);
+            if (existing == null || word.compareTo(existing) < 0) {
+                headwords.put(key, word);
+            }
+        }
+        return new FoldedIndex(headwords);
+    }
+
+    /**
+     * The headword with this folded key, or null. Headwords equal to their key are not
+     * stored; look those up in the dictionary directly.
+     */
+    public String headword(String key) {
+        return headwords.get(key);
+    }
+
+    public int size() {
+        return headwords.size();
+    }
+
+    /**
+     * Lowercases text and strips its accents: "Tiếng Việt" and "ＴＩＥＮＧ ＶＩＥＴ" both
+     * become "tieng viet". Plain ASCII skips normalization and comes back as the same
+     * instance when it is already lowercase.
+     */
+    public static String fold(String text) {
+        boolean lower = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) return foldUnicode(text);
+            if (c >= 'A' && c <= 'Z') lower = false;
+        }
+        return lower ? text : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static String foldUnicode(String text) {
+        // NFKD splits "ế" into e + two marks and maps full-width and ligature forms to plain ones
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); ) {
+            int c = decomposed.codePointAt(i);
+            i += Character.charCount(c);
+            int type = Character.getType(c);
+            if (type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                    || type == Character.ENCLOSING_MARK) {
+                continue;
+            }
+            // The Vietnamese d with stroke has no decomposition
+            if (c == 'Đ' || c == 'đ') c = 'd';
+            folded.appendCodePoint(Character.toLowerCase(c));
+        }
+        return folded.toString();
+    }
+}
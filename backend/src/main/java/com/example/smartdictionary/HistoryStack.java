@@ -1,30 +1,119 @@
 package com.example.smartdictionary;
 
-import java.util.Stack;
+import java.util.Deque;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Search history, newest first, with O(1) push, dedupe and eviction.
+ * Each push stamps the word with a sequence number in a word -> sequence index
+ * and adds an entry to the head of a lock-free deque. An entry whose sequence no
+ * longer matches the index is a stale duplicate and is skipped on read; stale
+ * entries are purged in bulk once there are as many of them as the cap.
+ *
+ * Every push also takes a new version from a counter shared by all histories, so a
+ * version names one state of one history for the life of the process (0 is empty).
+ */
 public class HistoryStack {
-    
-    private final Stack<String> stack = new Stack<>();
+
+    public static final int DEFAULT_MAX_SIZE = 100;
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private static final class Entry {
+        final String word;
+        final long seq;
+
+        Entry(String word, long seq) {
+            this.word = word;
+            this.seq = seq;
+        }
+    }
+
+    private final int maxSize;
+    private final Deque<Entry> stack = new ConcurrentLinkedDeque<>();
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger stale = new AtomicInteger();
+    private final AtomicBoolean purging = new AtomicBoolean();
+    private volatile long version;
+
+    public HistoryStack() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public HistoryStack(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+    }
 
     public void push(String word) {
-        // Remove any existing occurrence to avoid repeated entries in history
-        stack.removeIf(w -> w.equals(word));
-        stack.push(word);
-
-        // Optional: cap history length to avoid unbounded growth
-        int maxSize = 100;
-        while (stack.size() > maxSize) {
-            stack.remove(0); // remove oldest
+        if (word == null) return;
+        long seq = sequence.incrementAndGet();
+        // Index first, so an entry in the deque is either live or stale for good.
+        // Any previous occurrence becomes a stale entry instead of being searched for.
+        if (index.put(word, seq) != null) {
+            stale.incrementAndGet();
         }
+        stack.addFirst(new Entry(word, seq));
+
+        // Cap history length by dropping the oldest live entries
+        while (index.size() > maxSize) {
+            Entry oldest = stack.pollLast();
+            if (oldest == null) break;
+            if (!index.remove(oldest.word, oldest.seq)) {
+                stale.decrementAndGet();
+            }
+        }
+
+        if (stale.get() >= maxSize && purging.compareAndSet(false, true)) {
+            try {
+                stack.removeIf(e -> {
+                    if (isLive(e)) return false;
+                    stale.decrementAndGet();
+                    return true;
+                });
+            } finally {
+                purging.set(false);
+            }
+        }
+        // After the change, so a reader that saw this version sees at least this push
+        version = VERSIONS.incrementAndGet();
     }
 
     public List<String> getHistory() {
-        // Convert to list and reverse to show newest first
-        List<String> historyList = new ArrayList<>(stack);
-        Collections.reverse(historyList);
+        // Deque head is the newest entry
+        List<String> historyList = new ArrayList<>(Math.min(index.size(), maxSize));
+        for (Entry e : stack) {
+            if (historyList.size() == maxSize) break;
+            if (isLive(e)) {
+                historyList.add(e.word);
+            }
+        }
         return historyList;
     }
-}
\ No newline at end of file
+
+    /**
+     * Changes whenever the history does; read it before getHistory() to tag what that returns.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private boolean isLive(Entry e) {
+        Long current = index.get(e.word);
+        return current != null && current == e.seq;
+    }
+}
@@ -4,25 +4,145 @@ import java.util.Set;
 
 public class Levenshtein {
 
+    // Only corrections within this many edits are suggested
+    public static final int MAX_CORRECTION_DISTANCE = 2;
+
+    // Reusable per-thread buffers so comparisons do not allocate
+    private static final ThreadLocal<int[][]> ROWS = ThreadLocal.withInitial(() -> new int[2][32]);
+    private static final ThreadLocal<long[]> PEQ = ThreadLocal.withInitial(() -> new long[128]);
+
     public static int calculate(String x, String y) {
-        int[][] dp = new int[x.length() + 1][y.length() + 1];
-
-        for (int i = 0; i <= x.length(); i++) {
-            for (int j = 0; j <= y.length(); j++) {
-                if (i == 0) {
-                    dp[i][j] = j;
-                } else if (j == 0) {
-                    dp[i][j] = i;
-                } else {
-                    dp[i][j] = min(
-                        dp[i - 1][j - 1] + (x.charAt(i - 1) == y.charAt(j - 1) ? 0 : 1), // cost
-                        dp[i - 1][j] + 1, // deletion
-                        dp[i][j - 1] + 1  // insertion
-                    );
+        return calculate(x, y, Math.max(x.length(), y.length()));
+    }
+
+    /**
+     * Edit distance bounded by maxDist. Returns the exact distance when it is at most
+     * maxDist, otherwise maxDist + 1 as soon as the bound is known to be exceeded.
+     */
+    public static int calculate(String x, String y, int maxDist) {
+        int m = x.length();
+        int n = y.length();
+        // Distance can never exceed the longer length
+        maxDist = Math.max(0, Math.min(maxDist, Math.max(m, n)));
+        if (Math.abs(m - n) > maxDist) return maxDist + 1;
+        if (m == 0) return n;
+        if (n == 0) return m;
+
+        if (m <= 64) {
+            return myers(x, y, maxDist);
+        }
+        return banded(x, y, maxDist);
+    }
+
+    /**
+     * Bit-parallel edit distance (Myers/Hyyrö) for patterns of up to 64 characters.
+     * One column of the DP matrix is encoded as vertical +1/-1 deltas in two longs.
+     */
+    private static int myers(String x, String y, int maxDist) {
+        int m = x.length();
+        int n = y.length();
+        long[] peq = PEQ.get();
+        boolean ascii = true;
+        for (int i = 0; i < m; i++) {
+            char c = x.charAt(i);
+            if (c < 128) {
+                peq[c] |= 1L << i;
+            } else {
+                ascii = false;
+            }
+        }
+
+        long pv = -1L;
+        long mv = 0L;
+        long last = 1L << (m - 1);
+        int score = m;
+        try {
+            for (int j = 0; j < n; j++) {
+                char c = y.charAt(j);
+                long eq = c < 128 ? peq[c] : (ascii ? 0L : matchMask(x, c));
+                long xv = eq | mv;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                if ((ph & last) != 0) {
+                    score++;
+                } else if ((mh & last) != 0) {
+                    score--;
                 }
+                ph = (ph << 1) | 1L;
+                mh <<= 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+
+                // Each remaining column can lower the score by at most one
+                if (score - (n - j - 1) > maxDist) {
+                    return maxDist + 1;
+                }
+            }
+        } finally {
+            for (int i = 0; i < m; i++) {
+                char c = x.charAt(i);
+                if (c < 128) peq[c] = 0L;
             }
         }
-        return dp[x.length()][y.length()];
+        return score <= maxDist ? score : maxDist + 1;
+    }
+
+    private static long matchMask(String x, char c) {
+        long mask = 0L;
+        for (int i = 0; i < x.length(); i++) {
+            if (x.charAt(i) == c) mask |= 1L << i;
+        }
+        return mask;
+    }
+
+    /**
+     * Two-row DP restricted to the diagonal band |i - j| <= maxDist,
+     * stopping once every cell of a row exceeds the bound.
+     */
+    private static int banded(String x, String y, int maxDist) {
+        int m = x.length();
+        int n = y.length();
+        int big = maxDist + 1;
+
+        int[][] rows = ROWS.get();
+        if (rows[0].length < n + 1) {
+            rows[0] = new int[n + 1];
+            rows[1] = new int[n + 1];
+        }
+        int[] prev = rows[0];
+        int[] curr = rows[1];
+
+        for (int j = 0; j <= n; j++) {
+            prev[j] = Math.min(j, big);
+        }
+
+        for (int i = 1; i <= m; i++) {
+            int from = Math.max(1, i - maxDist);
+            int to = Math.min(n, i + maxDist);
+            curr[0] = Math.min(i, big);
+            if (from > 1) curr[from - 1] = big;
+            int rowMin = from == 1 ? curr[0] : big;
+
+            char cx = x.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int value = min(
+                    prev[j - 1] + (cx == y.charAt(j - 1) ? 0 : 1), // cost
+                    prev[j] + 1, // deletion
+                    curr[j - 1] + 1  // insertion
+                );
+                if (value > big) value = big;
+                curr[j] = value;
+                if (value < rowMin) rowMin = value;
+            }
+            if (to < n) curr[to + 1] = big;
+            if (rowMin > maxDist) return big;
+
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return prev[n] <= maxDist ? prev[n] : big;
     }
 
     private static int min(int a, int b, int c) {
@@ -34,13 +154,16 @@ public class Levenshtein {
         int minDist = Integer.MAX_VALUE;
 
         for (String w : dictionaryKeys) {
-            int dist = calculate(word, w);
-            if (dist < minDist) {
+            // Only distances that could still improve on the best match matter
+            int bound = Math.min(MAX_CORRECTION_DISTANCE, minDist - 1);
+            if (bound < 0) break;
+            int dist = calculate(word, w, bound);
+            if (dist <= bound) {
                 minDist = dist;
                 bestWord = w;
             }
         }
         // Only return if reasonably close (threshold of 2)
-        return minDist <= 2 ? bestWord : null;
+        return minDist <= MAX_CORRECTION_DISTANCE ? bestWord : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+package com.example.smartdictionary;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Named counters, gauges and latency histograms, written out in the Prometheus
+ * text format by GET /metrics.
+ *
+ * Series are created on first use and kept for the life of the process. Looking one
+ * up is a concurrent map lookup; hot paths with fixed labels hold on to the series
+ * instead. Recording is a LongAdder or LatencyHistogram update with no locking.
+ * Histograms are exported as summaries with fixed quantiles, in seconds.
+ */
+@Component
+public final class MetricsRegistry {
+
+    static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final class Family {
+        final String type;
+        final String help;
+        final String[] labelNames;
+        //Keyed by the rendered label set, e.g. method="GET",route="/search"
+        final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Family(String type, String help, String[] labelNames) {
+            this.type = type;
+            this.help = help;
+            this.labelNames = labelNames;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    public MetricsRegistry() {
+        registerJvmMetrics();
+    }
+
+    /**
+     * A counter; labels alternate names and values: "route", "/search", ...
+     */
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) series(name, "counter", help, labels, LongAdder::new);
+    }
+
+    /**
+     * A counter kept elsewhere (for example a component's own LongAdder), read at scrape time.
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        series(name, "counter", help, labels, () -> value);
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        series(name, "gauge", help, labels, () -> value);
+    }
+
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) series(name, "summary", help, labels, LatencyHistogram::new);
+    }
+
+    /**
+     * Registers an existing histogram, such as one owned by an UpstreamGuard.
+     */
+    public void histogram(String name, String help, LatencyHistogram histogram, String... labels) {
+        series(name, "summary", help, labels, () -> histogram);
+    }
+
+    /**
+     * Every series in the Prometheus text exposition format, version 0.0.4.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        Map<String, Family> sorted = new TreeMap<>(families);
+        for (Map.Entry<String, Family> e : sorted.entrySet()) {
+            String name = e.getKey();
+            Family family = e.getValue();
+            out.append("# HELP ").append(name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> s : family.series.entrySet()) {
+                writeSeries(out, name, s.getKey(), s.getValue());
+            }
+        }
+        return out.toString();
+    }
+
+    private void writeSeries(StringBuilder out, String name, String labels, Object value) {
+        if (value instanceof LatencyHistogram) {
+            LatencyHistogram histogram = (LatencyHistogram) value;
+            for (double q : QUANTILES) {
+                String withQuantile = (labels.isEmpty() ? "" : labels + ",") + "quantile=\"" + q + "\"";
+                sample(out, name, withQuantile, histogram.percentile(q) / 1e9);
+            }
+            sample(out, name + "_sum", labels, histogram.getSumNanos() / 1e9);
+            sample(out, name + "_count", labels, histogram.getCount());
+        } else if (value instanceof LongAdder) {
+            sample(out, name, labels, ((LongAdder) value).sum());
+        } else if (value instanceof LongSupplier) {
+            sample(out, name, labels, ((LongSupplier) value).getAsLong());
+        } else {
+            sample(out, name, labels, ((DoubleSupplier) value).getAsDouble());
+        }
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ');
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private Object series(String name, String type, String help, String[] labels,
+                          Supplier<Object> create) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs: " + name);
+        }
+        String[] labelNames = new String[labels.length / 2];
+        for (int i = 0; i < labelNames.length; i++) {
+            labelNames[i] = labels[2 * i];
+        }
+        Family family = families.computeIfAbsent(name, n -> new Family(type, help, labelNames));
+        if (!family.type.equals(type) || family.labelNames.length != labelNames.length) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a different "
+                    + family.type);
+        }
+        return family.series.computeIfAbsent(renderLabels(labels), key -> create.get());
+    }
+
+    static String renderLabels(String... labels) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) out.append(',');
+            out.append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\') out.append("\\\\");
+                else if (c == '"') out.append("\\\"");
+                else if (c == '\n') out.append("\\n");
+                else out.append(c);
+            }
+            out.append('"');
+        }
+        return out.toString();
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    //Process-wide numbers that explain latency outliers: GC pauses, heap pressure, thread count
+    private void registerJvmMetrics() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            counter("jvm_gc_collections_total", "Garbage collections since start",
+                    gc::getCollectionCount, "gc", gc.getName());
+            DoubleSupplier seconds = () -> gc.getCollectionTime() / 1e3;
+            series("jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection since start",
+                    new String[] {"gc", gc.getName()}, () -> seconds);
+        }
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        gauge("jvm_memory_heap_used_bytes", "Heap in use",
+                () -> memory.getHeapMemoryUsage().getUsed());
+        gauge("jvm_memory_heap_committed_bytes", "Heap committed by the JVM",
+                () -> memory.getHeapMemoryUsage().getCommitted());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        gauge("jvm_threads_live", "Live threads", threads::getThreadCount);
+        gauge("process_uptime_seconds", "Time since the JVM started",
+                () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1e3);
+    }
+}
@@ -1,23 +1,25 @@
 package com.example.smartdictionary;
 
-import java.util.Stack;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * Stack to store words that were not remembered during flashcard review.
  * Provides methods to push, peek list for re-study, and clear once done.
+ * Backed by a lock-free ConcurrentLinkedDeque with the newest word at the head.
  */
 public class NotRememberedStack {
 
-    private final Stack<String> stack = new Stack<>();
+    private final Deque<String> stack = new ConcurrentLinkedDeque<>();
 
     public void push(String word) {
         if (word == null || word.isEmpty()) return;
         // Avoid duplicates at the very top
-        if (stack.isEmpty() || !stack.peek().equals(word)) {
-            stack.push(word);
+        if (!word.equals(stack.peekFirst())) {
+            stack.addFirst(word);
         }
     }
 
@@ -25,9 +27,15 @@ public class NotRememberedStack {
      * Returns newest-first list of words not remembered.
      */
     public List<String> getPending() {
-        List<String> list = new ArrayList<>(stack);
-        Collections.reverse(list);
-        return list;
+        return new ArrayList<>(stack);
+    }
+
+    /**
+     * Walks the words oldest first without copying them, so pushing them in this order
+     * rebuilds the stack.
+     */
+    public Iterator<String> oldestFirst() {
+        return stack.descendingIterator();
     }
 
     /**
@@ -45,6 +53,14 @@ public class NotRememberedStack {
         stack.clear();
     }
 
+    /**
+     * Replaces the contents with a saved newest-first list.
+     */
+    void restore(List<String> newestFirst) {
+        stack.clear();
+        stack.addAll(newestFirst);
+    }
+
     public boolean isEmpty() {
         return stack.isEmpty();
     }
@@ -0,0 +1,59 @@
+package com.example.smartdictionary;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Where and how user sessions are persisted, read from application.properties.
+ * An empty directory keeps sessions in memory only.
+ */
+@Component
+public class PersistenceConfig {
+
+    private final String directory;
+    private final long commitDelayMs;
+    private final long snapshotLogMb;
+    private final long snapshotMinutes;
+
+    public PersistenceConfig(
+            @Value("${smartdictionary.persistence.dir:}") String directory,
+            @Value("${smartdictionary.persistence.commit-delay-ms:5}") long commitDelayMs,
+            @Value("${smartdictionary.persistence.snapshot-log-mb:64}") long snapshotLogMb,
+            @Value("${smartdictionary.persistence.snapshot-minutes:10}") long snapshotMinutes) {
+        this.directory = directory;
+        this.commitDelayMs = commitDelayMs;
+        this.snapshotLogMb = snapshotLogMb;
+        this.snapshotMinutes = snapshotMinutes;
+    }
+
+    public static PersistenceConfig defaults() {
+        return new PersistenceConfig("", 5, 64, 10);
+    }
+
+    public PersistenceConfig withDirectory(Path dir) {
+        return new PersistenceConfig(dir.toString(), commitDelayMs, snapshotLogMb, snapshotMinutes);
+    }
+
+    public boolean isEnabled() {
+        return directory != null && !directory.isBlank();
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public long getCommitDelayMs() {
+        return commitDelayMs;
+    }
+
+    /**
+     * A journal for the configured directory, or null when persistence is off.
+     */
+    public SessionJournal newJournal() {
+        if (!isEnabled()) return null;
+        return new SessionJournal(Path.of(directory), commitDelayMs,
+                snapshotLogMb * 1024 * 1024, snapshotMinutes * 60_000);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.smartdictionary;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Times every request and records it under its route pattern (/favorites/{word},
+ * not the raw path, so the number of series stays bounded), method and status.
+ * Requests answered with a CompletableFuture are timed until the response is
+ * complete, not until the request thread is released.
+ *
+ * Also counts the bytes the request thread allocated while handling the request,
+ * where the JVM supports it; allocation rate is what drives young GC pauses.
+ * For async requests that covers only the part run on the request thread.
+ *
+ * The series for each route and method are looked up in the registry once and kept
+ * here, so recording a request reads two maps and an array and allocates nothing.
+ */
+@Component
+public class RequestMetricsFilter implements Filter {
+
+    //Requests that never reached a controller method, e.g. 404s for unknown paths
+    static final String UNMATCHED_ROUTE = "other";
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    //Statuses below this are kept per route and method; anything else is looked up each time
+    private static final int MAX_STATUS = 600;
+
+    //The series of one route and method
+    private static final class RouteSeries {
+        final String route;
+        final String method;
+        final LongAdder allocated;
+        final AtomicReferenceArray<LatencyHistogram> byStatus = new AtomicReferenceArray<>(MAX_STATUS);
+
+        RouteSeries(MetricsRegistry metrics, String route, String method) {
+            this.route = route;
+            this.method = method;
+            this.allocated = metrics.counter("http_server_request_allocated_bytes_total",
+                    "Bytes allocated by request threads while handling requests",
+                    "method", method, "route", route);
+        }
+    }
+
+    private final MetricsRegistry metrics;
+    //Route pattern, then method
+    private final Map<String, Map<String, RouteSeries>> routes = new ConcurrentHashMap<>();
+
+    public RequestMetricsFilter(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        long start = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            long allocated = allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore;
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(httpRequest, httpResponse.getStatus(), start, allocated);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                //An exception escaping the chain becomes a 500 further up
+                record(httpRequest, failed ? 500 : httpResponse.getStatus(), start, allocated);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long startNanos, long allocated) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : UNMATCHED_ROUTE;
+        RouteSeries series = series(route, request.getMethod());
+        histogram(series, status).recordSince(startNanos);
+        if (allocated >= 0) {
+            series.allocated.add(allocated);
+        }
+    }
+
+    // get() before computeIfAbsent: the capturing lambda is only built for a new series
+    private RouteSeries series(String route, String method) {
+        Map<String, RouteSeries> methods = routes.get(route);
+        if (methods == null) {
+            methods = routes.computeIfAbsent(route, r -> new ConcurrentHashMap<>());
+        }
+        RouteSeries series = methods.get(method);
+        if (series == null) {
+            series = methods.computeIfAbsent(method, m -> new RouteSeries(metrics, route, m));
+        }
+        return series;
+    }
+
+    private LatencyHistogram histogram(RouteSeries series, int status) {
+        LatencyHistogram histogram = status >= 0 && status < MAX_STATUS ? series.byStatus.get(status) : null;
+        if (histogram == null) {
+            // The registry hands every caller the same histogram, so a racing set is harmless
+            histogram = metrics.histogram("http_server_requests_seconds", "Time to answer a request",
+                    "method", series.method, "route", series.route, "status", Integer.toString(status));
+            if (status >= 0 && status < MAX_STATUS) {
+                series.byStatus.set(status, histogram);
+            }
+        }
+        return histogram;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.smartdictionary;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded in-memory cache for slow upstream lookups.
+ * Entries expire after a TTL, with a separate (usually shorter) TTL for negative
+ * results such as "word not found". The cache is bounded by total weight; when it
+ * grows past the limit the least recently used tenth is evicted in one pass.
+ * Concurrent misses for the same key share a single call to the loader.
+ */
+public class ResponseCache<K, V> {
+
+    private static final class Entry<V> {
+        final V value;
+        final int weight;
+        final long expiresAt;
+        volatile long lastAccess;
+
+        Entry(V value, int weight, long expiresAt, long now) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+            this.lastAccess = now;
+        }
+    }
+
+    private final long maxWeight;
+    private final long ttlMs;
+    private final long negativeTtlMs;
+    private final ToIntFunction<V> weigher;
+    private final Predicate<V> isNegative;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseCache(long maxWeight, long ttlMs, long negativeTtlMs,
+                         ToIntFunction<V> weigher, Predicate<V> isNegative) {
+        this.maxWeight = maxWeight;
+        this.ttlMs = ttlMs;
+        this.negativeTtlMs = negativeTtlMs;
+        this.weigher = weigher;
+        this.isNegative = isNegative;
+    }
+
+    /**
+     * Returns the cached value for key, or loads it. The loader must not return null.
+     */
+    public V get(K key, Function<K, V> loader) {
+        // A hit needs no future; serving hot entries should not allocate
+        V cached = getIfPresent(key);
+        if (cached != null) return cached;
+        return join(getAsync(key, k -> CompletableFuture.completedFuture(loader.apply(k))));
+    }
+
+    /**
+     * Returns the cached value for key, or starts loading it. A failed load is not
+     * cached; every caller waiting on it sees the failure.
+     */
+    public CompletableFuture<V> getAsync(K key, Function<K, CompletableFuture<V>> loader) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            entry.lastAccess = now;
+            (isNegative.test(entry.value) ? negativeHits : hits).increment();
+            return CompletableFuture.completedFuture(entry.value);
+        }
+        misses.increment();
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return running;
+        }
+        // Another caller may have finished loading between our lookup and putIfAbsent
+        entry = entries.get(key);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            inFlight.remove(key, mine);
+            mine.complete(entry.value);
+            return mine;
+        }
+
+        loads.increment();
+        CompletableFuture<V> load;
+        try {
+            load = loader.apply(key);
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((value, error) -> {
+            if (error == null) {
+                put(key, value);
+            }
+            inFlight.remove(key, mine);
+            if (error == null) {
+                mine.complete(value);
+            } else {
+                mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+        return mine;
+    }
+
+    /**
+     * Returns the cached value if present and fresh, without loading.
+     */
+    public V getIfPresent(K key) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.expiresAt <= now) return null;
+        entry.lastAccess = now;
+        (isNegative.test(entry.value) ? negativeHits : hits).increment();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        long now = System.currentTimeMillis();
+        int w = Math.max(1, weigher.applyAsInt(value));
+        long ttl = isNegative.test(value) ? negativeTtlMs : ttlMs;
+        Entry<V> old = entries.put(key, new Entry<>(value, w, now + ttl, now));
+        weight.addAndGet(old == null ? w : w - old.weight);
+        if (weight.get() > maxWeight) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    public void invalidateAll() {
+        entries.keySet().forEach(this::remove);
+    }
+
+    public long size() {
+        return entries.size();
+    }
+
+    public long weight() {
+        return weight.get();
+    }
+
+    /**
+     * Exports hit, miss and size figures under the given cache label.
+     */
+    public void registerMetrics(MetricsRegistry metrics, String cacheName) {
+        metrics.counter("cache_hits_total", "Lookups answered from the cache, negative entries included",
+                () -> hits.sum() + negativeHits.sum(), "cache", cacheName);
+        metrics.counter("cache_misses_total", "Lookups that had to load or join a load",
+                misses::sum, "cache", cacheName);
+        metrics.counter("cache_evictions_total", "Entries evicted to stay under the weight limit",
+                evictions::sum, "cache", cacheName);
+        metrics.gauge("cache_hit_ratio", "Hits over lookups since start",
+                () -> {
+                    long hitCount = hits.sum() + negativeHits.sum();
+                    long missCount = misses.sum();
+                    return hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount);
+                }, "cache", cacheName);
+        metrics.gauge("cache_entries", "Entries in the cache", this::size, "cache", cacheName);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.sum() + negativeHits.sum();
+        long missCount = misses.sum();
+        stats.put("hits", hits.sum());
+        stats.put("negativeHits", negativeHits.sum());
+        stats.put("misses", missCount);
+        stats.put("coalesced", coalesced.sum());
+        stats.put("loads", loads.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("size", size());
+        stats.put("weight", weight());
+        return stats;
+    }
+
+    private void remove(K key) {
+        Entry<V> old = entries.remove(key);
+        if (old != null) {
+            weight.addAndGet(-old.weight);
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        if (!evicting.compareAndSet(false, true)) return;
+        try {
+            // Drop expired entries first, then the oldest until under 90% of the limit
+            long now = System.currentTimeMillis();
+            entries.forEach((key, e) -> {
+                if (e.expiresAt <= now && entries.remove(key, e)) {
+                    weight.addAndGet(-e.weight);
+                    evictions.increment();
+                }
+            });
+            long target = maxWeight - maxWeight / 10;
+            if (weight.get() <= target) return;
+
+            long[] times = entries.values().stream().mapToLong(e -> e.lastAccess).toArray();
+            Arrays.sort(times);
+            long excess = weight.get() - target;
+            long average = Math.max(1, weight.get() / Math.max(1, times.length));
+            int count = (int) Math.min(times.length, (excess + average - 1) / average);
+            if (count == 0) return;
+            long cutoff = times[count - 1];
+            entries.forEach((key, e) -> {
+                if (e.lastAccess <= cutoff && entries.remove(key, e)) {
+                    weight.addAndGet(-e.weight);
+                    evictions.increment();
+                }
+            });
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+}
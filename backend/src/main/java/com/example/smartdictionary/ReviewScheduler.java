@@ -0,0 +1,223 @@
+package com.example.smartdictionary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SM-2 spaced-repetition scheduler for one learner.
+ * Every reviewed card keeps an ease factor, an interval and a due time; due times
+ * sit in a min-heap, so finding the most overdue card and rescheduling it are
+ * O(log n). A rescheduled card gets a fresh heap entry and its old entry is
+ * skipped when it reaches the top, and the heap is rebuilt once stale entries
+ * outnumber live ones.
+ *
+ * Cards that were never reviewed are not tracked here; they come from the deck.
+ */
+public class ReviewScheduler {
+
+    public static final double INITIAL_EASE = 2.5;
+    public static final double MIN_EASE = 1.3;
+    //Grades used by the remember / not-remember buttons (SM-2 quality, 0-5)
+    public static final int GRADE_REMEMBERED = 4;
+    public static final int GRADE_FORGOTTEN = 1;
+    //A forgotten card comes back within the same study session
+    public static final long RELEARN_DELAY_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    /**
+     * Scheduling state of one card.
+     */
+    public static final class CardState {
+        private final String word;
+        private double ease = INITIAL_EASE;
+        private int intervalDays = 0;
+        private int repetitions = 0;
+        private int lapses = 0;
+        private long due;
+        private long version = 0;
+
+        CardState(String word) {
+            this.word = word;
+        }
+
+        CardState(String word, double ease, int intervalDays, int repetitions, int lapses, long due) {
+            this.word = word;
+            this.ease = ease;
+            this.intervalDays = intervalDays;
+            this.repetitions = repetitions;
+            this.lapses = lapses;
+            this.due = due;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public double getEase() {
+            return ease;
+        }
+
+        public int getIntervalDays() {
+            return intervalDays;
+        }
+
+        public int getRepetitions() {
+            return repetitions;
+        }
+
+        public int getLapses() {
+            return lapses;
+        }
+
+        public long getDue() {
+            return due;
+        }
+    }
+
+    private static final class Slot {
+        final CardState card;
+        final long due;
+        final long version;
+
+        Slot(CardState card) {
+            this.card = card;
+            this.due = card.due;
+            this.version = card.version;
+        }
+
+        boolean isLive() {
+            return version == card.version;
+        }
+    }
+
+    private final Map<String, CardState> cards = new HashMap<>();
+    private PriorityQueue<Slot> queue = new PriorityQueue<>((a, b) -> Long.compare(a.due, b.due));
+
+    /**
+     * Applies one review with an SM-2 quality grade (0-5) and returns the new state.
+     */
+    public synchronized CardState review(String word, int quality, long now) {
+        if (quality < 0 || quality > 5) {
+            throw new IllegalArgumentException("quality must be between 0 and 5");
+        }
+        CardState card = cards.computeIfAbsent(word, CardState::new);
+        if (quality >= 3) {
+            if (card.repetitions == 0) {
+                card.intervalDays = 1;
+            } else if (card.repetitions == 1) {
+                card.intervalDays = 6;
+            } else {
+                card.intervalDays = (int) Math.round(card.intervalDays * card.ease);
+            }
+            card.repetitions++;
+            card.due = now + card.intervalDays * DAY_MS;
+        } else {
+            card.repetitions = 0;
+            card.intervalDays = 1;
+            card.lapses++;
+            card.due = now + RELEARN_DELAY_MS;
+        }
+        int miss = 5 - quality;
+        card.ease = Math.max(MIN_EASE, card.ease + 0.1 - miss * (0.08 + miss * 0.02));
+        reschedule(card);
+        return card;
+    }
+
+    public CardState review(String word, boolean remembered, long now) {
+        return review(word, remembered ? GRADE_REMEMBERED : GRADE_FORGOTTEN, now);
+    }
+
+    /**
+     * Word of the most overdue card, or null if no card is due at now.
+     */
+    public synchronized String nextDue(long now) {
+        Slot top = peekLive();
+        return top != null && top.due <= now ? top.card.word : null;
+    }
+
+    /**
+     * Due time of the earliest scheduled card, or -1 if nothing is scheduled.
+     */
+    public synchronized long nextDueTime() {
+        Slot top = peekLive();
+        return top != null ? top.due : -1;
+    }
+
+    public synchronized boolean isScheduled(String word) {
+        return cards.containsKey(word);
+    }
+
+    public synchronized CardState get(String word) {
+        return cards.get(word);
+    }
+
+    public synchronized boolean remove(String word) {
+        CardState card = cards.remove(word);
+        if (card == null) return false;
+        card.version++; // its heap entry is now stale
+        return true;
+    }
+
+    /**
+     * Restores a saved card state, replacing any current one.
+     */
+    public synchronized void restore(CardState saved) {
+        CardState card = new CardState(saved.word, saved.ease, saved.intervalDays,
+                saved.repetitions, saved.lapses, saved.due);
+        CardState old = cards.put(card.word, card);
+        if (old != null) {
+            old.version++;
+        }
+        reschedule(card);
+    }
+
+    /**
+     * Copies of all card states, for saving the schedule.
+     */
+    public synchronized List<CardState> states() {
+        List<CardState> states = new ArrayList<>(cards.size());
+        for (CardState card : cards.values()) {
+            states.add(new CardState(card.word, card.ease, card.intervalDays,
+                    card.repetitions, card.lapses, card.due));
+        }
+        return states;
+    }
+
+    public synchronized int size() {
+        return cards.size();
+    }
+
+    public synchronized int countDue(long now) {
+        int due = 0;
+        for (CardState card : cards.values()) {
+            if (card.due <= now) due++;
+        }
+        return due;
+    }
+
+    private void reschedule(CardState card) {
+        card.version++;
+        queue.add(new Slot(card));
+        if (queue.size() > 2 * cards.size() + 16) {
+            // Drop stale entries in one pass rather than one poll at a time
+            PriorityQueue<Slot> live = new PriorityQueue<>(Math.max(1, cards.size()), queue.comparator());
+            for (Slot slot : queue) {
+                if (slot.isLive()) live.add(slot);
+            }
+            queue = live;
+        }
+    }
+
+    private Slot peekLive() {
+        Slot top = queue.peek();
+        while (top != null && !top.isLive()) {
+            queue.poll();
+            top = queue.peek();
+        }
+        return top;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.smartdictionary;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts successful searches per word and feeds them into the Trie ranking.
+ * Request threads only bump a striped LongAdder; a background thread periodically
+ * drains the counters into Trie.boost and halves older counts with Trie.decay,
+ * so neither counting nor ranking puts a lock on the /suggest path.
+ * When the dictionary is reloaded, moveTo carries the ranking over to the new trie.
+ */
+public class SearchPopularity {
+
+    public static final long FLUSH_INTERVAL_MS = 2_000;
+    public static final long HALF_LIFE_MS = TimeUnit.HOURS.toMillis(24);
+
+    private volatile Trie trie;
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    public SearchPopularity(Trie trie) {
+        this.trie = trie;
+    }
+
+    public void record(String word) {
+        if (word == null || word.isEmpty()) return;
+        LongAdder counter = pending.get(word);
+        if (counter == null) {
+            counter = pending.computeIfAbsent(word, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Moves all counted hits into the trie ranking.
+     */
+    public synchronized void flush() {
+        for (Map.Entry<String, LongAdder> entry : pending.entrySet()) {
+            long hits = entry.getValue().sumThenReset();
+            if (hits > 0) {
+                trie.boost(entry.getKey(), hits);
+            }
+        }
+    }
+
+    public synchronized void decay() {
+        flush();
+        trie.decay();
+    }
+
+    /**
+     * Switches ranking to a newly built trie. Hits counted so far are flushed into the
+     * current trie, whose scores are then copied over; later hits go to the new one.
+     */
+    public synchronized void moveTo(Trie next) {
+        if (next == trie) return;
+        flush();
+        trie.copyScoresTo(next);
+        trie = next;
+    }
+
+    public synchronized void start() {
+        start(FLUSH_INTERVAL_MS, HALF_LIFE_MS);
+    }
+
+    public synchronized void start(long flushIntervalMs, long halfLifeMs) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "search-popularity");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::decay, halfLifeMs, halfLifeMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) return;
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.smartdictionary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * A JSON body serialized once and served many times: the bytes, a gzip copy compressed
+ * up front when it is worth it, and a strong ETag hashed from the bytes. Sending one
+ * skips Jackson and the per-request buffers it allocates; a client that already holds
+ * the same ETag gets a 304 with no body at all.
+ *
+ * The gzip copy is a different representation, so it carries its own ETag ("...-gz").
+ */
+public final class SerializedResponse {
+
+    //Smaller bodies fit in one packet either way and are sent as they are
+    static final int GZIP_MIN_BYTES = 256;
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+
+    private SerializedResponse(byte[] json, byte[] gzip, String etag) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = '"' + etag + '"';
+        this.gzipEtag = gzip != null ? '"' + etag + "-gz\"" : null;
+    }
+
+    /**
+     * Wraps serialized JSON, compressing it and hashing its ETag now rather than per request.
+     */
+    public static SerializedResponse of(byte[] json) {
+        byte[] gzip = json.length >= GZIP_MIN_BYTES ? gzip(json) : null;
+        if (gzip != null && gzip.length >= json.length) gzip = null;
+        return new SerializedResponse(json, gzip, hash(json));
+    }
+
+    /**
+     * 304 if If-None-Match already names the representation that would be sent, else
+     * 200 with the gzip copy when the client accepts it and there is one, else the JSON.
+     */
+    public ResponseEntity<byte[]> respond(String ifNoneMatch, String acceptEncoding) {
+        boolean compressed = gzip != null && acceptsGzip(acceptEncoding);
+        String tag = compressed ? gzipEtag : etag;
+        if (matches(ifNoneMatch, tag)) {
+            return notModified(tag, HttpHeaders.ACCEPT_ENCODING);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(200)
+                .eTag(tag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .contentType(MediaType.APPLICATION_JSON);
+        if (compressed) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(compressed ? gzip : json);
+    }
+
+    /**
+     * 200 with a body serialized for this request, under an ETag the caller derived from
+     * a version rather than from the bytes, so a matching request need not serialize at all.
+     */
+    public static ResponseEntity<byte[]> ok(byte[] json, String etag, String vary) {
+        return ResponseEntity.status(200)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, vary)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+
+    public static ResponseEntity<byte[]> notModified(String etag, String vary) {
+        return ResponseEntity.status(304)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, vary)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .build();
+    }
+
+    /**
+     * Whether an If-None-Match header lists this ETag, or is "*". Uses the weak comparison
+     * RFC 9110 asks for here, so a W/ prefix added by a proxy still matches.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) return false;
+        // Scanned in place: this runs on every request, and a 304 should allocate nothing
+        int end = ifNoneMatch.length();
+        for (int start = 0; start < end; ) {
+            int comma = ifNoneMatch.indexOf(',', start);
+            if (comma < 0) comma = end;
+            int from = skipSpaces(ifNoneMatch, start, comma);
+            int to = comma;
+            while (to > from && ifNoneMatch.charAt(to - 1) == ' ') to--;
+            if (to - from == 1 && ifNoneMatch.charAt(from) == '*') return true;
+            if (ifNoneMatch.startsWith("W/", from)) from += 2;
+            if (to - from == etag.length() && ifNoneMatch.startsWith(etag, from)) return true;
+            start = comma + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip: listed, or covered by "*", and not
+     * refused with q=0.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        boolean wildcard = false;
+        int end = acceptEncoding.length();
+        for (int start = 0; start < end; ) {
+            int comma = acceptEncoding.indexOf(',', start);
+            if (comma < 0) comma = end;
+            int from = skipSpaces(acceptEncoding, start, comma);
+            int semicolon = acceptEncoding.indexOf(';', from);
+            int to = semicolon >= 0 && semicolon < comma ? semicolon : comma;
+            while (to > from && acceptEncoding.charAt(to - 1) == ' ') to--;
+            boolean refused = to < comma && refusedByQuality(acceptEncoding, to, comma);
+            if (to - from == 4 && acceptEncoding.regionMatches(true, from, "gzip", 0, 4)) return !refused;
+            if (to - from == 1 && acceptEncoding.charAt(from) == '*') wildcard = !refused;
+            start = comma + 1;
+        }
+        return wildcard;
+    }
+
+    //True if the parameters between from and to hold q=0, q=0.0 and so on
+    private static boolean refusedByQuality(String header, int from, int to) {
+        int q = header.indexOf("q=", from);
+        if (q < 0 || q >= to) return false;
+        for (int i = q + 2; i < to; i++) {
+            char c = header.charAt(i);
+            if (c == ';' || c == ' ') break;
+            if (c != '0' && c != '.') return false;
+        }
+        return true;
+    }
+
+    private static int skipSpaces(String header, int from, int to) {
+        while (from < to && header.charAt(from) == ' ') from++;
+        return from;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    //Null when the body is too small or does not compress
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    //Approximate heap bytes held, for the weight-bounded cache
+    public int weight() {
+        return 64 + json.length + (gzip != null ? gzip.length : 0) + 2 * etag.length();
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    //128 bits of SHA-256, base64url: unique enough for one URL's representations
+    private static String hash(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
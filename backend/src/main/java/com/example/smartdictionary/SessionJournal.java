@@ -0,0 +1,743 @@
+package com.example.smartdictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Makes user sessions durable: every change a session makes is appended to a
+ * WriteAheadLog, and now and then a snapshot saves the sessions that changed so the
+ * log can be cut. Requests never wait for the disk; the log writer commits changes
+ * in batches a few milliseconds later.
+ *
+ * Each user's saved state is a file of its own under sessions/, named by a hash of
+ * the user id. A session evicted from the SessionStore is written there and rebuilt
+ * from it on first use, so eviction loses nothing and the journal holds no session
+ * in memory: the SessionStore cap bounds memory, and a snapshot writes only the
+ * sessions that changed since they were last saved.
+ *
+ * Recovery reads the newest snapshot marker for the LSN it covers, then replays the
+ * log records newer than each user's file and folds them into the files. Every file
+ * is written to a temp file, synced and renamed into place, so a crash leaves
+ * either the old or the new one.
+ */
+public class SessionJournal implements Closeable {
+
+    //Change types; see UserSession.apply
+    static final byte FAVORITE_ADD = 1;
+    static final byte FAVORITE_REMOVE = 2;
+    static final byte HISTORY_PUSH = 3;
+    static final byte NOT_REMEMBERED_PUSH = 4;
+    static final byte NOT_REMEMBERED_REMOVE = 5;
+    static final byte DEFINITION_PUT = 6;
+    static final byte DEFINITION_REMOVE = 7;
+    static final byte REVIEW_REMEMBERED = 8;
+    static final byte REVIEW_FORGOTTEN = 9;
+    static final byte DECK_ADD = 10;
+    static final byte DECK_REMOVE = 11;
+    static final byte DECK_SHUFFLE = 12;
+    static final byte DECK_CURSOR = 13;
+
+    private static final int SNAPSHOT_MAGIC = 0x53534E50; // "SSNP"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int SESSION_MAGIC = 0x53534553; // "SSES"
+    private static final int SESSION_VERSION = 1;
+    private static final byte STATE_VERSION = 1;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    /**
+     * One change to one session. number holds the review time, deck cursor or shuffle seed.
+     */
+    static final class Record {
+        final byte op;
+        final String user;
+        final String word;
+        final String text;
+        final long number;
+
+        Record(byte op, String user, String word, String text, long number) {
+            this.op = op;
+            this.user = user;
+            this.word = word;
+            this.text = text;
+            this.number = number;
+        }
+    }
+
+    //A saved session: its serialized state (null: the one already on disk) plus log records newer than that state
+    private static final class Dormant {
+        final byte[] state;
+        final List<byte[]> tail;
+        final long lsn;
+
+        Dormant(byte[] state, List<byte[]> tail, long lsn) {
+            this.state = state;
+            this.tail = tail;
+            this.lsn = lsn;
+        }
+
+        Dormant plus(byte[] record, long recordLsn) {
+            List<byte[]> longer = new ArrayList<>(tail.size() + 1);
+            longer.addAll(tail);
+            longer.add(record);
+            return new Dormant(state, longer, recordLsn);
+        }
+    }
+
+    private final Path dir;
+    private final long commitDelayMs;
+    private final long snapshotLogBytes;
+    private final long snapshotIntervalMs;
+    private final Path sessionsDir;
+    //Changes that reached a session after it was evicted, or whose save failed; the next snapshot writes them
+    private final Map<String, Dormant> pending = new ConcurrentHashMap<>();
+    //Session file writes for users hashing to the same stripe take turns
+    private final Object[] fileLocks = new Object[64];
+    private WriteAheadLog wal;
+    private Supplier<Collection<UserSession>> liveSessions = List::of;
+    private ScheduledExecutorService snapshotter;
+    private volatile long lastSnapshotAt = System.currentTimeMillis();
+    private volatile long lastSnapshotMillis = -1;
+    private volatile long recoveryMillis = -1;
+    private volatile long recoveredRecords;
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder snapshotFailures = new LongAdder();
+    private final LongAdder sessionWrites = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile String lastSnapshotError;
+
+    public SessionJournal(Path dir, long commitDelayMs, long snapshotLogBytes, long snapshotIntervalMs) {
+        this.dir = dir;
+        this.sessionsDir = dir.resolve("sessions");
+        for (int i = 0; i < fileLocks.length; i++) {
+            fileLocks[i] = new Object();
+        }
+        this.commitDelayMs = commitDelayMs;
+        this.snapshotLogBytes = snapshotLogBytes;
+        this.snapshotIntervalMs = snapshotIntervalMs;
+    }
+
+    /**
+     * Recovers what is on disk and opens the log for appends. Log records not yet in
+     * their user's file are written into it and the log is cut, so nothing recovered
+     * stays in memory. Sessions are not rebuilt here; restore() does that when each
+     * user is first seen.
+     */
+    public synchronized void open() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(sessionsDir);
+        long lastLsn = loadSnapshot();
+        Map<String, Long> savedLsns = new HashMap<>();
+        Map<String, List<byte[]>> tails = new HashMap<>();
+        Map<String, Long> tailLsns = new HashMap<>();
+        long[] replayed = new long[1];
+        wal = WriteAheadLog.open(dir, commitDelayMs, lastLsn + 1, (payload, lsn) -> {
+            String user = decode(payload).user;
+            long saved = savedLsns.computeIfAbsent(user, this::savedLsn);
+            // Segments a finished snapshot did not get to delete hold records the file already has
+            if (lsn > saved) {
+                tails.computeIfAbsent(user, u -> new ArrayList<>()).add(payload);
+                tailLsns.put(user, lsn);
+                replayed[0]++;
+            }
+        });
+        for (Map.Entry<String, List<byte[]>> tail : tails.entrySet()) {
+            save(tail.getKey(), new Dormant(null, tail.getValue(), tailLsns.get(tail.getKey())));
+        }
+        if (!tails.isEmpty()) {
+            snapshot();
+        }
+        recoveredRecords = replayed[0];
+        recoveryMillis = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Starts periodic snapshots of the given live sessions.
+     */
+    public synchronized void start(Supplier<Collection<UserSession>> liveSessions) {
+        this.liveSessions = liveSessions;
+        if (snapshotter != null) return;
+        long period = Math.max(1_000, Math.min(snapshotIntervalMs, 10_000));
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotIfDue, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fills a new, empty session with the user's saved state and starts journaling it.
+     */
+    public void restore(UserSession session) {
+        String user = session.getUserId();
+        Dormant onDisk;
+        try {
+            onDisk = load(user);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt saved session for " + user, e);
+        }
+        Dormant late = pending.get(user);
+        synchronized (session) {
+            long lsn = 0;
+            try {
+                if (onDisk != null) {
+                    replay(session, onDisk);
+                    lsn = onDisk.lsn;
+                }
+                if (late != null && late.lsn > lsn) {
+                    replay(session, late);
+                    lsn = late.lsn;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Corrupt saved session for " + user, e);
+            }
+            session.attach(this, lsn);
+            session.markSaved(onDisk != null ? onDisk.lsn : 0);
+        }
+        if (late != null && late.lsn <= session.getLastLsn()) {
+            pending.remove(user, late); // the live session has it now and is saved with its next change
+        }
+    }
+
+    /**
+     * Writes an evicted session to its file so restore() can bring it back. If the
+     * write fails the session waits for the next snapshot; the log still has its changes.
+     */
+    public void dehydrate(UserSession session) {
+        synchronized (session) {
+            long lsn = session.getLastLsn();
+            session.markEvicted();
+            if (lsn <= session.getSavedLsn()) return; // nothing new since it was loaded or saved
+            Dormant saved = new Dormant(writeState(session), List.of(), lsn);
+            try {
+                save(session.getUserId(), saved);
+                session.markSaved(lsn);
+            } catch (IOException | UncheckedIOException e) {
+                pending.merge(session.getUserId(), saved, (older, newer) -> newer.lsn > older.lsn ? newer : older);
+            }
+        }
+    }
+
+    /**
+     * Queues one change for the log and returns its LSN. Called under the session lock.
+     * Throws UncheckedIOException once the log has failed, so the request that made the
+     * change fails instead of pretending it was saved.
+     */
+    long append(UserSession session, Record change) {
+        byte[] payload = encode(change);
+        long lsn;
+        try {
+            lsn = wal.append(payload);
+        } catch (UncheckedIOException e) {
+            rejected.increment();
+            throw e;
+        }
+        appended.increment();
+        if (session.isEvicted()) {
+            // A request that still held an evicted session: keep its change for the next snapshot
+            pending.compute(session.getUserId(), (user, saved) -> saved == null
+                    ? new Dormant(writeState(session), List.of(), lsn)
+                    : saved.plus(payload, lsn));
+        }
+        return lsn;
+    }
+
+    /**
+     * Blocks until every change appended so far is on disk.
+     */
+    public void sync() throws IOException, InterruptedException {
+        wal.sync();
+    }
+
+    /**
+     * Saves every session changed since its last save, writes a snapshot marker and
+     * deletes the log segments it covers. Unchanged and evicted sessions are already
+     * in their files and are not touched.
+     */
+    public synchronized void snapshot() throws IOException {
+        long start = System.nanoTime();
+        long through = wal.roll();
+        // Records appended from here on land in the new segment, or carry a higher
+        // LSN than the state captured below, so none is lost or applied twice.
+        for (UserSession session : liveSessions.get()) {
+            Dormant saved;
+            synchronized (session) {
+                long lsn = session.getLastLsn();
+                if (lsn <= session.getSavedLsn()) continue;
+                saved = new Dormant(writeState(session), List.of(), lsn);
+            }
+            // Outside the lock: save() keeps whichever of this and a concurrent eviction is newer
+            save(session.getUserId(), saved);
+            session.markSaved(saved.lsn);
+        }
+        // Pending second: a session evicted during the first pass whose save failed is retried here
+        for (Map.Entry<String, Dormant> late : pending.entrySet()) {
+            save(late.getKey(), late.getValue());
+            pending.remove(late.getKey(), late.getValue());
+        }
+
+        Path target = dir.resolve(snapshotName(through));
+        Path temp = dir.resolve(snapshotName(through) + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            writeSnapshot(out, wal.lastLsn());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(dir);
+
+        for (long id : snapshotIds()) {
+            if (id < through) Files.deleteIfExists(dir.resolve(snapshotName(id)));
+        }
+        wal.deleteThrough(through);
+        snapshots.increment();
+        lastSnapshotAt = System.currentTimeMillis();
+        lastSnapshotMillis = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Stops snapshots, writes a final one and closes the log.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+            snapshotter = null;
+        }
+        if (wal == null) return;
+        try {
+            snapshot();
+        } finally {
+            wal.close();
+            wal = null;
+        }
+    }
+
+    /**
+     * Stops the log without a final snapshot, the way a killed process leaves it. For tests.
+     */
+    synchronized void halt() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+            snapshotter = null;
+        }
+        if (wal != null) {
+            wal.close();
+            wal = null;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("directory", dir.toString());
+        stats.put("appended", appended.sum());
+        stats.put("pendingSessions", pending.size());
+        stats.put("sessionWrites", sessionWrites.sum());
+        stats.put("snapshots", snapshots.sum());
+        stats.put("snapshotFailures", snapshotFailures.sum());
+        stats.put("lastSnapshotError", lastSnapshotError);
+        stats.put("rejected", rejected.sum());
+        stats.put("writeError", writeError());
+        stats.put("lastSnapshotMillis", lastSnapshotMillis);
+        stats.put("recoveryMillis", recoveryMillis);
+        stats.put("recoveredRecords", recoveredRecords);
+        WriteAheadLog log = wal;
+        if (log != null) {
+            stats.put("lastLsn", log.lastLsn());
+            stats.put("durableLsn", log.durableLsn());
+            stats.put("syncs", log.getSyncs());
+            stats.put("logBytes", log.getSegmentBytes());
+        }
+        return stats;
+    }
+
+    /**
+     * Exports snapshot outcomes and session file writes.
+     */
+    public void registerMetrics(MetricsRegistry metrics) {
+        metrics.counter("session_snapshots_total", "Session snapshots by outcome", snapshots::sum, "result", "ok");
+        metrics.counter("session_snapshots_total", "Session snapshots by outcome",
+                snapshotFailures::sum, "result", "failed");
+        metrics.counter("session_file_writes_total", "Saved-session files written by snapshots, evictions and recovery",
+                sessionWrites::sum);
+        metrics.gauge("session_last_snapshot_seconds", "Duration of the last successful snapshot",
+                () -> Math.max(0, lastSnapshotMillis) / 1000.0);
+        metrics.gauge("sessions_pending_save", "Sessions whose latest changes wait for the next snapshot",
+                pending::size);
+        metrics.counter("session_journal_rejected_total", "Changes refused because the log can no longer write",
+                rejected::sum);
+        metrics.gauge("session_journal_failed", "1 once a log write or fsync has failed",
+                () -> writeError() != null ? 1 : 0);
+    }
+
+    /**
+     * Why the log stopped writing, or null while it is healthy. Changes fail from then on.
+     */
+    public String writeError() {
+        WriteAheadLog log = wal;
+        IOException error = log != null ? log.getWriteError() : null;
+        return error != null ? error.toString() : null;
+    }
+
+    boolean isSaved(String user) {
+        return Files.exists(sessionFile(user));
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private void snapshotIfDue() {
+        try {
+            long now = System.currentTimeMillis();
+            boolean bigLog = wal.getSegmentBytes() >= snapshotLogBytes;
+            boolean stale = now - lastSnapshotAt >= snapshotIntervalMs && wal.getSegmentBytes() > 0;
+            if (bigLog || stale) {
+                snapshot();
+            }
+        } catch (IOException | RuntimeException e) {
+            // The log still has every change; try again next period
+            snapshotFailures.increment();
+            lastSnapshotError = e.toString();
+        }
+    }
+
+    // Restores a saved session: its state, then the records that came after it
+    private static void replay(UserSession session, Dormant saved) throws IOException {
+        if (saved.state != null) {
+            readState(session, saved.state);
+        }
+        for (byte[] record : saved.tail) {
+            session.apply(decode(record));
+        }
+    }
+
+    // Writes a user's file unless it already holds something newer. A null state adds
+    // the records to the ones on disk, as recovery does with the log tail.
+    private void save(String user, Dormant saved) throws IOException {
+        Path file = sessionFile(user);
+        synchronized (fileLocks[Math.floorMod(user.hashCode(), fileLocks.length)]) {
+            Dormant onDisk = load(user);
+            if (onDisk != null && onDisk.lsn >= saved.lsn) return;
+            if (saved.state == null && onDisk != null) {
+                List<byte[]> tail = new ArrayList<>(onDisk.tail.size() + saved.tail.size());
+                tail.addAll(onDisk.tail);
+                tail.addAll(saved.tail);
+                saved = new Dormant(onDisk.state, tail, saved.lsn);
+            }
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream out = Channels.newOutputStream(channel);
+                writeSession(out, user, saved);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(file.getParent());
+            sessionWrites.increment();
+        }
+    }
+
+    // The user's saved session, or null if there is none
+    private Dormant load(String user) throws IOException {
+        Path file = sessionFile(user);
+        if (!Files.exists(file)) return null;
+        DataInputStream in = checked(Files.readAllBytes(file));
+        if (in.readInt() != SESSION_MAGIC) throw new IOException("not a saved session: " + file);
+        if (in.readInt() != SESSION_VERSION) throw new IOException("unsupported saved session version: " + file);
+        if (!user.equals(readString(in))) throw new IOException("saved session belongs to another user: " + file);
+        long lsn = in.readLong();
+        byte[] state = readBytes(in);
+        int tailSize = in.readInt();
+        List<byte[]> tail = new ArrayList<>(tailSize);
+        for (int i = 0; i < tailSize; i++) {
+            tail.add(readBytes(in));
+        }
+        return new Dormant(state, tail, lsn);
+    }
+
+    private long savedLsn(String user) {
+        try {
+            Dormant saved = load(user);
+            return saved != null ? saved.lsn : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt saved session for " + user, e);
+        }
+    }
+
+    private static void writeSession(OutputStream target, String user, Dormant saved) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(bytes, crc));
+        out.writeInt(SESSION_MAGIC);
+        out.writeInt(SESSION_VERSION);
+        writeString(out, user);
+        out.writeLong(saved.lsn);
+        writeBytes(out, saved.state);
+        out.writeInt(saved.tail.size());
+        for (byte[] record : saved.tail) {
+            writeBytes(out, record);
+        }
+        out.flush();
+        new DataOutputStream(bytes).writeInt((int) crc.getValue());
+        bytes.writeTo(target);
+    }
+
+    // sessions/ab/abcdef....bin: a hash keeps any user id a valid file name, and the
+    // first two hex digits spread the files over 256 directories
+    private Path sessionFile(String user) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(user.getBytes(StandardCharsets.UTF_8));
+            String name = HexFormat.of().formatHex(digest, 0, 16);
+            return sessionsDir.resolve(name.substring(0, 2)).resolve(name + ".bin");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM has SHA-256
+        }
+    }
+
+    // The last LSN covered by the newest readable snapshot
+    private long loadSnapshot() throws IOException {
+        List<Long> ids = snapshotIds();
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            Path file = dir.resolve(snapshotName(ids.get(i)));
+            try {
+                return readSnapshot(Files.readAllBytes(file));
+            } catch (IOException e) {
+                System.err.println("Skipping unreadable snapshot " + file + ": " + e.getMessage());
+            }
+        }
+        return 0;
+    }
+
+    private void writeSnapshot(OutputStream target, long lastLsn) throws IOException {
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(target, crc));
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(lastLsn);
+        out.flush();
+        new DataOutputStream(target).writeInt((int) crc.getValue());
+    }
+
+    private long readSnapshot(byte[] bytes) throws IOException {
+        DataInputStream in = checked(bytes);
+        if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("not a session snapshot");
+        if (in.readInt() != SNAPSHOT_VERSION) throw new IOException("unsupported snapshot version");
+        return in.readLong();
+    }
+
+    // The contents before the trailing CRC32, once it matches
+    private static DataInputStream checked(byte[] bytes) throws IOException {
+        if (bytes.length < 4) throw new IOException("truncated");
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipNBytes(bytes.length - 4);
+        if (in.readInt() != (int) crc.getValue()) throw new IOException("checksum mismatch");
+        return new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+    }
+
+    // Session state: favorites, history, not-remembered, custom definitions, schedule, deck edits, cursor
+    static byte[] writeState(UserSession session) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(STATE_VERSION);
+            List<WordItem> favorites = session.getFavorites().list();
+            out.writeInt(favorites.size());
+            for (WordItem item : favorites) {
+                writeString(out, item.getWord());
+                writeString(out, item.getDefinition());
+            }
+            writeStrings(out, session.getHistory().getHistory());
+            writeStrings(out, session.getNotRemembered().getPending());
+            Map<String, String> definitions = new HashMap<>(session.getCustomDefinitions());
+            out.writeInt(definitions.size());
+            for (Map.Entry<String, String> entry : definitions.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+            List<ReviewScheduler.CardState> states = session.getScheduler().states();
+            out.writeInt(states.size());
+            for (ReviewScheduler.CardState state : states) {
+                writeString(out, state.getWord());
+                out.writeDouble(state.getEase());
+                out.writeInt(state.getIntervalDays());
+                out.writeInt(state.getRepetitions());
+                out.writeInt(state.getLapses());
+                out.writeLong(state.getDue());
+            }
+            List<Record> edits = session.getDeckEdits();
+            out.writeInt(edits.size());
+            for (Record edit : edits) {
+                out.writeByte(edit.op);
+                writeString(out, edit.word);
+                writeString(out, edit.text);
+                out.writeLong(edit.number);
+            }
+            out.writeInt(session.getFlashcards().getCursor());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream
+        }
+    }
+
+    static void readState(UserSession session, byte[] state) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+        if (in.readByte() != STATE_VERSION) throw new IOException("unsupported session state version");
+        String user = session.getUserId();
+        int favorites = in.readInt();
+        for (int i = 0; i < favorites; i++) {
+            session.apply(new Record(FAVORITE_ADD, user, readString(in), readString(in), 0));
+        }
+        List<String> history = readStrings(in);
+        for (int i = history.size() - 1; i >= 0; i--) {
+            session.apply(new Record(HISTORY_PUSH, user, history.get(i), null, 0));
+        }
+        session.getNotRemembered().restore(readStrings(in));
+        int definitions = in.readInt();
+        for (int i = 0; i < definitions; i++) {
+            session.apply(new Record(DEFINITION_PUT, user, readString(in), readString(in), 0));
+        }
+        int states = in.readInt();
+        for (int i = 0; i < states; i++) {
+            session.getScheduler().restore(new ReviewScheduler.CardState(readString(in),
+                    in.readDouble(), in.readInt(), in.readInt(), in.readInt(), in.readLong()));
+        }
+        int edits = in.readInt();
+        for (int i = 0; i < edits; i++) {
+            session.apply(new Record(in.readByte(), user, readString(in), readString(in), in.readLong()));
+        }
+        session.apply(new Record(DECK_CURSOR, user, null, null, in.readInt()));
+    }
+
+    static byte[] encode(Record change) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(change.op);
+            writeString(out, change.user);
+            writeString(out, change.word);
+            writeString(out, change.text);
+            out.writeLong(change.number);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream
+        }
+    }
+
+    static Record decode(byte[] payload) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            return new Record(in.readByte(), readString(in), readString(in), readString(in), in.readLong());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed journal record", e);
+        }
+    }
+
+    // Strings as an int byte length (-1 for null) and UTF-8, since definitions can exceed writeUTF's 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        return in.readNBytes(length);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private List<Long> snapshotIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    ids.add(Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    // Makes the rename itself durable; not every platform can open a directory, which is fine
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+
+    private static String snapshotName(long id) {
+        return String.format("%s%016d%s", SNAPSHOT_PREFIX, id, SNAPSHOT_SUFFIX);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.smartdictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of per-user sessions keyed by user id.
+ * Sessions idle for longer than the timeout are swept in the background, and when
+ * the store grows past its cap the least recently used tenth is evicted in one pass,
+ * so the eviction cost is amortized over many new sessions.
+ * The eviction listener sees each dropped session before it leaves the store.
+ * The anonymous session, which every client without an X-User-Id shares, is never
+ * swept or evicted: without a journal its state would be gone for good.
+ */
+public class SessionStore {
+
+    public static final String ANONYMOUS = "anonymous";
+
+    private final int maxSessions;
+    private final long idleTimeoutMs;
+    private final Function<String, UserSession> factory;
+    private final Consumer<UserSession> onEvict;
+    private final Map<String, UserSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private ScheduledExecutorService sweeper;
+
+    public SessionStore(int maxSessions, long idleTimeoutMs, Function<String, UserSession> factory) {
+        this(maxSessions, idleTimeoutMs, factory, session -> {});
+    }
+
+    public SessionStore(int maxSessions, long idleTimeoutMs, Function<String, UserSession> factory,
+                        Consumer<UserSession> onEvict) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("maxSessions must be positive");
+        }
+        this.maxSessions = maxSessions;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.factory = factory;
+        this.onEvict = onEvict;
+    }
+
+    /**
+     * Returns the session for the user, creating it on first use.
+     * Blank ids share the anonymous session.
+     */
+    public UserSession get(String userId) {
+        String key = userId == null || userId.isBlank() ? ANONYMOUS : userId;
+        long now = System.currentTimeMillis();
+        UserSession session = sessions.get(key);
+        if (session == null) {
+            session = sessions.computeIfAbsent(key, factory);
+            if (sessions.size() > maxSessions) {
+                evictLeastRecentlyUsed();
+            }
+        }
+        session.touch(now);
+        return session;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * The sessions currently in memory.
+     */
+    public Collection<UserSession> sessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    /**
+     * Drops every session idle for longer than the timeout.
+     */
+    public void sweepIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        sessions.values().removeIf(s -> s.getLastAccess() < cutoff && evictable(s) && evict(s));
+    }
+
+    /**
+     * Drops every session.
+     */
+    public void evictAll() {
+        sessions.values().removeIf(this::evict);
+    }
+
+    private static boolean evictable(UserSession session) {
+        return !ANONYMOUS.equals(session.getUserId());
+    }
+
+    private boolean evict(UserSession session) {
+        onEvict.accept(session);
+        return true;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        if (!evicting.compareAndSet(false, true)) return;
+        try {
+            long[] times = sessions.values().stream().filter(SessionStore::evictable)
+                    .mapToLong(UserSession::getLastAccess).toArray();
+            if (times.length <= maxSessions) return;
+            // Drop down to 90% of the cap so the next evictions are far apart
+            int toEvict = times.length - maxSessions + Math.max(1, maxSessions / 10);
+            Arrays.sort(times);
+            long cutoff = times[Math.min(toEvict, times.length) - 1];
+            sessions.values().removeIf(s -> s.getLastAccess() <= cutoff && evictable(s) && evict(s));
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    public synchronized void start() {
+        if (sweeper != null) return;
+        long period = Math.max(1_000, idleTimeoutMs / 4);
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweepIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (sweeper == null) return;
+        sweeper.shutdownNow();
+        sweeper = null;
+    }
+}
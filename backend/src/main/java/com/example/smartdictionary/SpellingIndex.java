@@ -0,0 +1,105 @@
+package com.example.smartdictionary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spelling correction index using symmetric deletes (SymSpell).
+ * Every dictionary word is stored under each string obtained by deleting up to
+ * maxDistance characters, so a lookup only generates the deletes of the query and
+ * verifies the few words found under them instead of scanning the whole dictionary.
+ */
+public final class SpellingIndex {
+
+    private final int maxDistance;
+    private final Map<String, List<String>> deletes = new HashMap<>();
+
+    public SpellingIndex(Collection<String> words, int maxDistance) {
+        this.maxDistance = maxDistance;
+        for (String word : words) {
+            add(word);
+        }
+    }
+
+    public void add(String word) {
+        if (word == null || word.isEmpty()) return;
+        String key = word.toLowerCase();
+        for (String variant : generateDeletes(key)) {
+            List<String> bucket = deletes.computeIfAbsent(variant, k -> new ArrayList<>(1));
+            if (!bucket.contains(key)) {
+                bucket.add(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the closest indexed word within maxDistance edits, or null if none.
+     * Ties are broken alphabetically so the result does not depend on insertion order.
+     */
+    public String findClosest(String word) {
+        if (word == null) return null;
+        String query = word.toLowerCase();
+
+        String bestWord = null;
+        int minDist = Integer.MAX_VALUE;
+        Set<String> checked = new HashSet<>();
+
+        // Breadth-first over delete levels: a word at distance d is always reached
+        // by deleting at most d characters from the query.
+        List<String> level = List.of(query);
+        Set<String> seen = new HashSet<>(level);
+        for (int d = 0; d <= maxDistance && d <= minDist && !level.isEmpty(); d++) {
+            for (String variant : level) {
+                List<String> bucket = deletes.get(variant);
+                if (bucket == null) continue;
+                for (String candidate : bucket) {
+                    if (!checked.add(candidate)) continue;
+                    int bound = Math.min(maxDistance, minDist);
+                    int dist = Levenshtein.calculate(query, candidate, bound);
+                    if (dist > bound) continue;
+                    if (dist < minDist || candidate.compareTo(bestWord) < 0) {
+                        minDist = dist;
+                        bestWord = candidate;
+                    }
+                }
+            }
+            if (minDist == 0) break;
+
+            List<String> nextLevel = new ArrayList<>();
+            for (String variant : level) {
+                for (int i = 0; i < variant.length(); i++) {
+                    String shorter = variant.substring(0, i) + variant.substring(i + 1);
+                    if (seen.add(shorter)) {
+                        nextLevel.add(shorter);
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        return minDist <= maxDistance ? bestWord : null;
+    }
+
+    private Set<String> generateDeletes(String word) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> level = List.of(word);
+        for (int d = 0; d < maxDistance; d++) {
+            List<String> nextLevel = new ArrayList<>();
+            for (String variant : level) {
+                for (int i = 0; i < variant.length(); i++) {
+                    String shorter = variant.substring(0, i) + variant.substring(i + 1);
+                    if (result.add(shorter)) {
+                        nextLevel.add(shorter);
+                    }
+                }
+            }
+            level = nextLevel;
+        }
+        return result;
+    }
+}
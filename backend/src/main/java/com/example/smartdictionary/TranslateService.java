@@ -3,80 +3,249 @@ package com.example.smartdictionary;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Simple EN->VI translation using MyMemory Translation API.
  * Free, no API key required for reasonable usage.
  * API: https://mymemory.translated.net/doc/spec.php
+ *
+ * Results are kept in a translation memory keyed by language pair and
+ * whitespace-normalized text, so repeated texts never go upstream twice.
  */
 public class TranslateService {
 
-    private final HttpClient client = HttpClient.newBuilder()
-            .followRedirects(HttpClient.Redirect.NORMAL)
-            .build();
+    private static final String LANG_PAIR = "en|vi";
+    //Upper bound on simultaneous upstream calls from one batch
+    public static final int MAX_PARALLEL_REQUESTS = 8;
+    public static final int MAX_BATCH_SIZE = 500;
+    private static final long CACHE_MAX_WEIGHT = 16L * 1024 * 1024;
+    private static final long CACHE_TTL_MS = TimeUnit.DAYS.toMillis(7);
+    private static final long ERROR_TTL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Outcome of one translation: either translation or error is set.
+     */
+    public static final class Translation {
+        private final String text;
+        private final String translation;
+        private final String error;
+
+        Translation(String text, String translation, String error) {
+            this.text = text;
+            this.translation = translation;
+            this.error = error;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getTranslation() {
+            return translation;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isOk() {
+            return translation != null;
+        }
+    }
+
+    private final HttpClient client;
     private final ObjectMapper mapper = new ObjectMapper();
-    private final String apiUrl = "https://api.mymemory.translated.net/get";
-    private String lastError;
+    private final String apiUrl;
+    private final Duration requestTimeout;
+    private final UpstreamGuard guard;
+    private final ResponseCache<String, Translation> cache = new ResponseCache<>(
+            CACHE_MAX_WEIGHT, CACHE_TTL_MS, ERROR_TTL_MS,
+            t -> t.text.length() + (t.translation != null ? t.translation.length() : 0),
+            t -> !t.isOk());
 
     public TranslateService() {
+        this(UpstreamConfig.defaults());
+    }
+
+    public TranslateService(String apiUrl) {
+        this(UpstreamConfig.defaults().withTranslateApiUrl(apiUrl));
+    }
+
+    public TranslateService(UpstreamConfig config) {
+        this.apiUrl = config.getTranslateApiUrl();
+        this.requestTimeout = Duration.ofMillis(config.getRequestTimeoutMs());
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeoutMs()))
+                .build();
+        this.guard = config.newGuard("mymemory");
         System.out.println("[TranslateService] Using MyMemory API: " + apiUrl);
     }
 
     public String translateEnToVi(String text) {
         if (text == null || text.isBlank()) return null;
+        return translate(text).getTranslation();
+    }
 
-        try {
-            String encoded = URLEncoder.encode(text, StandardCharsets.UTF_8);
-            String langpair = URLEncoder.encode("en|vi", StandardCharsets.UTF_8);
-            String url = apiUrl + "?q=" + encoded + "&langpair=" + langpair;
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() != 200) {
-                lastError = "HTTP " + response.statusCode();
-                System.err.println("[TranslateService] Non-200: " + lastError);
-                return null;
-            }
+    /**
+     * Translates one text, answering from the translation memory when possible.
+     */
+    public Translation translate(String text) {
+        return translateAsync(text).join();
+    }
 
-            JsonNode root = mapper.readTree(response.body());
-            JsonNode responseData = root.get("responseData");
-            if (responseData == null) {
-                lastError = "No responseData in API response";
-                System.err.println("[TranslateService] Parse error: " + lastError);
-                return null;
-            }
+    /**
+     * Non-blocking translate. Upstream failures (timeouts, open circuit, non-200 answers,
+     * unparseable bodies) are reported in the result and not cached; only a well-formed
+     * answer without a translation is remembered, for ERROR_TTL_MS. The returned future
+     * never completes exceptionally.
+     */
+    public CompletableFuture<Translation> translateAsync(String text) {
+        if (text == null || text.isBlank()) {
+            return CompletableFuture.completedFuture(new Translation(text, null, "Text is empty"));
+        }
+        String normalized = normalize(text);
+        return cache.getAsync(LANG_PAIR + ":" + normalized, key -> fetch(normalized))
+                .exceptionally(e -> failure(normalized, describe(e)))
+                .thenApply(cached -> new Translation(text, cached.translation, cached.error));
+    }
+
+    /**
+     * Translates many texts at once. Texts found in the translation memory are answered
+     * directly; the rest go upstream concurrently, at most MAX_PARALLEL_REQUESTS at a time,
+     * and duplicates within the batch are only sent once. Results keep the input order.
+     */
+    public List<Translation> translateBatch(List<String> texts) {
+        return translateBatchAsync(texts).join();
+    }
+
+    public CompletableFuture<List<Translation>> translateBatchAsync(List<String> texts) {
+        Map<String, CompletableFuture<Translation>> distinct = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Translation>> uncached = new LinkedHashMap<>();
+        for (String text : texts) {
+            if (text == null || text.isBlank()) continue;
+            distinct.computeIfAbsent(normalize(text), key -> {
+                Translation cached = cache.getIfPresent(LANG_PAIR + ":" + key);
+                if (cached != null) {
+                    return CompletableFuture.completedFuture(cached);
+                }
+                CompletableFuture<Translation> pending = new CompletableFuture<>();
+                uncached.put(key, pending);
+                return pending;
+            });
+        }
+        // A fixed number of lanes, each starting its next text when the previous one finishes
+        Iterator<Map.Entry<String, CompletableFuture<Translation>>> queue = uncached.entrySet().iterator();
+        for (int lane = 0; lane < MAX_PARALLEL_REQUESTS; lane++) {
+            startNext(queue);
+        }
 
-            JsonNode translated = responseData.get("translatedText");
-            if (translated == null || translated.isNull()) {
-                lastError = "No translatedText field";
-                System.err.println("[TranslateService] Parse error: " + lastError);
-                return null;
+        return CompletableFuture.allOf(distinct.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<Translation> results = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                if (text == null || text.isBlank()) {
+                    results.add(new Translation(text, null, "Text is empty"));
+                    continue;
+                }
+                Translation shared = distinct.get(normalize(text)).join();
+                results.add(new Translation(text, shared.translation, shared.error));
             }
+            return results;
+        });
+    }
 
-            lastError = null;
-            String result = translated.asText();
-            System.out.println("[TranslateService] Success: " + text + " → " + result);
-            return result;
-        } catch (Exception e) {
-            lastError = e.getMessage();
-            System.err.println("[TranslateService] Exception: " + lastError);
-            e.printStackTrace();
-            return null;
+    private void startNext(Iterator<Map.Entry<String, CompletableFuture<Translation>>> queue) {
+        Map.Entry<String, CompletableFuture<Translation>> next;
+        synchronized (queue) {
+            if (!queue.hasNext()) return;
+            next = queue.next();
+        }
+        translateAsync(next.getKey()).thenAccept(result -> {
+            next.getValue().complete(result);
+            startNext(queue);
+        });
+    }
+
+    public void registerMetrics(MetricsRegistry metrics) {
+        cache.registerMetrics(metrics, "translations");
+        guard.registerMetrics(metrics);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = cache.stats();
+        guard.putStats(stats);
+        return stats;
+    }
+
+    static String normalize(String text) {
+        return text.strip().replaceAll("\\s+", " ");
+    }
 
+    private CompletableFuture<Translation> fetch(String text) {
+        String encoded = URLEncoder.encode(text, StandardCharsets.UTF_8);
+        String langpair = URLEncoder.encode(LANG_PAIR, StandardCharsets.UTF_8);
+        String url = apiUrl + "?q=" + encoded + "&langpair=" + langpair;
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+
+        return guard.call(() -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()),
+                response -> response.statusCode() >= 500).thenApply(response -> parse(text, response));
+    }
+
+    private Translation parse(String text, HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            // Server errors and throttling are temporary; failing the load keeps them out of the cache
+            throw new CompletionException(new IOException("HTTP " + response.statusCode()));
+        }
+        JsonNode root;
+        try {
+            root = mapper.readTree(response.body());
+        } catch (IOException e) {
+            System.err.println("[TranslateService] Exception: " + e.getMessage());
+            throw new CompletionException(e);
         }
+        JsonNode responseData = root.get("responseData");
+        if (responseData == null) {
+            return failure(text, "No responseData in API response");
+        }
+
+        JsonNode translated = responseData.get("translatedText");
+        if (translated == null || translated.isNull()) {
+            return failure(text, "No translatedText field");
+        }
+
+        String result = translated.asText();
+        System.out.println("[TranslateService] Success: " + text + " → " + result);
+        return new Translation(text, result, null);
+    }
+
+    private static String describe(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
     }
 
-    public String getLastError() {
-        return lastError;
+    private Translation failure(String text, String error) {
+        System.err.println("[TranslateService] Error: " + error);
+        return new Translation(text, null, error);
     }
 }
@@ -1,58 +1,599 @@
 package com.example.smartdictionary;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Prefix tree stored in parallel primitive arrays (first-child / next-sibling),
+ * so each node costs a few ints instead of a HashMap of boxed Characters.
+ * Every node caches the ids of its best MAX_SUGGESTIONS completions in a fixed
+ * order, so a prefix lookup is O(prefix length) and never builds strings.
+ *
+ * Paths follow the folded key (FoldedIndex.fold), so "pho", "phở" and "ＰＨＯ" reach the
+ * same node and a prefix typed with or without accents finds the same completions. Words
+ * that fold alike share their node and are chained from it; suggestions return the word
+ * itself, accents included.
+ *
+ * Completions are ranked by popularity score, then alphabetically. Writers
+ * (insert, boost, decay) are synchronized; searchPrefix takes no lock and reads
+ * each node's cached list under a per-node sequence counter instead. Lookups may run
+ * alongside insert too: grown arrays are published as a new Nodes or Words holder, a
+ * new node or word is linked in with a release store once it is filled in, and a
+ * lookup takes the Words holder only after reading the word ids it will look up.
+ */
 public class Trie {
-    
-    private class TrieNode {
-        Map<Character, TrieNode> children = new HashMap<>();
-        boolean isEndOfWord = false;
+
+    public static final int MAX_SUGGESTIONS = 5;
+    //Most edits searchFuzzyPrefix allows
+    public static final int MAX_FUZZY_DISTANCE = 2;
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    private static final int LINKS = 3;
+    private static final int FIRST_CHILD = 0;
+    private static final int NEXT_SIBLING = 1;
+    private static final int LABEL = 2;
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    //Scores are rescaled once the boost weight grows past this
+    private static final double MAX_WEIGHT = 1e150;
+
+    //Node storage, indexed by node id
+    //First child, next sibling and label of each node side by side, so walking a
+    //sibling list touches one cache line per node instead of three
+    private int[] links = new int[16 * LINKS];
+    private int[] wordId = new int[16];
+    //MAX_SUGGESTIONS word ids per node, best first, NONE-padded
+    private int[] topK = new int[16 * MAX_SUGGESTIONS];
+    //Odd while a node's cached list is being rewritten
+    private int[] topVersion = new int[16];
+    private int nodeCount = 0;
+
+    //Word storage, indexed by word id
+    private String[] words = new String[16];
+    private double[] score = new double[16];
+    //Next word id on the same node, for words that fold to the same key
+    private int[] sameKey = new int[16];
+    private int wordCount = 0;
+    //Weight of one hit; doubling it halves the relative weight of older hits
+    private double boostWeight = 1.0;
+    //The arrays above as lock-free readers see them, replaced whenever they grow
+    private volatile Nodes nodes;
+    private volatile Words wordTable;
+
+    /**
+     * The node arrays, grown together, so a node id read from links indexes all of them.
+     * Their word ids may be newer than a Words taken earlier: read wordTable after them.
+     */
+    private static final class Nodes {
+        final int[] links;
+        final int[] wordId;
+        final int[] topK;
+        final int[] topVersion;
+
+        Nodes(int[] links, int[] wordId, int[] topK, int[] topVersion) {
+            this.links = links;
+            this.wordId = wordId;
+            this.topK = topK;
+            this.topVersion = topVersion;
+        }
     }
 
-    private final TrieNode root;
+    /**
+     * The word arrays, grown together. A word id is stored in a node only after the
+     * Words holding it is published.
+     */
+    private static final class Words {
+        final String[] words;
+        final double[] score;
+        final int[] sameKey;
+
+        Words(String[] words, double[] score, int[] sameKey) {
+            this.words = words;
+            this.score = score;
+            this.sameKey = sameKey;
+        }
+    }
 
     public Trie() {
-        root = new TrieNode();
+        wordTable = new Words(words, score, sameKey);
+        nodes = new Nodes(links, wordId, topK, topVersion);
+        newNode('\0');
     }
 
-    public void insert(String word) {
-        TrieNode node = root;
-        for (char c : word.toLowerCase().toCharArray()) {
-            node.children.putIfAbsent(c, new TrieNode());
-            node = node.children.get(c);
+    public synchronized void insert(String word) {
+        String lower = word.toLowerCase();
+        String key = FoldedIndex.fold(lower);
+        int node = ROOT;
+        for (int i = 0; i < key.length(); i++) {
+            node = childOrCreate(node, key.charAt(i));
         }
-        node.isEndOfWord = true;
+        for (int id = wordId[node]; id != NONE; id = sameKey[id]) {
+            if (words[id].equals(lower)) return; // already present
+        }
+
+        int id = addWord(lower);
+        sameKey[id] = wordId[node];
+        INTS.setRelease(wordId, node, id);
+        offerAlongPath(key, id);
     }
 
     public List<String> searchPrefix(String prefix) {
-        TrieNode node = root;
-        List<String> results = new ArrayList<>();
-        
-        // Navigate to the end of the prefix
-        for (char c : prefix.toLowerCase().toCharArray()) {
-            if (!node.children.containsKey(c)) {
-                return results; // Return empty list if prefix not found
-            }
-            node = node.children.get(c);
-        }
-        
-        // Perform DFS to find all words from this node
-        dfs(node, prefix, results);
+        Nodes n = nodes;
+        return completions(n, find(n.links, FoldedIndex.fold(prefix)));
+    }
+
+    /**
+     * A cursor at the root, for following one prefix as it is typed.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * A position in the trie that follows a prefix as it is edited: each character added
+     * at the end is one step down from the current node and each one removed is a step
+     * back up, instead of a walk from the root for every keystroke. The nodes along the
+     * prefix are kept, so backspacing costs no lookups at all. Editing in the middle
+     * steps back to the change and down again. Not thread-safe: one per typist.
+     *
+     * Once the prefix leaves the trie the cursor stays off it until the prefix is cut back
+     * to a node; a word inserted meanwhile below that point is found after that.
+     */
+    public final class Cursor {
+
+        //path[i] is the node reached by the first i characters of key, NONE off the trie
+        private int[] path = new int[16];
+        private char[] key = new char[16];
+        private int length;
+
+        private Cursor() {
+            path[0] = ROOT;
+        }
+
+        /**
+         * Moves to prefix (folded like searchPrefix) and returns the steps taken: characters
+         * dropped from the end of the previous prefix plus characters added.
+         */
+        public int moveTo(String prefix) {
+            String folded = FoldedIndex.fold(prefix);
+            int common = 0;
+            int shared = Math.min(length, folded.length());
+            while (common < shared && key[common] == folded.charAt(common)) {
+                common++;
+            }
+            int steps = length - common;
+            length = common;
+            if (folded.length() >= key.length) {
+                int capacity = Math.max(key.length * 2, folded.length() + 1);
+                key = Arrays.copyOf(key, capacity);
+                path = Arrays.copyOf(path, capacity + 1);
+            }
+            int[] links = nodes.links;
+            while (length < folded.length()) {
+                char c = folded.charAt(length);
+                int node = path[length];
+                key[length] = c;
+                path[++length] = node == NONE ? NONE : child(links, node, c);
+                steps++;
+            }
+            return steps;
+        }
+
+        //Same as searchPrefix for the current prefix
+        public List<String> suggestions() {
+            return completions(nodes, path[length]);
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public Trie getTrie() {
+            return Trie.this;
+        }
+    }
+
+    private List<String> completions(Nodes n, int node) {
+        List<String> results = new ArrayList<>(MAX_SUGGESTIONS);
+        if (node == NONE) {
+            return results; // Return empty list if prefix not found
+        }
+        int[] ids = new int[MAX_SUGGESTIONS];
+        int count = readTop(n, node, ids);
+        String[] names = wordTable.words;
+        for (int i = 0; i < count; i++) {
+            results.add(names[ids[i]]);
+        }
         return results;
     }
 
-    private void dfs(TrieNode node, String currentPrefix, List<String> results) {
-        if (results.size() >= 5) return; // Limit suggestions
-        
-        if (node.isEndOfWord) {
-            results.add(currentPrefix);
+    /**
+     * Suggestions for a prefix that may hold typos: the completions of every trie path
+     * within maxDistance edits (insertions, deletions, substitutions) of it, fewest edits
+     * first and then ranked like searchPrefix, so exact-prefix matches always come first.
+     * Prefixes under three characters get no edits and under six at most one, so a short
+     * prefix does not match most of the dictionary. The second edit keeps the first
+     * character as typed, which is rarely the one mistyped.
+     *
+     * The trie is walked depth-first with one Levenshtein DP row per level. A subtree is
+     * skipped once the smallest value in its row exceeds the distance still worth finding,
+     * and a matching node's cached completions are taken without walking below it unless
+     * a deeper path could match with fewer edits. Takes no lock, like searchPrefix.
+     */
+    public List<String> searchFuzzyPrefix(String prefix, int maxDistance) {
+        String key = FoldedIndex.fold(prefix);
+        int limit = Math.min(Math.min(maxDistance, MAX_FUZZY_DISTANCE), key.length() < 3 ? 0 : key.length() < 6 ? 1 : 2);
+        if (limit <= 0) return searchPrefix(prefix);
+        // One edit at a time: a walk for two edits visits far more nodes, and is only
+        // needed when fewer than MAX_SUGGESTIONS words are within one
+        Nodes n = nodes;
+        FuzzyWalk walk = new FuzzyWalk(n, key, 1, null);
+        walk.children(ROOT, 0);
+        if (limit == 2 && walk.size < MAX_SUGGESTIONS) {
+            walk = new FuzzyWalk(n, key, 2, walk);
+            walk.children(ROOT, 0);
+        }
+        return walk.results();
+    }
+
+    /**
+     * Copies a node's cached completion ids into ids and returns how many there are.
+     * Reads under the node's sequence counter, so the list is never torn by a boost.
+     */
+    private static int readTop(Nodes n, int node, int[] ids) {
+        int base = node * MAX_SUGGESTIONS;
+        int[] top = n.topK;
+        int[] versions = n.topVersion;
+        while (true) {
+            int version = (int) INTS.getAcquire(versions, node);
+            if ((version & 1) == 0) {
+                int count = 0;
+                while (count < MAX_SUGGESTIONS) {
+                    int id = (int) INTS.getOpaque(top, base + count);
+                    if (id == NONE) break;
+                    ids[count++] = id;
+                }
+                VarHandle.acquireFence();
+                if ((int) INTS.getOpaque(versions, node) == version) {
+                    return count;
+                }
+                // a ranking update raced with us, read again
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    //State of one searchFuzzyPrefix walk
+    private final class FuzzyWalk {
+        private final Nodes view;
+        //Taken again after each node's ids are read, so it covers every id found so far
+        private Words table;
+        private final String query;
+        //rows[d][j]: edits between the first j query characters and the path to a depth-d node
+        private int[][] rows = new int[16][];
+        //The best MAX_SUGGESTIONS words so far, fewest edits first, then in searchPrefix order
+        private final int[] best = new int[MAX_SUGGESTIONS];
+        private final int[] bestDistance = new int[MAX_SUGGESTIONS];
+        private int size;
+        //Paths that cannot come within this many edits are not walked
+        private int bound;
+        private final boolean firstCharFixed;
+        private final int[] ids = new int[MAX_SUGGESTIONS];
+
+        //Starts from the words an earlier walk found, which may have typos in the first character
+        FuzzyWalk(Nodes view, String query, int maxDistance, FuzzyWalk earlier) {
+            this.view = view;
+            this.query = query;
+            this.bound = maxDistance;
+            this.firstCharFixed = maxDistance > 1;
+            if (earlier != null) {
+                System.arraycopy(earlier.best, 0, best, 0, earlier.size);
+                System.arraycopy(earlier.bestDistance, 0, bestDistance, 0, earlier.size);
+                size = earlier.size;
+            }
+            int[] first = row(0);
+            for (int j = 0; j <= query.length(); j++) {
+                first[j] = j;
+            }
+        }
+
+        private int[] row(int depth) {
+            if (depth == rows.length) {
+                rows = Arrays.copyOf(rows, depth * 2);
+            }
+            if (rows[depth] == null) {
+                rows[depth] = new int[query.length() + 1];
+            }
+            return rows[depth];
+        }
+
+        void children(int parent, int depth) {
+            int m = query.length();
+            int[] previous = rows[depth];
+            int[] nodes = view.links;
+            for (int n = firstChild(nodes, parent); n != NONE; n = nextSibling(nodes, n)) {
+                int[] row = row(depth + 1);
+                char c = (char) nodes[n * LINKS + LABEL];
+                if (depth == 0 && firstCharFixed && c != query.charAt(0)) continue;
+                row[0] = previous[0] + 1;
+                int min = row[0];
+                for (int j = 1; j <= m; j++) {
+                    int substitute = previous[j - 1] + (query.charAt(j - 1) == c ? 0 : 1);
+                    int edits = Math.min(substitute, Math.min(previous[j], row[j - 1]) + 1);
+                    row[j] = edits;
+                    if (edits < min) min = edits;
+                }
+                // Row minimums never shrink going down, so nothing below can match
+                if (min > bound) continue;
+                int distance = row[m];
+                if (distance <= bound) {
+                    collect(n, distance);
+                    // Everything below is already in this node's completions, at no fewer edits
+                    if (min >= distance) continue;
+                }
+                children(n, depth + 1);
+            }
+        }
+
+        private void collect(int node, int distance) {
+            int count = readTop(view, node, ids);
+            table = wordTable;
+            for (int i = 0; i < count; i++) {
+                // The node's list is in rank order, so once one word misses the rest do too
+                if (!offer(ids[i], distance)) break;
+            }
+        }
+
+        //Adds a word to the best list if it ranks high enough; false if it does not
+        private boolean offer(int id, int distance) {
+            int at = size;
+            for (int i = 0; i < size; i++) {
+                if (best[i] == id) {
+                    if (bestDistance[i] <= distance) return true;
+                    // Found again with fewer edits: take it out and place it anew
+                    System.arraycopy(best, i + 1, best, i, size - i - 1);
+                    System.arraycopy(bestDistance, i + 1, bestDistance, i, size - i - 1);
+                    at = --size;
+                    break;
+                }
+            }
+            while (at > 0 && before(id, distance, best[at - 1], bestDistance[at - 1])) {
+                at--;
+            }
+            if (at == MAX_SUGGESTIONS) return false;
+            int moved = Math.min(size, MAX_SUGGESTIONS - 1) - at;
+            System.arraycopy(best, at, best, at + 1, moved);
+            System.arraycopy(bestDistance, at, bestDistance, at + 1, moved);
+            best[at] = id;
+            bestDistance[at] = distance;
+            if (size < MAX_SUGGESTIONS) size++;
+            // With the list full, only paths that can beat its last entry are worth walking
+            if (size == MAX_SUGGESTIONS) bound = bestDistance[MAX_SUGGESTIONS - 1];
+            return true;
+        }
+
+        // Scores are read without the lock; a boost racing with the walk only shifts the order
+        private boolean before(int id, int distance, int other, int otherDistance) {
+            if (distance != otherDistance) return distance < otherDistance;
+            return ranksBefore(table.score, table.words, id, other);
+        }
+
+        List<String> results() {
+            List<String> results = new ArrayList<>(size);
+            String[] names = wordTable.words;
+            for (int i = 0; i < size; i++) {
+                results.add(names[best[i]]);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Adds hits to a word's popularity and moves it up the cached lists of its prefixes.
+     * Unknown words are ignored.
+     */
+    public synchronized void boost(String word, long hits) {
+        if (hits <= 0) return;
+        int id = idOf(word);
+        if (id == NONE) return;
+        score[id] += hits * boostWeight;
+        offerAlongPath(FoldedIndex.fold(words[id]), id);
+    }
+
+    /**
+     * Halves the weight of all hits recorded so far relative to future ones.
+     * Every score shrinks by the same factor, so no cached list has to change.
+     */
+    public synchronized void decay() {
+        boostWeight *= 2;
+        if (boostWeight > MAX_WEIGHT) {
+            for (int i = 0; i < wordCount; i++) {
+                score[i] /= boostWeight;
+            }
+            boostWeight = 1.0;
+        }
+    }
+
+    public synchronized double getScore(String word) {
+        int id = idOf(word);
+        return id == NONE ? 0 : score[id] / boostWeight;
+    }
+
+    /**
+     * Adds this trie's popularity scores to the same words in target, so a freshly built
+     * trie ranks like the one it replaces. Words target does not hold are skipped.
+     */
+    public void copyScoresTo(Trie target) {
+        String[] copied;
+        double[] scores;
+        synchronized (this) {
+            copied = Arrays.copyOf(words, wordCount);
+            scores = new double[wordCount];
+            for (int i = 0; i < wordCount; i++) {
+                scores[i] = score[i] / boostWeight;
+            }
+        }
+        target.addScores(copied, scores);
+    }
+
+    private synchronized void addScores(String[] copied, double[] scores) {
+        for (int i = 0; i < copied.length; i++) {
+            if (scores[i] <= 0) continue;
+            int id = idOf(copied[i]);
+            if (id == NONE) continue;
+            score[id] += scores[i] * boostWeight;
+            offerAlongPath(FoldedIndex.fold(copied[i]), id);
+        }
+    }
+
+    public boolean contains(String word) {
+        return idOf(word) != NONE;
+    }
+
+    public int size() {
+        return wordCount;
+    }
+
+    //Id of exactly this word (ignoring case), not of another that folds alike
+    private int idOf(String word) {
+        String lower = word.toLowerCase();
+        Nodes n = nodes;
+        int node = find(n.links, FoldedIndex.fold(lower));
+        if (node == NONE) return NONE;
+        int first = (int) INTS.getAcquire(n.wordId, node);
+        Words w = wordTable;
+        for (int id = first; id != NONE; id = w.sameKey[id]) {
+            if (w.words[id].equals(lower)) return id;
+        }
+        return NONE;
+    }
+
+    private static int find(int[] nodes, String key) {
+        int node = ROOT;
+        for (int i = 0; i < key.length() && node != NONE; i++) {
+            node = child(nodes, node, key.charAt(i));
         }
+        return node;
+    }
 
-        for (Map.Entry<Character, TrieNode> entry : node.children.entrySet()) {
-            dfs(entry.getValue(), currentPrefix + entry.getKey(), results);
+    private static int child(int[] nodes, int node, char c) {
+        // Siblings are kept sorted by label, so the scan can stop early
+        for (int n = firstChild(nodes, node); n != NONE; n = nextSibling(nodes, n)) {
+            int l = nodes[n * LINKS + LABEL];
+            if (l >= c) return l == c ? n : NONE;
         }
+        return NONE;
+    }
+
+    // Links are read with acquire, pairing with the release that links a new node in
+    private static int firstChild(int[] nodes, int node) {
+        return (int) INTS.getAcquire(nodes, node * LINKS + FIRST_CHILD);
+    }
+
+    private static int nextSibling(int[] nodes, int node) {
+        return (int) INTS.getAcquire(nodes, node * LINKS + NEXT_SIBLING);
+    }
+
+    private int childOrCreate(int node, char c) {
+        int prev = NONE;
+        int n = links[node * LINKS + FIRST_CHILD];
+        while (n != NONE && links[n * LINKS + LABEL] < c) {
+            prev = n;
+            n = links[n * LINKS + NEXT_SIBLING];
+        }
+        if (n != NONE && links[n * LINKS + LABEL] == c) return n;
+
+        int created = newNode(c);
+        links[created * LINKS + NEXT_SIBLING] = n;
+        // The new node is filled in before readers can reach it
+        if (prev == NONE) {
+            INTS.setRelease(links, node * LINKS + FIRST_CHILD, created);
+        } else {
+            INTS.setRelease(links, prev * LINKS + NEXT_SIBLING, created);
+        }
+        return created;
+    }
+
+    private int newNode(char c) {
+        if (nodeCount == wordId.length) {
+            int capacity = wordId.length * 2;
+            links = Arrays.copyOf(links, capacity * LINKS);
+            wordId = Arrays.copyOf(wordId, capacity);
+            topVersion = Arrays.copyOf(topVersion, capacity);
+            int oldTop = topK.length;
+            int[] grown = Arrays.copyOf(topK, capacity * MAX_SUGGESTIONS);
+            Arrays.fill(grown, oldTop, grown.length, NONE);
+            topK = grown;
+            nodes = new Nodes(links, wordId, topK, topVersion);
+        }
+        int node = nodeCount++;
+        links[node * LINKS + FIRST_CHILD] = NONE;
+        links[node * LINKS + NEXT_SIBLING] = NONE;
+        links[node * LINKS + LABEL] = c;
+        wordId[node] = NONE;
+        Arrays.fill(topK, node * MAX_SUGGESTIONS, (node + 1) * MAX_SUGGESTIONS, NONE);
+        return node;
+    }
+
+    private int addWord(String word) {
+        if (wordCount == words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+            score = Arrays.copyOf(score, score.length * 2);
+            sameKey = Arrays.copyOf(sameKey, sameKey.length * 2);
+            wordTable = new Words(words, score, sameKey);
+        }
+        words[wordCount] = word;
+        return wordCount++;
+    }
+
+    private void offerAlongPath(String key, int id) {
+        int node = ROOT;
+        offer(node, id);
+        for (int i = 0; i < key.length(); i++) {
+            node = child(links, node, key.charAt(i));
+            offer(node, id);
+        }
+    }
+
+    /**
+     * Inserts a word id into a node's cached completions if it ranks high enough,
+     * or moves it up if it is already listed. Only the offered word's score has
+     * changed and it only grows, so no other listed word ever has to move up.
+     */
+    private void offer(int node, int id) {
+        int base = node * MAX_SUGGESTIONS;
+        int existing = MAX_SUGGESTIONS;
+        for (int i = 0; i < MAX_SUGGESTIONS; i++) {
+            if (topK[base + i] == id) {
+                existing = i;
+                break;
+            }
+        }
+        int pos = existing;
+        while (pos > 0) {
+            int other = topK[base + pos - 1];
+            if (other != NONE && !ranksBefore(score, words, id, other)) break;
+            pos--;
+        }
+        if (pos == existing) return; // nothing changes
+
+        int version = topVersion[node];
+        INTS.setOpaque(topVersion, node, version + 1);
+        VarHandle.storeStoreFence();
+        // Shift [pos, existing) one slot down, dropping the last entry if id is new
+        int end = Math.min(existing, MAX_SUGGESTIONS - 1);
+        for (int i = end; i > pos; i--) {
+            INTS.setOpaque(topK, base + i, topK[base + i - 1]);
+        }
+        INTS.setOpaque(topK, base + pos, id);
+        INTS.setRelease(topVersion, node, version + 2);
+    }
+
+    private static boolean ranksBefore(double[] score, String[] words, int a, int b) {
+        if (score[a] != score[b]) return score[a] > score[b];
+        return words[a].compareTo(words[b]) < 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package com.example.smartdictionary;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoints, timeouts and protection limits for the external APIs
+ * (dictionaryapi.dev and MyMemory), read from application.properties.
+ */
+@Component
+public class UpstreamConfig {
+
+    private final String dictionaryApiUrl;
+    private final String translateApiUrl;
+    private final long connectTimeoutMs;
+    private final long requestTimeoutMs;
+    private final int maxConcurrent;
+    private final int failureThreshold;
+    private final long openMs;
+
+    public UpstreamConfig(
+            @Value("${smartdictionary.upstream.dictionary-api-url:https://api.dictionaryapi.dev/api/v2/entries/en/}") String dictionaryApiUrl,
+            @Value("${smartdictionary.upstream.translate-api-url:https://api.mymemory.translated.net/get}") String translateApiUrl,
+            @Value("${smartdictionary.upstream.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${smartdictionary.upstream.request-timeout-ms:5000}") long requestTimeoutMs,
+            @Value("${smartdictionary.upstream.max-concurrent:64}") int maxConcurrent,
+            @Value("${smartdictionary.upstream.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${smartdictionary.upstream.breaker.open-ms:30000}") long openMs) {
+        this.dictionaryApiUrl = dictionaryApiUrl;
+        this.translateApiUrl = translateApiUrl;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.requestTimeoutMs = requestTimeoutMs;
+        this.maxConcurrent = maxConcurrent;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    public static UpstreamConfig defaults() {
+        return new UpstreamConfig("https://api.dictionaryapi.dev/api/v2/entries/en/",
+                "https://api.mymemory.translated.net/get", 2000, 5000, 64, 5, 30000);
+    }
+
+    public UpstreamConfig withDictionaryApiUrl(String url) {
+        return new UpstreamConfig(url, translateApiUrl, connectTimeoutMs, requestTimeoutMs,
+                maxConcurrent, failureThreshold, openMs);
+    }
+
+    public UpstreamConfig withTranslateApiUrl(String url) {
+        return new UpstreamConfig(dictionaryApiUrl, url, connectTimeoutMs, requestTimeoutMs,
+                maxConcurrent, failureThreshold, openMs);
+    }
+
+    public UpstreamConfig withLimits(long requestTimeoutMs, int maxConcurrent, int failureThreshold, long openMs) {
+        return new UpstreamConfig(dictionaryApiUrl, translateApiUrl, connectTimeoutMs, requestTimeoutMs,
+                maxConcurrent, failureThreshold, openMs);
+    }
+
+    public String getDictionaryApiUrl() {
+        return dictionaryApiUrl;
+    }
+
+    public String getTranslateApiUrl() {
+        return translateApiUrl;
+    }
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public long getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getOpenMs() {
+        return openMs;
+    }
+
+    public UpstreamGuard newGuard(String name) {
+        return new UpstreamGuard(name, maxConcurrent, failureThreshold, openMs);
+    }
+}
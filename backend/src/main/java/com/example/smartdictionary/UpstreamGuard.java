@@ -0,0 +1,168 @@
+package com.example.smartdictionary;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Protects request threads from a slow or failing upstream API.
+ * At most maxConcurrent calls run at once (further calls are rejected, not queued),
+ * and after failureThreshold consecutive failures the circuit opens and calls fail
+ * immediately for openMs. After that a single trial call is let through; its outcome
+ * closes the circuit again or re-opens it.
+ */
+public class UpstreamGuard {
+
+    public static class RejectedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public RejectedException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+
+    private final String name;
+    private final Semaphore permits;
+    private final int failureThreshold;
+    private final long openMs;
+
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public UpstreamGuard(String name, int maxConcurrent, int failureThreshold, long openMs) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrent);
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    /**
+     * Starts the call if the circuit and concurrency limit allow it, otherwise returns
+     * a future failed with RejectedException. Exceptional completion, or a result that
+     * matches isFailure, counts as a failure.
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call, Predicate<T> isFailure) {
+        if (!allowCall()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new RejectedException(name + " circuit is open"));
+        }
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            releaseTrial();
+            return CompletableFuture.failedFuture(new RejectedException(name + " has too many calls in flight"));
+        }
+        calls.increment();
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, error) -> {
+            permits.release();
+            latency.recordSince(start);
+            if (error != null || isFailure.test(result)) {
+                onFailure();
+            } else {
+                onSuccess();
+            }
+        });
+    }
+
+    public String getState() {
+        switch (state.get()) {
+            case OPEN: return "open";
+            case HALF_OPEN: return "half-open";
+            default: return "closed";
+        }
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Time from starting an upstream call to its outcome, failures included;
+     * rejected calls are not timed.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Exports the call counters and latency, labelled with the upstream's name.
+     */
+    public void registerMetrics(MetricsRegistry metrics) {
+        metrics.counter("upstream_calls_total", "Calls started to an upstream API",
+                this::getCalls, "upstream", name);
+        metrics.counter("upstream_failures_total", "Upstream calls that failed or timed out",
+                this::getFailures, "upstream", name);
+        metrics.counter("upstream_rejected_total", "Upstream calls refused by the circuit breaker or concurrency limit",
+                this::getRejected, "upstream", name);
+        metrics.gauge("upstream_circuit_open", "1 while the circuit is open or half-open",
+                () -> state.get() == CLOSED ? 0 : 1, "upstream", name);
+        metrics.histogram("upstream_call_seconds", "Upstream call latency", latency, "upstream", name);
+    }
+
+    /**
+     * Adds circuit state and call counters to a stats map.
+     */
+    public void putStats(Map<String, Object> stats) {
+        stats.put("circuit", getState());
+        stats.put("upstreamCalls", getCalls());
+        stats.put("upstreamFailures", getFailures());
+        stats.put("upstreamRejected", getRejected());
+    }
+
+    private boolean allowCall() {
+        int s = state.get();
+        if (s == CLOSED) return true;
+        if (s == OPEN && System.currentTimeMillis() - openedAt.get() >= openMs) {
+            // Let exactly one trial call through
+            return state.compareAndSet(OPEN, HALF_OPEN);
+        }
+        return false;
+    }
+
+    private void releaseTrial() {
+        // A trial call that could not get a permit must not leave the circuit half-open
+        state.compareAndSet(HALF_OPEN, OPEN);
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        state.set(CLOSED);
+    }
+
+    private void onFailure() {
+        failures.increment();
+        if (state.get() == HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt.set(System.currentTimeMillis());
+            state.set(OPEN);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.smartdictionary;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Study state of one learner: search history, favorites, flashcard cursor,
+ * review schedule and not-remembered words. The flashcard deck is a fork of the shared deck, so a
+ * learner's deck only costs memory for the cards they added or removed.
+ *
+ * Changes go through the mutator methods below, which apply the change and then
+ * append it to the session journal (when persistence is on) under the session
+ * lock, so the journal holds each learner's changes in the order they happened.
+ * Replaying the same records with apply() rebuilds the same state.
+ */
+public class UserSession {
+
+    private final String userId;
+    private final HistoryStack history;
+    private final FavoriteWords favorites = new FavoriteWords();
+    //The shared deck of the dictionary being served, read on each deck access
+    private final Supplier<FlashcardList> sharedDecks;
+    //The shared deck flashcards was forked from
+    private volatile FlashcardList forkedFrom;
+    private volatile FlashcardList flashcards;
+    private final NotRememberedStack notRemembered = new NotRememberedStack();
+    //Ease, interval and due time of every card the learner has reviewed
+    private final ReviewScheduler scheduler = new ReviewScheduler();
+    //Definitions sent along with not-remembered words that are not in the dictionary
+    private final Map<String, String> customDefinitions = new ConcurrentHashMap<>();
+    //Cards added, removed or shuffled on this learner's fork, replayed onto the shared deck on restore;
+    //compacted as they are made, so the list grows with the cards changed, not with the edits
+    private final List<SessionJournal.Record> deckEdits = new ArrayList<>();
+    private volatile long lastAccess;
+    //Null while persistence is off or the session is being restored
+    private SessionJournal journal;
+    //LSN of the last journaled change to this session; 0 if it never changed
+    private long lastLsn;
+    //LSN the journal's file for this user covers; changes past it are saved by the next snapshot or eviction
+    private long savedLsn;
+    //Set once the store has dropped this session and the journal saved its state
+    private boolean evicted;
+
+    public UserSession(String userId, int historyMaxSize, FlashcardList sharedDeck) {
+        this(userId, historyMaxSize, () -> sharedDeck);
+    }
+
+    /**
+     * A session whose deck follows sharedDecks: when it returns a different deck (the
+     * dictionary finished loading or was reloaded), the learner's deck is forked from the
+     * new one on next use, with their own edits replayed on top.
+     */
+    public UserSession(String userId, int historyMaxSize, Supplier<FlashcardList> sharedDecks) {
+        this.userId = userId;
+        this.history = new HistoryStack(historyMaxSize);
+        this.sharedDecks = sharedDecks;
+        this.forkedFrom = sharedDecks.get();
+        this.flashcards = forkedFrom.fork();
+        this.lastAccess = System.currentTimeMillis();
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public HistoryStack getHistory() {
+        return history;
+    }
+
+    public FavoriteWords getFavorites() {
+        return favorites;
+    }
+
+    public FlashcardList getFlashcards() {
+        followSharedDeck();
+        return flashcards;
+    }
+
+    /**
+     * Moves the deck onto the current shared deck if that has changed. Cheap when it has
+     * not; a reload calls it for every session so none keeps the old deck alive.
+     */
+    void followSharedDeck() {
+        FlashcardList shared = sharedDecks.get();
+        if (shared != forkedFrom) {
+            synchronized (this) {
+                if (shared != forkedFrom) rebase(shared);
+            }
+        }
+    }
+
+    public NotRememberedStack getNotRemembered() {
+        return notRemembered;
+    }
+
+    public ReviewScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public Map<String, String> getCustomDefinitions() {
+        return customDefinitions;
+    }
+
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    public synchronized void addFavorite(WordItem item) {
+        record(new SessionJournal.Record(SessionJournal.FAVORITE_ADD, userId, item.getWord(), item.getDefinition(), 0));
+    }
+
+    public synchronized boolean removeFavorite(String word) {
+        if (!favorites.isFavorite(word)) return false;
+        record(new SessionJournal.Record(SessionJournal.FAVORITE_REMOVE, userId, word, null, 0));
+        return true;
+    }
+
+    public synchronized void pushHistory(String word) {
+        record(new SessionJournal.Record(SessionJournal.HISTORY_PUSH, userId, word, null, 0));
+    }
+
+    public synchronized void pushNotRemembered(String word) {
+        record(new SessionJournal.Record(SessionJournal.NOT_REMEMBERED_PUSH, userId, word, null, 0));
+    }
+
+    public synchronized boolean removeNotRemembered(String word) {
+        if (!notRemembered.getPending().contains(word)) return false;
+        record(new SessionJournal.Record(SessionJournal.NOT_REMEMBERED_REMOVE, userId, word, null, 0));
+        return true;
+    }
+
+    public synchronized void putCustomDefinition(String word, String definition) {
+        record(new SessionJournal.Record(SessionJournal.DEFINITION_PUT, userId, word, definition, 0));
+    }
+
+    public synchronized void removeCustomDefinition(String word) {
+        if (!customDefinitions.containsKey(word)) return;
+        record(new SessionJournal.Record(SessionJournal.DEFINITION_REMOVE, userId, word, null, 0));
+    }
+
+    /**
+     * Reviews a card at time now; replaying the record recomputes the same SM-2 state.
+     */
+    public synchronized ReviewScheduler.CardState review(String word, boolean remembered, long now) {
+        record(new SessionJournal.Record(remembered ? SessionJournal.REVIEW_REMEMBERED : SessionJournal.REVIEW_FORGOTTEN,
+                userId, word, null, now));
+        return scheduler.get(word);
+    }
+
+    /**
+     * Moves the deck cursor one card forward and returns the card it was on.
+     */
+    public synchronized FlashcardList.CardNode advanceDeck() {
+        FlashcardList deck = getFlashcards();
+        FlashcardList.CardNode card = deck.getNext();
+        if (card != null) {
+            journal(new SessionJournal.Record(SessionJournal.DECK_CURSOR, userId, null, null, deck.getCursor()));
+        }
+        return card;
+    }
+
+    /**
+     * The first card from the cursor on that is not on the review schedule, without moving
+     * the cursor; the card under the cursor if every card is scheduled. Each card passed
+     * over is scheduled, so at most scheduler.size() + 1 cards are looked at.
+     */
+    public synchronized FlashcardList.CardNode nextNewCard() {
+        FlashcardList deck = getFlashcards();
+        int size = deck.getSize();
+        int at = deck.getCursor();
+        for (int i = 0, n = Math.min(size, scheduler.size() + 1); i < n; i++) {
+            FlashcardList.CardNode card = deck.get(at);
+            if (!scheduler.isScheduled(card.word)) return card;
+            at = at + 1 == size ? 0 : at + 1;
+        }
+        return deck.getCurrent();
+    }
+
+    /**
+     * Moves the deck cursor to the card after word, as one journaled change.
+     */
+    public synchronized void moveDeckPast(String word) {
+        FlashcardList deck = getFlashcards();
+        int index = deck.indexOf(word);
+        if (index < 0) return;
+        jumpToCard(index + 1 == deck.getSize() ? 0 : index + 1);
+    }
+
+    public synchronized FlashcardList.CardNode jumpToCard(int index) {
+        FlashcardList.CardNode card = getFlashcards().jumpTo(index);
+        if (card != null) {
+            journal(new SessionJournal.Record(SessionJournal.DECK_CURSOR, userId, null, null, index));
+        }
+        return card;
+    }
+
+    public synchronized boolean addCard(String word, String definition) {
+        if (getFlashcards().contains(word)) return false;
+        record(new SessionJournal.Record(SessionJournal.DECK_ADD, userId, word, definition, 0));
+        return true;
+    }
+
+    public synchronized boolean removeCard(String word) {
+        if (!getFlashcards().contains(word)) return false;
+        record(new SessionJournal.Record(SessionJournal.DECK_REMOVE, userId, word, null, 0));
+        return true;
+    }
+
+    /**
+     * Shuffles the deck by seed, so the shuffle can be replayed.
+     */
+    public synchronized void shuffleDeck(long seed) {
+        record(new SessionJournal.Record(SessionJournal.DECK_SHUFFLE, userId, null, null, seed));
+    }
+
+    /**
+     * Applies a batch of imported changes under one lock, each journaled as if it had
+     * been made on its own. Cards already in the deck are skipped. Returns the number
+     * of changes applied.
+     */
+    synchronized int importBatch(List<SessionJournal.Record> changes) {
+        int applied = 0;
+        for (SessionJournal.Record change : changes) {
+            switch (change.op) {
+                case SessionJournal.FAVORITE_ADD, SessionJournal.HISTORY_PUSH,
+                     SessionJournal.NOT_REMEMBERED_PUSH, SessionJournal.DEFINITION_PUT -> { }
+                case SessionJournal.DECK_ADD -> {
+                    if (getFlashcards().contains(change.word)) continue;
+                }
+                default -> throw new IllegalArgumentException("Not an importable change " + change.op);
+            }
+            record(change);
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * Applies one change without journaling it. Used by the mutators and by replay.
+     */
+    synchronized void apply(SessionJournal.Record change) {
+        FlashcardList flashcards = getFlashcards();
+        switch (change.op) {
+            case SessionJournal.FAVORITE_ADD -> favorites.add(new WordItem(change.word, change.text));
+            case SessionJournal.FAVORITE_REMOVE -> favorites.remove(change.word);
+            case SessionJournal.HISTORY_PUSH -> history.push(change.word);
+            case SessionJournal.NOT_REMEMBERED_PUSH -> notRemembered.push(change.word);
+            case SessionJournal.NOT_REMEMBERED_REMOVE -> notRemembered.remove(change.word);
+            case SessionJournal.DEFINITION_PUT -> customDefinitions.put(change.word, change.text);
+            case SessionJournal.DEFINITION_REMOVE -> customDefinitions.remove(change.word);
+            case SessionJournal.REVIEW_REMEMBERED -> scheduler.review(change.word, true, change.number);
+            case SessionJournal.REVIEW_FORGOTTEN -> scheduler.review(change.word, false, change.number);
+            case SessionJournal.DECK_CURSOR -> flashcards.jumpTo((int) change.number);
+            case SessionJournal.DECK_ADD -> {
+                if (flashcards.add(change.word, change.text)) deckEdits.add(change);
+            }
+            case SessionJournal.DECK_REMOVE -> {
+                if (flashcards.remove(change.word)) recordRemove(change);
+            }
+            case SessionJournal.DECK_SHUFFLE -> recordShuffle(change);
+            default -> throw new IllegalArgumentException("Unknown change " + change.op);
+        }
+    }
+
+    // A card added since the last shuffle and removed again leaves no edit behind: the add
+    // only succeeded because the card was missing, and no shuffle has placed it since
+    private void recordRemove(SessionJournal.Record change) {
+        for (int i = deckEdits.size() - 1; i >= 0; i--) {
+            SessionJournal.Record edit = deckEdits.get(i);
+            if (edit.op == SessionJournal.DECK_SHUFFLE) break;
+            if (edit.op == SessionJournal.DECK_ADD && edit.word.equals(change.word)) {
+                deckEdits.remove(i);
+                return;
+            }
+        }
+        deckEdits.add(change);
+    }
+
+    // A shuffle orders the deck afresh, so the edits before it are folded into the fewest
+    // that leave the same cards: the shared cards removed, then the added cards in the
+    // order they were last added. Earlier shuffles drop out. The deck is rebuilt from the
+    // folded edits, so it is exactly what replaying them gives.
+    private void recordShuffle(SessionJournal.Record change) {
+        Set<String> touched = new HashSet<>();
+        Set<String> removedShared = new LinkedHashSet<>();
+        Map<String, SessionJournal.Record> added = new LinkedHashMap<>();
+        for (SessionJournal.Record edit : deckEdits) {
+            // A word first seen being removed was a shared card; one first seen being added was not
+            boolean first = edit.op != SessionJournal.DECK_SHUFFLE && touched.add(edit.word);
+            switch (edit.op) {
+                case SessionJournal.DECK_ADD -> {
+                    added.remove(edit.word);
+                    added.put(edit.word, edit);
+                }
+                case SessionJournal.DECK_REMOVE -> {
+                    if (first) removedShared.add(edit.word);
+                    added.remove(edit.word);
+                }
+                default -> { }
+            }
+        }
+        List<SessionJournal.Record> folded = new ArrayList<>(removedShared.size() + added.size() + 1);
+        for (String word : removedShared) {
+            folded.add(new SessionJournal.Record(SessionJournal.DECK_REMOVE, userId, word, null, 0));
+        }
+        folded.addAll(added.values());
+        folded.add(change);
+        deckEdits.clear();
+        deckEdits.addAll(folded);
+        flashcards = replayDeckEdits(forkedFrom);
+    }
+
+    // Forks the new shared deck and replays this learner's deck edits onto it; the cursor
+    // keeps its position where the new deck is long enough
+    private void rebase(FlashcardList shared) {
+        int cursor = flashcards.getCursor();
+        FlashcardList deck = replayDeckEdits(shared);
+        deck.jumpTo(cursor < deck.getSize() ? cursor : 0);
+        flashcards = deck;
+        forkedFrom = shared;
+    }
+
+    private FlashcardList replayDeckEdits(FlashcardList shared) {
+        FlashcardList deck = shared.fork();
+        for (SessionJournal.Record change : deckEdits) {
+            switch (change.op) {
+                case SessionJournal.DECK_ADD -> deck.add(change.word, change.text);
+                case SessionJournal.DECK_REMOVE -> deck.remove(change.word);
+                case SessionJournal.DECK_SHUFFLE -> deck.shuffle(change.number);
+                default -> { }
+            }
+        }
+        return deck;
+    }
+
+    synchronized List<SessionJournal.Record> getDeckEdits() {
+        return new ArrayList<>(deckEdits);
+    }
+
+    synchronized long getLastLsn() {
+        return lastLsn;
+    }
+
+    /**
+     * Starts journaling changes; lsn is the last change already reflected in this session.
+     */
+    synchronized void attach(SessionJournal journal, long lsn) {
+        this.journal = journal;
+        this.lastLsn = lsn;
+    }
+
+    synchronized long getSavedLsn() {
+        return savedLsn;
+    }
+
+    /**
+     * Notes that the journal's file for this user holds every change through lsn.
+     */
+    synchronized void markSaved(long lsn) {
+        savedLsn = Math.max(savedLsn, lsn);
+    }
+
+    synchronized void markEvicted() {
+        evicted = true;
+    }
+
+    synchronized boolean isEvicted() {
+        return evicted;
+    }
+
+    private void record(SessionJournal.Record change) {
+        apply(change);
+        journal(change);
+    }
+
+    private void journal(SessionJournal.Record change) {
+        if (journal != null) {
+            lastLsn = journal.append(this, change);
+        }
+    }
+
+    void touch(long now) {
+        // Skip the volatile write when nothing observable changes
+        if (now != lastAccess) {
+            lastAccess = now;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.smartdictionary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of opaque records, split into numbered segment files.
+ * append() only buffers the record and returns its sequence number (LSN); a
+ * background writer thread writes everything buffered so far in one go and calls
+ * fsync once for the whole batch (group commit). commitDelayMs lets a batch wait
+ * a little for more records, trading latency for fewer fsyncs.
+ *
+ * Frame layout: int payload length, int CRC32 of (lsn, payload), long lsn, payload.
+ * On open, a torn or corrupt frame at the end of the newest segment (a crash in the
+ * middle of a write) is cut off; anything after it was never acknowledged as durable.
+ *
+ * If a write or fsync fails (disk full, I/O error) the log stops: what was buffered is
+ * dropped, and every later append() throws instead of buffering records that would
+ * never reach the disk. getWriteError() reports the failure.
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final int FRAME_HEADER = 16;
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final long commitDelayMs;
+
+    //Guards the append buffer and LSN counters
+    private final Object lock = new Object();
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private long nextLsn;
+    private long durableLsn;
+    private IOException writeError;
+    private boolean closed;
+
+    //Guards the open segment
+    private final Object io = new Object();
+    private FileChannel channel;
+    private long segmentId;
+    private volatile long segmentBytes;
+
+    private final Thread writer;
+    private volatile long syncs;
+
+    private WriteAheadLog(Path dir, long commitDelayMs, long nextLsn, long segmentId) throws IOException {
+        this.dir = dir;
+        this.commitDelayMs = commitDelayMs;
+        this.nextLsn = nextLsn;
+        this.durableLsn = nextLsn - 1;
+        this.segmentId = segmentId;
+        this.channel = openSegment(segmentId);
+        this.writer = new Thread(this::writeLoop, "wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Replays every intact record in dir, oldest first, then opens a fresh segment
+     * for appends. LSNs continue after the highest one seen, and never go below firstLsn.
+     */
+    public static WriteAheadLog open(Path dir, long commitDelayMs, long firstLsn,
+                                     ObjLongConsumer<byte[]> replay) throws IOException {
+        Files.createDirectories(dir);
+        List<Long> ids = segmentIds(dir);
+        long lastLsn = firstLsn - 1;
+        for (int i = 0; i < ids.size(); i++) {
+            boolean newest = i == ids.size() - 1;
+            lastLsn = Math.max(lastLsn, replaySegment(dir.resolve(segmentName(ids.get(i))), newest, replay));
+        }
+        long nextSegment = ids.isEmpty() ? 1 : ids.get(ids.size() - 1) + 1;
+        return new WriteAheadLog(dir, commitDelayMs, lastLsn + 1, nextSegment);
+    }
+
+    /**
+     * Buffers one record and returns its LSN. Does not touch the disk. Throws
+     * UncheckedIOException once a write has failed.
+     */
+    public long append(byte[] payload) {
+        CRC32 crc = new CRC32();
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+        synchronized (lock) {
+            if (closed) throw new IllegalStateException("Write-ahead log is closed");
+            if (writeError != null) throw new UncheckedIOException("Write-ahead log failed", writeError);
+            long lsn = nextLsn++;
+            crc.update(ByteBuffer.allocate(8).putLong(0, lsn));
+            crc.update(payload);
+            header.putInt(payload.length).putInt((int) crc.getValue()).putLong(lsn);
+            buffer.write(header.array(), 0, FRAME_HEADER);
+            buffer.write(payload, 0, payload.length);
+            lock.notifyAll();
+            return lsn;
+        }
+    }
+
+    /**
+     * Blocks until the record with this LSN (and all before it) is on disk.
+     */
+    public void awaitDurable(long lsn) throws IOException, InterruptedException {
+        synchronized (lock) {
+            while (durableLsn < lsn) {
+                if (writeError != null) throw writeError;
+                if (closed && buffer.size() == 0 && durableLsn < lsn) {
+                    throw new IOException("Write-ahead log closed before LSN " + lsn + " was written");
+                }
+                lock.wait();
+            }
+        }
+    }
+
+    /**
+     * Blocks until everything appended so far is on disk.
+     */
+    public void sync() throws IOException, InterruptedException {
+        long last;
+        synchronized (lock) {
+            last = nextLsn - 1;
+        }
+        awaitDurable(last);
+    }
+
+    public long lastLsn() {
+        synchronized (lock) {
+            return nextLsn - 1;
+        }
+    }
+
+    public long durableLsn() {
+        synchronized (lock) {
+            return durableLsn;
+        }
+    }
+
+    /**
+     * Number of fsync calls so far; with group commit this is far below the record count.
+     */
+    public long getSyncs() {
+        return syncs;
+    }
+
+    public long getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    /**
+     * The failure that stopped the log, or null while it is writing.
+     */
+    public IOException getWriteError() {
+        synchronized (lock) {
+            return writeError;
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one. Returns the id of the closed
+     * segment; every record appended before this call is in it or an earlier one,
+     * or in the new segment if it was still buffered.
+     */
+    public long roll() throws IOException {
+        synchronized (io) {
+            channel.force(false);
+            channel.close();
+            long closedId = segmentId;
+            segmentId++;
+            channel = openSegment(segmentId);
+            segmentBytes = 0;
+            return closedId;
+        }
+    }
+
+    /**
+     * Deletes segments up to and including id, once a snapshot covers them.
+     */
+    public void deleteThrough(long id) throws IOException {
+        for (long existing : segmentIds(dir)) {
+            if (existing <= id) {
+                Files.deleteIfExists(dir.resolve(segmentName(existing)));
+            }
+        }
+    }
+
+    /**
+     * Writes and syncs whatever is buffered, then stops the writer.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) return;
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (io) {
+            channel.close();
+        }
+        synchronized (lock) {
+            if (writeError != null) throw writeError;
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            synchronized (lock) {
+                while (buffer.size() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (buffer.size() == 0) return; // closed and drained
+            }
+            if (commitDelayMs > 0 && !isClosed()) {
+                try {
+                    Thread.sleep(commitDelayMs); // let more records join this commit
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+
+            byte[] batch;
+            long upTo;
+            synchronized (lock) {
+                batch = buffer.toByteArray();
+                buffer = new ByteArrayOutputStream(Math.max(32, batch.length));
+                upTo = nextLsn - 1;
+            }
+            try {
+                synchronized (io) {
+                    ByteBuffer data = ByteBuffer.wrap(batch);
+                    while (data.hasRemaining()) {
+                        channel.write(data);
+                    }
+                    channel.force(false);
+                    segmentBytes += batch.length;
+                }
+                syncs++;
+                synchronized (lock) {
+                    durableLsn = upTo;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    writeError = e;
+                    // Nothing more will be written; do not hold on to records that never will be
+                    buffer = new ByteArrayOutputStream();
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean isClosed() {
+        synchronized (lock) {
+            return closed;
+        }
+    }
+
+    private FileChannel openSegment(long id) throws IOException {
+        return FileChannel.open(dir.resolve(segmentName(id)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Returns the highest LSN replayed from the segment
+    private static long replaySegment(Path file, boolean newest, ObjLongConsumer<byte[]> replay) throws IOException {
+        long lastLsn = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+            while (position < size) {
+                header.clear();
+                int length = -1;
+                long lsn = 0;
+                byte[] payload = null;
+                if (size - position >= FRAME_HEADER && readFully(in, header, position)) {
+                    header.flip();
+                    length = header.getInt();
+                    int expectedCrc = header.getInt();
+                    lsn = header.getLong();
+                    if (length >= 0 && length <= size - position - FRAME_HEADER) {
+                        ByteBuffer body = ByteBuffer.allocate(length);
+                        if (readFully(in, body, position + FRAME_HEADER)) {
+                            payload = body.array();
+                            CRC32 crc = new CRC32();
+                            crc.update(ByteBuffer.allocate(8).putLong(0, lsn));
+                            crc.update(payload);
+                            if ((int) crc.getValue() != expectedCrc) payload = null;
+                        }
+                    }
+                }
+                if (payload == null) {
+                    if (!newest) {
+                        throw new IOException("Corrupt record in " + file + " at offset " + position);
+                    }
+                    // Torn write at the tail: drop it so the next run does not trip on it either
+                    in.truncate(position);
+                    in.force(true);
+                    break;
+                }
+                replay.accept(payload, lsn);
+                lastLsn = lsn;
+                position += FRAME_HEADER + length;
+            }
+        }
+        return lastLsn;
+    }
+
+    private static boolean readFully(FileChannel in, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int n = in.read(target, position + target.position());
+            if (n < 0) return false;
+        }
+        return true;
+    }
+
+    private static List<Long> segmentIds(Path dir) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    ids.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private static String segmentName(long id) {
+        return String.format("%s%016d%s", PREFIX, id, SUFFIX);
+    }
+}
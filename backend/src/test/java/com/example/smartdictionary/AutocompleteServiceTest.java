@@ -0,0 +1,156 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for /suggest/ws sessions: answers match /suggest, bursts are debounced to one
+ * answer for the latest prefix, and a reload moves open sessions to the new trie.
+ */
+class AutocompleteServiceTest {
+
+    private static final class Answer {
+        final long seq;
+        final String prefix;
+        final List<String> suggestions;
+
+        Answer(long seq, String prefix, List<String> suggestions) {
+            this.seq = seq;
+            this.prefix = prefix;
+            this.suggestions = suggestions;
+        }
+    }
+
+    private final BlockingQueue<Answer> answers = new LinkedBlockingQueue<>();
+    private AutocompleteService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.shutdown();
+    }
+
+    private Answer next() throws InterruptedException {
+        Answer answer = answers.poll(10, TimeUnit.SECONDS);
+        assertTrue(answer != null, "no answer");
+        return answer;
+    }
+
+    private static Trie trie(String... words) {
+        Trie trie = new Trie();
+        for (String word : words) {
+            trie.insert(word);
+        }
+        return trie;
+    }
+
+    @Test
+    void lookupsMatchSuggestWithAndWithoutTypos() throws Exception {
+        ControllerTestSupport.with(null, controller -> {
+            service = new AutocompleteService(controller::currentTrie, 0, 1, new MetricsRegistry());
+            AutocompleteService.Session session = service.open((seq, prefix, suggestions) -> {});
+
+            Random random = new Random(17);
+            List<String> words = new ArrayList<>(controller.currentTrie().searchPrefix(""));
+            for (char c = 'a'; c <= 'z'; c++) {
+                words.addAll(controller.suggest(String.valueOf(c), 0));
+            }
+            // Type each word with the odd typo and backspace, comparing every keystroke
+            for (String word : words) {
+                StringBuilder typed = new StringBuilder();
+                for (int i = 0; i < word.length(); i++) {
+                    typed.append(random.nextInt(8) == 0 ? 'x' : word.charAt(i));
+                    if (random.nextInt(6) == 0) typed.setLength(typed.length() - 1);
+                    for (int fuzzy : new int[] {0, 2}) {
+                        assertEquals(controller.suggest(typed.toString(), fuzzy),
+                                session.lookup(typed.toString(), fuzzy), typed + " fuzzy=" + fuzzy);
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    void aBurstOfKeystrokesGetsOneAnswerForTheLatest() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        Trie trie = trie("apple", "apricot", "banana");
+        service = new AutocompleteService(() -> trie, 200, 1, metrics);
+        AutocompleteService.Session session = service.open(
+                (seq, prefix, suggestions) -> answers.add(new Answer(seq, prefix, suggestions)));
+
+        session.keystroke(1, "a", 0);
+        session.keystroke(2, "ap", 0);
+        session.keystroke(3, "apr", 0);
+        Answer answer = next();
+        assertEquals(3, answer.seq);
+        assertEquals("apr", answer.prefix);
+        assertEquals(List.of("apricot"), answer.suggestions);
+        assertEquals(null, answers.poll(300, TimeUnit.MILLISECONDS));
+
+        // A later burst is answered on its own
+        session.keystroke(4, "b", 0);
+        assertEquals(List.of("banana"), next().suggestions);
+        // The answer is counted just after it is sent
+        ControllerTestSupport.await(() -> metrics.scrape().contains("autocomplete_answers_total 2"), 1_000);
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("autocomplete_keystrokes_total 4"), scrape);
+        assertTrue(scrape.contains("autocomplete_superseded_total 2"), scrape);
+        assertTrue(scrape.contains("autocomplete_answers_total 2"), scrape);
+    }
+
+    @Test
+    void aKeystrokeDuringALookupSupersedesItsAnswer() throws Exception {
+        AtomicReference<AutocompleteService.Session> session = new AtomicReference<>();
+        AtomicBoolean typedOn = new AtomicBoolean();
+        Trie trie = trie("apple", "apricot");
+        // The next keystroke arrives while the first lookup is running
+        service = new AutocompleteService(() -> {
+            if (typedOn.compareAndSet(false, true)) {
+                session.get().keystroke(2, "apr", 0);
+            }
+            return trie;
+        }, 0, 1, new MetricsRegistry());
+        session.set(service.open((seq, prefix, suggestions) -> answers.add(new Answer(seq, prefix, suggestions))));
+        session.get().keystroke(1, "app", 0);
+
+        Answer answer = next();
+        assertEquals(2, answer.seq);
+        assertEquals(List.of("apricot"), answer.suggestions);
+        assertEquals(null, answers.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void sessionsFollowAReloadedTrie() throws Exception {
+        AtomicReference<Trie> current = new AtomicReference<>(trie("apple"));
+        service = new AutocompleteService(current::get, 0, 1, new MetricsRegistry());
+        AutocompleteService.Session session = service.open((seq, prefix, suggestions) -> {});
+        assertEquals(List.of("apple"), session.lookup("ap", 0));
+        current.set(trie("apricot"));
+        assertEquals(List.of("apricot"), session.lookup("ap", 0));
+    }
+
+    @Test
+    void aFailedSendClosesTheSession() throws Exception {
+        Trie trie = trie("apple");
+        service = new AutocompleteService(() -> trie, 0, 1, new MetricsRegistry());
+        AutocompleteService.Session session = service.open((seq, prefix, suggestions) -> {
+            throw new IOException("gone");
+        });
+        assertEquals(1, service.connections());
+        session.keystroke(1, "a", 0);
+        assertTrue(ControllerTestSupport.await(session::isClosed, 10_000));
+        assertEquals(0, service.connections());
+    }
+}
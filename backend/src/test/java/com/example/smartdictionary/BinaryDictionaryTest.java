@@ -0,0 +1,90 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class BinaryDictionaryTest {
+
+    private static BinaryDictionary roundTrip(Map<String, String> entries) throws IOException {
+        Path file = Files.createTempFile("dictionary", ".sdict");
+        try {
+            BinaryDictionary.write(entries, file);
+            return BinaryDictionary.open(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void lookup_findsEveryKeyAndNothingElse() throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            entries.put("word" + i, "definition of word " + i);
+        }
+        BinaryDictionary dictionary = roundTrip(entries);
+
+        assertEquals(5000, dictionary.size());
+        for (Map.Entry<String, String> e : entries.entrySet()) {
+            assertEquals(e.getValue(), dictionary.get(e.getKey()));
+        }
+        assertNull(dictionary.get("word5000"));
+        assertNull(dictionary.get("word"));
+        assertFalse(dictionary.containsKey(""));
+        assertEquals(entries, dictionary);
+    }
+
+    @Test
+    void keys_areSortedByUtf8Bytes() throws IOException {
+        Map<String, String> entries = Map.of("zebra", "z", "café", "c", "cafe", "plain", "über", "u", "apple", "a");
+        BinaryDictionary dictionary = roundTrip(entries);
+
+        assertEquals("apple", dictionary.keyAt(0));
+        assertEquals("cafe", dictionary.keyAt(1));
+        assertEquals("café", dictionary.keyAt(2));
+        assertEquals("zebra", dictionary.keyAt(3));
+        assertEquals("über", dictionary.keyAt(4));
+        assertEquals("c", dictionary.get("café"));
+        assertEquals("plain", dictionary.get("cafe"));
+    }
+
+    @Test
+    void emptyDictionary() throws IOException {
+        BinaryDictionary dictionary = roundTrip(Map.of());
+        assertEquals(0, dictionary.size());
+        assertNull(dictionary.get("apple"));
+        assertTrue(dictionary.entrySet().isEmpty());
+    }
+
+    @Test
+    void open_rejectsOtherFiles() throws IOException {
+        Path file = Files.createTempFile("dictionary", ".json");
+        try {
+            Files.writeString(file, "{\"apple\": \"A fruit\"}");
+            assertThrows(IllegalArgumentException.class, () -> BinaryDictionary.open(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void converter_matchesBundledJson() throws IOException {
+        Map<String, String> json;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("dictionary.json")) {
+            json = DictionaryLoader.readJson(in);
+        }
+        assertTrue(json.size() > 100);
+        assertEquals(json, roundTrip(json));
+    }
+}
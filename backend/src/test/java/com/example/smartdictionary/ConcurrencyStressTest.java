@@ -0,0 +1,135 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hammers the shared controller data structures from many threads and checks
+ * that no update is lost or duplicated.
+ */
+class ConcurrencyStressTest {
+
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 5_000;
+
+    @Test
+    void favorites_keepEveryConcurrentAdd() throws Exception {
+        FavoriteWords favorites = new FavoriteWords();
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                favorites.add(new WordItem("w" + t + "-" + i, "def"));
+            }
+        });
+        assertEquals(THREADS * OPS_PER_THREAD, favorites.list().size());
+        assertTrue(favorites.isFavorite("w3-4999"));
+    }
+
+    @Test
+    void flashcards_cursorHandsOutEveryCardExactlyOncePerLap() throws Exception {
+        FlashcardList list = new FlashcardList();
+        int cards = 100;
+        for (int i = 0; i < cards; i++) {
+            list.add("card" + i, "def" + i);
+        }
+        Map<String, AtomicInteger> seen = new ConcurrentHashMap<>();
+        NotRememberedStack notRemembered = new NotRememberedStack();
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                if (i % 2 == 0) {
+                    FlashcardList.CardNode card = list.getNext();
+                    seen.computeIfAbsent(card.word, k -> new AtomicInteger()).incrementAndGet();
+                } else {
+                    list.reviewCurrent(true, notRemembered);
+                }
+            }
+        });
+        // THREADS * OPS_PER_THREAD advances is a whole number of laps, half via getNext
+        assertEquals("card0", list.getCurrent().word);
+        int total = seen.values().stream().mapToInt(AtomicInteger::get).sum();
+        assertEquals(THREADS * OPS_PER_THREAD / 2, total);
+    }
+
+    @Test
+    void flashcards_concurrentAddsAreAllLinked() throws Exception {
+        FlashcardList list = new FlashcardList();
+        runConcurrently(t -> {
+            for (int i = 0; i < 200; i++) {
+                list.add("w" + t + "-" + i, "def");
+            }
+        });
+        assertEquals(THREADS * 200, list.getSize());
+        Set<String> words = new HashSet<>();
+        for (int i = 0; i < THREADS * 200; i++) {
+            words.add(list.getNext().word);
+        }
+        assertEquals(THREADS * 200, words.size());
+    }
+
+    @Test
+    void notRemembered_keepsEveryConcurrentPush() throws Exception {
+        NotRememberedStack stack = new NotRememberedStack();
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                stack.push("w" + t + "-" + i);
+            }
+        });
+        List<String> pending = stack.getPending();
+        assertEquals(THREADS * OPS_PER_THREAD, pending.size());
+        assertEquals(THREADS * OPS_PER_THREAD, new HashSet<>(pending).size());
+    }
+
+    @Test
+    void history_staysDedupedAndCappedUnderContention() throws Exception {
+        HistoryStack history = new HistoryStack();
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                history.push("w" + (i % 150));
+            }
+        });
+        history.push("last");
+        List<String> words = history.getHistory();
+        assertNotNull(words);
+        assertEquals("last", words.get(0));
+        assertEquals(words.size(), new HashSet<>(words).size());
+        assertTrue(words.size() <= 100);
+    }
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int id = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                worker.run(id);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+}
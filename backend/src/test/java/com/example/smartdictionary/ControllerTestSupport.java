@@ -0,0 +1,76 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Starts DictionaryControllers for tests with the application's defaults, and waits for
+ * state that settles in the background.
+ */
+final class ControllerTestSupport {
+
+    private static final long READY_TIMEOUT_MS = 10_000;
+
+    interface Body {
+        void run(DictionaryController controller) throws Exception;
+    }
+
+    private ControllerTestSupport() {
+    }
+
+    /**
+     * A controller on dictionary (the bundled one if null) that has not been started.
+     */
+    static DictionaryController create(Path dictionary, PersistenceConfig persistence) {
+        return new DictionaryController(100, 100, 30, dictionary != null ? dictionary.toString() : "",
+                UpstreamConfig.defaults(), persistence, new MetricsRegistry());
+    }
+
+    /**
+     * A started controller on dictionary (the bundled one if null), once it is ready.
+     * The caller shuts it down.
+     */
+    static DictionaryController start(Path dictionary) throws InterruptedException {
+        return start(dictionary, PersistenceConfig.defaults());
+    }
+
+    static DictionaryController start(Path dictionary, PersistenceConfig persistence) throws InterruptedException {
+        DictionaryController controller = create(dictionary, persistence);
+        controller.init();
+        if (!controller.awaitReady(READY_TIMEOUT_MS)) {
+            controller.shutdown();
+            fail("Dictionary did not load: " + controller.readiness().getBody());
+        }
+        return controller;
+    }
+
+    /**
+     * Runs body against a ready controller on dictionary and shuts it down afterwards.
+     */
+    static void with(Path dictionary, Body body) throws Exception {
+        with(dictionary, PersistenceConfig.defaults(), body);
+    }
+
+    static void with(Path dictionary, PersistenceConfig persistence, Body body) throws Exception {
+        DictionaryController controller = start(dictionary, persistence);
+        try {
+            body.run(controller);
+        } finally {
+            controller.shutdown();
+        }
+    }
+
+    /**
+     * Polls condition until it holds or timeoutMs passes; returns whether it held.
+     */
+    static boolean await(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() >= deadline) return false;
+            Thread.sleep(5);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for tokenizing, posting list encoding and BM25 ranking in DefinitionIndex.
+ */
+class DefinitionIndexTest {
+
+    private static List<String> words(List<DefinitionIndex.Hit> hits) {
+        List<String> words = new ArrayList<>();
+        for (DefinitionIndex.Hit hit : hits) {
+            words.add(hit.getWord());
+        }
+        return words;
+    }
+
+    @Test
+    void tokenizeLowercasesDropsStopwordsAndFoldsPlurals() {
+        assertEquals(List.of("juicy", "fruit", "berry", "glass", "bus", "king", "jungle", "3d"),
+                DefinitionIndex.tokenize("Juicy FRUITS, berries; the glass of a bus. 'King of the Jungle' x 3D"));
+    }
+
+    @Test
+    void stopwordsAreDroppedBeforeStemming() {
+        assertEquals(List.of("dog", "barking", "bark"), DefinitionIndex.tokenize("This dog was barking. Is this its bark?"));
+        DefinitionIndex index = new DefinitionIndex.Builder()
+                .add("this", "Used to point at something close by.")
+                .add("that", "Used to point at something further away.")
+                .build();
+        assertEquals(List.of(), index.search("this", 10));
+        assertEquals(List.of("this"), words(index.search("close", 10)));
+    }
+
+    @Test
+    void findsEveryDefinitionMentioningATerm() {
+        DefinitionIndex index = new DefinitionIndex.Builder()
+                .add("apple", "A round fruit with red or green skin.")
+                .add("banana", "A long curved fruit which grows in clusters.")
+                .add("lion", "A large cat that lives in prides.")
+                .add("fruitfly", "A small fly that feeds on fruits.")
+                .build();
+        List<String> found = words(index.search("fruit", 10));
+        assertEquals(3, found.size());
+        assertTrue(found.containsAll(List.of("apple", "banana", "fruitfly")));
+        assertEquals(List.of(), index.search("the", 10));
+        assertEquals(List.of(), index.search("unknownterm", 10));
+    }
+
+    @Test
+    void ranksRareTermsAndShortDefinitionsHigher() {
+        DefinitionIndex index = new DefinitionIndex.Builder()
+                .add("short", "Sweet fruit.")
+                .add("long", "A fruit that is sweet, grows on trees in warm places and is eaten fresh or dried.")
+                .add("rare", "A fruit with a yellow peel.")
+                .add("other", "A vegetable with a yellow peel.")
+                .add("more", "A fruit.")
+                .build();
+        // "peel" is rarer than "fruit", so a document matching both ranks first
+        assertEquals("rare", index.search("fruit peel", 5).get(0).getWord());
+        List<DefinitionIndex.Hit> sweet = index.search("sweet", 5);
+        assertEquals(List.of("short", "long"), words(sweet));
+        assertTrue(sweet.get(0).getScore() > sweet.get(1).getScore());
+    }
+
+    @Test
+    void limitKeepsTheBestHitsWithTiesByWord() {
+        DefinitionIndex.Builder builder = new DefinitionIndex.Builder();
+        for (String word : List.of("delta", "alpha", "charlie", "bravo")) {
+            builder.add(word, "Same text here.");
+        }
+        builder.add("echo", "Something else.");
+        assertEquals(List.of("alpha", "bravo"), words(builder.build().search("text", 2)));
+    }
+
+    @Test
+    void largeDocumentGapsSurviveVarintEncoding() {
+        DefinitionIndex.Builder builder = new DefinitionIndex.Builder();
+        for (int i = 0; i < 300_000; i++) {
+            builder.add("w" + i, i % 70_001 == 0 ? "needle in a haystack" : "hay");
+        }
+        DefinitionIndex index = builder.build();
+        assertEquals(List.of("w0", "w140002", "w210003", "w280004", "w70001"), words(index.search("needle", 10)));
+        // About 300k postings of "hay": a one-byte gap and a one-byte frequency each
+        assertTrue(index.postingBytes() < 300_000 * 2 + 100, "bytes " + index.postingBytes());
+        assertEquals(10, index.search("hay", 10).size());
+    }
+
+    @Test
+    void skippingMatchesAFullRanking() {
+        // Zipf-like vocabulary so some posting lists span many blocks
+        Random random = new Random(5);
+        DefinitionIndex.Builder builder = new DefinitionIndex.Builder();
+        for (int doc = 0; doc < 20_000; doc++) {
+            StringBuilder definition = new StringBuilder();
+            int length = 3 + random.nextInt(15);
+            for (int i = 0; i < length; i++) {
+                definition.append("t").append((int) Math.pow(500, random.nextDouble())).append(' ');
+            }
+            builder.add("w" + doc, definition.toString());
+        }
+        DefinitionIndex index = builder.build();
+        for (int q = 0; q < 200; q++) {
+            StringBuilder query = new StringBuilder();
+            for (int t = 0; t <= q % 4; t++) {
+                query.append("t").append((int) Math.pow(500, random.nextDouble())).append(' ');
+            }
+            // With a limit above the number of matches nothing can be skipped
+            List<DefinitionIndex.Hit> all = index.search(query.toString(), index.size());
+            List<String> expected = words(all.subList(0, Math.min(10, all.size())));
+            assertEquals(expected, words(index.search(query.toString(), 10)), query.toString());
+        }
+    }
+
+    @Test
+    void controllerIndexesDictionaryAndSampleSets() throws Exception {
+        ControllerTestSupport.with(null, controller -> {
+            assertTrue(controller.awaitDefinitionIndex(10_000));
+
+            Map<String, Object> fruit = controller.searchDefinitions("fruit", 20);
+            assertEquals("ready", fruit.get("index"));
+            List<String> found = new ArrayList<>();
+            for (Object result : (List<?>) fruit.get("results")) {
+                found.add((String) ((Map<?, ?>) result).get("word"));
+            }
+            assertTrue(found.containsAll(List.of("apple", "apricot", "banana")), found.toString());
+
+            // From animal.json: "A large cat that lives in prides ..."
+            List<?> lion = (List<?>) controller.searchDefinitions("prides", 5).get("results");
+            assertEquals("lion", ((Map<?, ?>) lion.get(0)).get("word"));
+            assertTrue(((String) ((Map<?, ?>) lion.get(0)).get("definition")).startsWith("A large cat"));
+        });
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Exercises the definitions cache against a local stub of dictionaryapi.dev.
+ */
+class DictionaryApiServiceTest {
+
+    private HttpServer server;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private DictionaryApiService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            upstreamCalls.incrementAndGet();
+            String word = exchange.getRequestURI().getPath().substring(1);
+            try {
+                Thread.sleep(100); // a slow upstream
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            boolean known = word.equals("apple");
+            byte[] body = (known ? "[{\"word\":\"apple\"}]" : "{\"title\":\"No Definitions Found\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            int status = known ? 200 : word.equals("busy") ? 503 : word.equals("throttled") ? 429 : 404;
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        service = new DictionaryApiService("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchDefinitions_cachesParsedResult() {
+        DictionaryApiService.Definitions first = service.fetchDefinitions("apple");
+        DictionaryApiService.Definitions second = service.fetchDefinitions("APPLE");
+
+        assertTrue(first.isOk());
+        assertEquals(first.getData(), second.getData());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1L, service.getStats().get("hits"));
+    }
+
+    @Test
+    void fetchDefinitions_cachesNotFound() {
+        assertFalse(service.fetchDefinitions("zzzz").isOk());
+        assertEquals("error", service.fetchDefinitions("zzzz").getStatus());
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1L, service.getStats().get("negativeHits"));
+    }
+
+    @Test
+    void fetchDefinitions_doesNotCacheServerErrorsOrThrottling() {
+        for (String word : List.of("busy", "throttled")) {
+            upstreamCalls.set(0);
+            DictionaryApiService.Definitions first = service.fetchDefinitions(word);
+            assertEquals("error", first.getStatus());
+            assertEquals(word.equals("busy") ? "HTTP 503" : "HTTP 429", first.getError());
+            assertFalse(service.fetchDefinitions(word).isOk());
+            assertEquals(2, upstreamCalls.get(), word);
+        }
+        assertEquals(0L, service.getStats().get("negativeHits"));
+    }
+
+    @Test
+    void fetchDefinitions_coalescesConcurrentMisses() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Thread t = new Thread(() -> service.fetchDefinitions("apple"));
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(1, upstreamCalls.get());
+    }
+}
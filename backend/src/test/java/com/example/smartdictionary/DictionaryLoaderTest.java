@@ -0,0 +1,86 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+class DictionaryLoaderTest {
+
+    @Test
+    void readJson_skipsNonStringValues() throws IOException {
+        String json = "{\"apple\": \"A fruit\", \"meta\": {\"version\": 2}, \"list\": [1, 2], \"pear\": \"Another fruit\"}";
+        Map<String, String> entries = DictionaryLoader.readJson(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(Map.of("apple", "A fruit", "pear", "Another fruit"), entries);
+    }
+
+    @Test
+    void open_picksFormatByExtension() throws IOException {
+        Path json = Files.createTempFile("dictionary", ".json");
+        Path binary = Files.createTempFile("dictionary", ".sdict");
+        try {
+            Files.writeString(json, "{\"apple\": \"A fruit\"}");
+            BinaryDictionary.write(Map.of("apple", "A fruit"), binary);
+
+            assertEquals(Map.of("apple", "A fruit"), DictionaryLoader.open(json));
+            assertTrue(DictionaryLoader.open(binary) instanceof BinaryDictionary);
+            assertEquals("A fruit", DictionaryLoader.open(binary).get("apple"));
+        } finally {
+            Files.deleteIfExists(json);
+            Files.deleteIfExists(binary);
+        }
+    }
+
+    @Test
+    void controller_reportsReadyAfterBackgroundLoad() throws Exception {
+        Path json = Files.createTempFile("dictionary", ".json");
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < 20_000; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("\"word").append(i).append("\": \"definition ").append(i).append('"');
+        }
+        Files.writeString(json, sb.append('}').toString());
+        DictionaryController controller = ControllerTestSupport.create(json, PersistenceConfig.defaults());
+        try {
+            controller.init();
+            assertEquals("up", controller.live().get("status"));
+            assertTrue(controller.awaitReady(10_000));
+
+            ResponseEntity<Map<String, Object>> ready = controller.readiness();
+            assertEquals(200, ready.getStatusCode().value());
+            assertEquals(20_000, ready.getBody().get("words"));
+            assertEquals("definition 42", controller.search("word42", null).get("definition"));
+            assertEquals(5, controller.suggest("word1", 0).size());
+            assertNotNull(controller.getFlashcard(null));
+        } finally {
+            controller.shutdown();
+            Files.deleteIfExists(json);
+        }
+    }
+
+    @Test
+    void controller_reportsFailedLoad() throws Exception {
+        DictionaryController controller = ControllerTestSupport.create(Path.of("/does/not/exist.json"),
+                PersistenceConfig.defaults());
+        try {
+            controller.init();
+            assertFalse(controller.awaitReady(10_000));
+            ResponseEntity<Map<String, Object>> ready = controller.readiness();
+            assertEquals(503, ready.getStatusCode().value());
+            assertEquals("failed", ready.getBody().get("status"));
+        } finally {
+            controller.shutdown();
+        }
+    }
+}
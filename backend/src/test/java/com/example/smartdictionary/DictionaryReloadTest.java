@@ -0,0 +1,221 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Tests for POST /admin/reload: the new dictionary replaces the old one as a whole,
+ * and requests running meanwhile see one or the other, never a mix.
+ */
+class DictionaryReloadTest {
+
+    private Path json;
+    private DictionaryController controller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        json = Files.createTempFile("dictionary", ".json");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (controller != null) controller.shutdown();
+        Files.deleteIfExists(json);
+    }
+
+    private void write(String content) throws IOException {
+        Path next = Files.createTempFile(json.getParent(), "dictionary", ".tmp");
+        Files.writeString(next, content);
+        Files.move(next, json, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void start() throws Exception {
+        controller = new DictionaryController(100, 100, 30, json.toString(), UpstreamConfig.defaults(),
+                PersistenceConfig.defaults(), new MetricsRegistry());
+        controller.init();
+    }
+
+    private ResponseEntity<Map<String, Object>> reload() throws Exception {
+        return controller.reload().get();
+    }
+
+    @Test
+    void reloadReplacesDictionaryTrieAndIndexes() throws Exception {
+        write("{\"apple\": \"A round fruit.\", \"apricot\": \"A small orange fruit.\"}");
+        start();
+        assertTrue(controller.awaitReady(10_000));
+        assertTrue(controller.awaitDefinitionIndex(10_000));
+        assertEquals(1L, controller.readiness().getBody().get("version"));
+
+        write("{\"apple\": \"A crisp fruit.\", \"banana\": \"A long yellow fruit.\"}");
+        ResponseEntity<Map<String, Object>> result = reload();
+        assertEquals(200, result.getStatusCode().value());
+        assertEquals("ok", result.getBody().get("status"));
+        assertEquals(2L, result.getBody().get("version"));
+        assertEquals(2, result.getBody().get("words"));
+        assertTrue(result.getBody().containsKey("heapDeltaBytes"));
+
+        assertEquals("A crisp fruit.", controller.search("apple", null).get("definition"));
+        assertEquals(true, controller.search("banana", null).get("found"));
+        assertEquals(false, controller.search("apricot", null).get("found"));
+        assertEquals(List.of("apple"), controller.suggest("ap", 0));
+        // A reload publishes its indexes with the dictionary, not after it
+        Map<String, Object> ready = controller.readiness().getBody();
+        assertEquals("ready", ready.get("spellingIndex"));
+        assertEquals("ready", ready.get("definitionIndex"));
+        assertEquals("banana", controller.search("bananas", null).get("correction"));
+        List<?> yellow = (List<?>) controller.searchDefinitions("yellow", 5).get("results");
+        assertEquals("banana", ((Map<?, ?>) yellow.get(0)).get("word"));
+        assertTrue(controller.getMetrics().contains("dictionary_reloads_total{result=\"ok\"} 1"));
+    }
+
+    @Test
+    void popularityCarriesOverToTheNewTrie() throws Exception {
+        write("{\"apple\": \"A fruit.\", \"apricot\": \"A fruit.\"}");
+        start();
+        assertTrue(controller.awaitReady(10_000));
+        assertEquals(List.of("apple", "apricot"), controller.suggest("ap", 0));
+        for (int i = 0; i < 3; i++) {
+            controller.search("apricot", null);
+        }
+
+        assertEquals("ok", reload().getBody().get("status"));
+        assertEquals(List.of("apricot", "apple"), controller.suggest("ap", 0));
+    }
+
+    @Test
+    void sessionDecksMoveToTheNewDictionaryKeepingTheirEdits() throws Exception {
+        write("{\"apple\": \"A fruit.\", \"apricot\": \"A fruit.\"}");
+        start();
+        assertTrue(controller.awaitReady(10_000));
+        assertEquals("ok", controller.removeFlashcard("apple", "u").get("status"));
+        assertEquals(List.of("apricot"), deckWords("u"));
+
+        write("{\"apple\": \"A fruit.\", \"banana\": \"A fruit.\", \"cherry\": \"A fruit.\"}");
+        assertEquals("ok", reload().getBody().get("status"));
+        // apricot left the dictionary, apple stays removed for this user only
+        assertEquals(List.of("banana", "cherry"), deckWords("u"));
+        assertEquals(List.of("apple", "banana", "cherry"), deckWords("other"));
+    }
+
+    private List<String> deckWords(String user) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; ; i++) {
+            Map<String, String> card = controller.jumpToFlashcard(i, user);
+            if (card == null) break;
+            words.add(card.get("word"));
+        }
+        words.sort(null);
+        return words;
+    }
+
+    @Test
+    void failedReloadKeepsServingThePreviousDictionary() throws Exception {
+        write("{\"apple\": \"A fruit.\"}");
+        start();
+        assertTrue(controller.awaitReady(10_000));
+
+        write("{\"apple\": ");
+        ResponseEntity<Map<String, Object>> result = reload();
+        assertEquals(500, result.getStatusCode().value());
+        assertEquals("error", result.getBody().get("status"));
+        assertEquals("A fruit.", controller.search("apple", null).get("definition"));
+        assertEquals(1L, controller.readiness().getBody().get("version"));
+    }
+
+    @Test
+    void reloadRecoversFromAFailedFirstLoad() throws Exception {
+        Files.delete(json);
+        start();
+        assertFalse(controller.awaitReady(10_000));
+        assertEquals(503, controller.readiness().getStatusCode().value());
+
+        write("{\"apple\": \"A fruit.\"}");
+        assertEquals(200, reload().getStatusCode().value());
+        assertEquals(200, controller.readiness().getStatusCode().value());
+        assertEquals(true, controller.search("apple", null).get("found"));
+    }
+
+    @Test
+    void readersNeverSeeAMixOfTwoDictionaries() throws Exception {
+        write(generation(0));
+        start();
+        assertTrue(controller.awaitReady(10_000));
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            Thread reader = new Thread(() -> {
+                while (!done.get() && failure.get() == null) {
+                    // Every completion of "g" comes from the same generation of the file
+                    List<String> suggestions = controller.suggest("g", 0);
+                    if (suggestions.size() != Trie.MAX_SUGGESTIONS) {
+                        failure.set("suggestions " + suggestions);
+                    }
+                    for (String word : suggestions) {
+                        if (word.charAt(1) != suggestions.get(0).charAt(1)) {
+                            failure.set("mixed " + suggestions);
+                        }
+                    }
+                    // One batch reads one dictionary, so exactly one generation's word is found
+                    String lines = batch(List.of("g0w7", "g1w7", "g2w7", "g3w7", "g4w7", "g5w7"));
+                    if (lines.split("\"found\":true", -1).length != 2) {
+                        failure.set("batch " + lines);
+                    }
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (int generation = 1; generation <= 5; generation++) {
+            write(generation(generation));
+            assertEquals("ok", reload().getBody().get("status"));
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(null, failure.get());
+        assertEquals(List.of("g5w0", "g5w1", "g5w10", "g5w100", "g5w1000"), controller.suggest("g", 0));
+    }
+
+    private String batch(List<String> words) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            controller.searchBatch(words, false, "reader").getBody().writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    //Words g<generation>w<i>; each reload removes every word of the previous generation
+    private static String generation(int generation) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < 2_000; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("\"g").append(generation).append('w').append(i).append("\": \"Word ").append(i).append('"');
+        }
+        return sb.append('}').toString();
+    }
+}
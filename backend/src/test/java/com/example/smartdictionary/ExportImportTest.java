@@ -0,0 +1,141 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Tests for the NDJSON /export and /import round trip.
+ */
+class ExportImportTest {
+
+    private DictionaryController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        controller = ControllerTestSupport.start(null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        controller.shutdown();
+    }
+
+    private String export(String userId, List<String> include) throws IOException {
+        ResponseEntity<StreamingResponseBody> response = controller.exportCollections(include, userId);
+        assertEquals(200, response.getStatusCode().value());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private ResponseEntity<Map<String, Object>> importLines(String userId, String lines) throws IOException {
+        return controller.importCollections(new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)), userId);
+    }
+
+    private static Set<String> favoriteWords(List<WordItem> items) {
+        Set<String> words = new HashSet<>();
+        for (WordItem item : items) {
+            words.add(item.getWord() + "=" + item.getDefinition());
+        }
+        return words;
+    }
+
+    @Test
+    void roundTripRebuildsCollectionsInOrder() throws IOException {
+        controller.addFavorite("apple", null, "alice");
+        controller.addFavorite("tiger", Map.of("definition", "A big striped cat."), "alice");
+        controller.search("banana", "alice");
+        controller.search("apple", "alice");
+        controller.search("zzzz", "alice");
+        controller.markAsNotRemembered("kotlin", Map.of("definition", "A JVM language."), "alice");
+        controller.markAsNotRemembered("apple", null, "alice");
+        controller.addFavoriteToFlashcard(Map.of("word", "tiger", "definition", "A big striped cat."), "alice");
+
+        String exported = export("alice", DictionaryController.EXPORT_COLLECTIONS);
+        for (String line : exported.split("\n")) {
+            assertTrue(line.startsWith("{\"type\":"), line);
+        }
+
+        ResponseEntity<Map<String, Object>> result = importLines("bob", exported);
+        assertEquals(200, result.getStatusCode().value());
+        assertEquals("ok", result.getBody().get("status"));
+
+        assertEquals(favoriteWords(controller.listFavorites("alice")), favoriteWords(controller.listFavorites("bob")));
+        assertEquals(controller.getHistory("alice"), controller.getHistory("bob"));
+        assertEquals(controller.getPendingNotRemembered("alice"), controller.getPendingNotRemembered("bob"));
+        assertEquals(controller.getNotRememberedFlashcards("alice"), controller.getNotRememberedFlashcards("bob"));
+        // Bob already had every dictionary card; only the added card was new
+        assertEquals(export("alice", List.of("deck")), export("bob", List.of("deck")));
+    }
+
+    @Test
+    void includeSelectsCollections() throws IOException {
+        controller.addFavorite("apple", null, "carol");
+        controller.search("banana", "carol");
+        assertEquals("{\"type\":\"history\",\"word\":\"banana\"}\n", export("carol", List.of("history")));
+        assertEquals(400, controller.exportCollections(List.of("everything"), "carol").getStatusCode().value());
+    }
+
+    @Test
+    void badLineStopsImportAndKeepsEarlierLines() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < DictionaryController.TRANSFER_BATCH + 3; i++) {
+            lines.append("{\"type\":\"favorite\",\"word\":\"word").append(i).append("\",\"definition\":\"d\"}\n");
+        }
+        lines.append("{\"type\":\"planet\",\"word\":\"mars\"}\n");
+        lines.append("{\"type\":\"favorite\",\"word\":\"after\"}\n");
+
+        ResponseEntity<Map<String, Object>> result = importLines("dave", lines.toString());
+        assertEquals(400, result.getStatusCode().value());
+        assertEquals((long) DictionaryController.TRANSFER_BATCH + 3, result.getBody().get("applied"));
+        assertTrue(result.getBody().get("error").toString().startsWith("Line " + (DictionaryController.TRANSFER_BATCH + 4)));
+        assertEquals(DictionaryController.TRANSFER_BATCH + 3, controller.listFavorites("dave").size());
+
+        result = importLines("erin", "{\"type\":\"history\",\"word\":\"ok\"}\n{not json\n");
+        assertEquals(400, result.getStatusCode().value());
+        assertEquals(List.of("ok"), controller.getHistory("erin"));
+    }
+
+    @Test
+    void largeExportStreamsWithoutBufferingTheCollection() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            lines.append("{\"type\":\"favorite\",\"word\":\"fav").append(i).append("\",\"definition\":\"d\"}\n");
+        }
+        importLines("frank", lines.toString());
+
+        // The response is written to the stream as it goes, in generator-buffer sized writes
+        int[] writes = {0};
+        long[] bytes = {0};
+        controller.exportCollections(List.of("favorites"), "frank").getBody().writeTo(new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writes[0]++;
+                bytes[0] += len;
+            }
+        });
+        assertTrue(writes[0] > 10, "writes " + writes[0]);
+        assertTrue(bytes[0] > 20_000 * 40, "bytes " + bytes[0]);
+    }
+}
@@ -3,8 +3,15 @@ package com.example.smartdictionary;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.jupiter.api.Test;
 
 class FlashcardListTest {
@@ -50,4 +57,178 @@ class FlashcardListTest {
         list.reviewCurrent(true, stack);
         assertEquals(1, stack.getPending().size());
     }
+
+    @Test
+    void fork_keepsEditsApartAndStartsAtFirstCard() {
+        FlashcardList list = new FlashcardList();
+        list.add("apple", "A fruit");
+        list.add("banana", "Yellow fruit");
+        list.getNext();
+
+        FlashcardList copy = list.fork();
+        assertEquals("apple", copy.getCurrent().word);
+
+        // Appending to the original goes to its own edits, so the fork is unaffected
+        list.add("cherry", "Small red fruit");
+        assertEquals("banana", list.getCurrent().word);
+        assertEquals(3, list.getSize());
+        assertEquals(2, copy.getSize());
+        copy.getNext();
+        assertEquals("banana", copy.getNext().word);
+        assertEquals("apple", copy.getCurrent().word); // fork ring still has two cards
+    }
+
+    @Test
+    void addAll_appendsInOrderAfterExistingCards() {
+        FlashcardList list = new FlashcardList();
+        list.add("apple", "A fruit");
+        list.addAll(List.of("banana", "cherry"), word -> word.toUpperCase());
+
+        assertEquals(3, list.getSize());
+        assertEquals("apple", list.getNext().word);
+        FlashcardList.CardNode banana = list.getNext();
+        assertEquals("BANANA", banana.definition);
+        assertEquals("cherry", list.getNext().word);
+        assertEquals("apple", list.getCurrent().word);
+    }
+
+    @Test
+    void add_skipsWordsAlreadyInDeck() {
+        FlashcardList list = new FlashcardList();
+        assertTrue(list.add("apple", "A fruit"));
+        assertFalse(list.add("apple", "Another definition"));
+        assertEquals(1, list.getSize());
+        assertEquals("A fruit", list.getCurrent().definition);
+    }
+
+    @Test
+    void remove_keepsOrderAndCursor() {
+        FlashcardList list = new FlashcardList();
+        list.addAll(List.of("a", "b", "c", "d"), word -> word);
+        list.jumpTo(2); // on "c"
+
+        assertTrue(list.remove("a"));
+        assertEquals("c", list.getCurrent().word);
+        assertEquals(1, list.indexOf("c"));
+
+        assertTrue(list.remove("c"));
+        assertEquals("d", list.getCurrent().word); // moved on to the following card
+        assertTrue(list.remove("d"));
+        assertEquals("b", list.getCurrent().word); // wrapped around
+        assertFalse(list.remove("d"));
+        assertEquals(1, list.getSize());
+
+        assertTrue(list.remove("b"));
+        assertNull(list.getCurrent());
+        assertNull(list.getNext());
+    }
+
+    @Test
+    void jumpTo_movesCursor() {
+        FlashcardList list = new FlashcardList();
+        list.addAll(List.of("a", "b", "c"), word -> word);
+
+        assertEquals("c", list.jumpTo(2).word);
+        assertEquals("c", list.getNext().word);
+        assertEquals("a", list.getCurrent().word);
+        assertNull(list.jumpTo(3));
+        assertNull(list.jumpTo(-1));
+    }
+
+    @Test
+    void shuffle_keepsEveryCardAndIndex() {
+        FlashcardList list = new FlashcardList();
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            words.add("w" + i);
+        }
+        list.addAll(words, word -> word);
+        list.getNext();
+        FlashcardList copy = list.fork();
+
+        list.shuffle(7);
+        assertEquals(0, list.getCursor());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            FlashcardList.CardNode card = list.getNext();
+            assertEquals(i, list.indexOf(card.word));
+            seen.add(card.word);
+        }
+        assertEquals(100, seen.size());
+        assertEquals("w0", copy.getCurrent().word); // the fork keeps the original order
+    }
+
+    @Test
+    void shuffle_thenEditKeepsPositionsConsistent() {
+        FlashcardList shared = new FlashcardList();
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            words.add("w" + i);
+        }
+        shared.addAll(words, word -> word);
+        FlashcardList list = shared.fork();
+        List<String> expected = new ArrayList<>(words);
+        Random random = new Random(3);
+        for (int step = 0; step < 2000; step++) {
+            int op = random.nextInt(10);
+            if (op == 0) {
+                list.shuffle(random.nextLong());
+                expected.clear();
+                for (int i = 0; i < list.getSize(); i++) {
+                    expected.add(list.jumpTo(i).word);
+                }
+                assertEquals(list.getSize(), new HashSet<>(expected).size());
+            } else if (op < 4) {
+                String word = "n" + step;
+                assertTrue(list.add(word, word));
+                expected.add(word);
+            } else if (!expected.isEmpty()) {
+                String word = expected.remove(random.nextInt(expected.size()));
+                assertTrue(list.remove(word));
+                assertFalse(list.contains(word));
+            }
+            assertEquals(expected.size(), list.getSize());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i, list.indexOf(expected.get(i)));
+        }
+        List<String> paged = new ArrayList<>();
+        for (FlashcardList.CardNode card : list.page(0, expected.size())) {
+            paged.add(card.word);
+        }
+        assertEquals(expected, paged);
+        assertEquals(1000, shared.getSize()); // the shared cards are untouched
+        assertEquals("w0", shared.getCurrent().word);
+    }
+
+    @Test
+    void permute_isABijectionAndInverts() {
+        for (int n : new int[] {2, 3, 17, 1000, 4097}) {
+            Set<Integer> seen = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                int p = FlashcardList.permute(99, n, i, false);
+                assertTrue(p >= 0 && p < n);
+                assertTrue(seen.add(p));
+                assertEquals(i, FlashcardList.permute(99, n, p, true));
+            }
+        }
+    }
+
+    @Test
+    void add_isAmortizedConstant() {
+        FlashcardList list = new FlashcardList();
+        int growths = 0;
+        int capacity = list.addedCapacity();
+        for (int i = 0; i < 200_000; i++) {
+            list.add("w" + i, "def");
+            if (list.addedCapacity() != capacity) {
+                capacity = list.addedCapacity();
+                growths++;
+            }
+        }
+        assertEquals(200_000, list.getSize());
+        // The array doubles when full, so 200k appends copy it about 17 times and leave at most half unused
+        assertTrue(growths <= 17, growths + " growths");
+        assertTrue(capacity < 2 * 200_000, "capacity " + capacity);
+    }
 }
@@ -0,0 +1,71 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for key folding and for /search resolving folded input to headwords.
+ */
+class FoldedIndexTest {
+
+    @Test
+    void foldStripsAccentsCaseAndWidth() {
+        assertEquals("tieng viet", FoldedIndex.fold("Tiếng Việt"));
+        assertEquals("da nang", FoldedIndex.fold("Đà Nẵng"));
+        assertEquals("apple", FoldedIndex.fold("ＡＰＰＬＥ"));
+        assertEquals("cafe", FoldedIndex.fold("café"));
+        assertEquals("naive", FoldedIndex.fold("NAÏVE"));
+        assertEquals("fi", FoldedIndex.fold("ﬁ"));
+        assertEquals("hello", FoldedIndex.fold("Hello"));
+    }
+
+    @Test
+    void foldReturnsLowercaseAsciiUnchanged() {
+        String word = "already-folded 42";
+        assertSame(word, FoldedIndex.fold(word));
+    }
+
+    @Test
+    void indexKeepsOnlyChangedKeysAndTheFirstHeadword() {
+        FoldedIndex index = FoldedIndex.of(List.of("apple", "mã", "má", "ma", "Paris", "résumé"));
+        assertEquals(3, index.size());
+        assertEquals("má", index.headword("ma"));
+        assertEquals("Paris", index.headword("paris"));
+        assertEquals("résumé", index.headword("resume"));
+        assertNull(index.headword("apple"));
+    }
+
+    @Test
+    void searchResolvesFoldedInputToHeadwords() throws Exception {
+        Path json = Files.createTempFile("dictionary", ".json");
+        Files.writeString(json, "{\"café\": \"A coffee shop.\", \"phở\": \"Vietnamese noodle soup.\","
+                + " \"pho\": \"Short for phonograph.\", \"apple\": \"A fruit.\"}");
+        try {
+            ControllerTestSupport.with(json, controller -> {
+                assertEquals("café", controller.search("CAFE", null).get("word"));
+                assertEquals("café", controller.search("café", null).get("word"));
+                assertEquals("apple", controller.search("ＡＰＰＬＥ", null).get("word"));
+                // An exact headword wins over another that folds to the same key
+                assertEquals("pho", controller.search("pho", null).get("word"));
+                assertEquals("phở", controller.search("phở", null).get("word"));
+                assertEquals("pho", controller.search("phó", null).get("word"));
+                Map<String, Object> miss = controller.search("cafés", null);
+                assertEquals(false, miss.get("found"));
+
+                assertEquals(List.of("pho", "phở"), controller.suggest("PHO", 0));
+                assertEquals(List.of("café"), controller.suggest("cafe", 0));
+            });
+        } finally {
+            Files.deleteIfExists(json);
+        }
+    }
+}
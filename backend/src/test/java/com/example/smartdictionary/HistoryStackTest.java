@@ -0,0 +1,47 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class HistoryStackTest {
+
+    @Test
+    void getHistory_returnsNewestFirstWithoutDuplicates() {
+        HistoryStack history = new HistoryStack();
+        history.push("apple");
+        history.push("banana");
+        history.push("apple");
+
+        assertEquals(List.of("apple", "banana"), history.getHistory());
+    }
+
+    @Test
+    void push_evictsOldestBeyondCap() {
+        HistoryStack history = new HistoryStack(3);
+        history.push("a");
+        history.push("b");
+        history.push("c");
+        history.push("a"); // refresh, nothing evicted
+        history.push("d"); // evicts b
+
+        assertEquals(List.of("d", "a", "c"), history.getHistory());
+    }
+
+    @Test
+    void push_repeatedWordsDoNotGrowHistory() {
+        HistoryStack history = new HistoryStack(5);
+        for (int i = 0; i < 10_000; i++) {
+            history.push("w" + (i % 3));
+        }
+        assertEquals(List.of("w0", "w2", "w1"), history.getHistory());
+    }
+
+    @Test
+    void constructor_rejectsNonPositiveCap() {
+        assertThrows(IllegalArgumentException.class, () -> new HistoryStack(0));
+    }
+}
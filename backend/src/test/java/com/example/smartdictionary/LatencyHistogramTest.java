@@ -0,0 +1,77 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for bucket boundaries, percentile accuracy and concurrent recording in LatencyHistogram.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void everyValueFallsInsideItsBucket() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            // Up to 2^40 ns; anything longer shares the last bucket
+            long value = random.nextLong() >>> (24 + random.nextInt(40));
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.upperEdge(index), "value above its bucket: " + value);
+            assertTrue(index == 0 || value > LatencyHistogram.upperEdge(index - 1), "value below its bucket: " + value);
+        }
+    }
+
+    @Test
+    void percentilesAreWithinOneSixteenth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(2);
+        long[] values = new long[50_000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal-ish spread from microseconds to tens of milliseconds
+            values[i] = (long) (1_000 * Math.exp(random.nextGaussian() * 2 + 4));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(q * values.length) - 1];
+            long reported = histogram.percentile(q);
+            assertTrue(reported >= exact, q + ": " + reported + " below " + exact);
+            assertTrue(reported <= exact + exact / 16 + 1, q + ": " + reported + " too far above " + exact);
+        }
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(Arrays.stream(values).sum(), histogram.getSumNanos());
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        assertEquals(0, new LatencyHistogram().percentile(0.99));
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(4L * 100_000 * 100_001 / 2, histogram.getSumNanos());
+        long median = histogram.percentile(0.5);
+        assertTrue(median >= 50_000 && median <= 50_000 + 50_000 / 16, "median " + median);
+    }
+}
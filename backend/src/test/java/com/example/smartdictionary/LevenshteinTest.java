@@ -3,6 +3,7 @@ package com.example.smartdictionary;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
@@ -47,4 +48,69 @@ class LevenshteinTest {
         // distance from "xyz" to each is > 2, threshold should return null
         assertNull(Levenshtein.findClosest("xyz", dict));
     }
+
+    @Test
+    void calculateBounded_returnsBoundPlusOneWhenExceeded() {
+        assertEquals(1, Levenshtein.calculate("apple", "appla", 2));
+        assertEquals(3, Levenshtein.calculate("apple", "xyz", 2)); // length difference alone
+        assertEquals(3, Levenshtein.calculate("kitten", "sitting", 2)); // distance 3
+        assertEquals(3, Levenshtein.calculate("kitten", "sitting", 5));
+    }
+
+    @Test
+    void calculateBounded_agreesWithFullMatrix() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            // Lengths cross the 64-character bit-parallel limit
+            String x = randomWord(random, random.nextInt(round % 2 == 0 ? 10 : 80));
+            String y = random.nextBoolean() ? mutate(random, x) : randomWord(random, random.nextInt(80));
+            int expected = fullMatrix(x, y);
+            assertEquals(expected, Levenshtein.calculate(x, y));
+            for (int bound = 0; bound <= 3; bound++) {
+                assertEquals(Math.min(expected, bound + 1), Levenshtein.calculate(x, y, bound));
+            }
+        }
+    }
+
+    @Test
+    void calculate_handlesNonAsciiCharacters() {
+        assertEquals(1, Levenshtein.calculate("café", "cafe"));
+        assertEquals(0, Levenshtein.calculate("tiếng", "tiếng"));
+        assertEquals(1, Levenshtein.calculate("tiếng việt", "tieng việt"));
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(4)));
+        }
+        return sb.toString();
+    }
+
+    private static String mutate(Random random, String word) {
+        StringBuilder sb = new StringBuilder(word);
+        int edits = random.nextInt(4);
+        for (int i = 0; i < edits && sb.length() > 0; i++) {
+            int pos = random.nextInt(sb.length());
+            switch (random.nextInt(3)) {
+                case 0 -> sb.deleteCharAt(pos);
+                case 1 -> sb.insert(pos, 'z');
+                default -> sb.setCharAt(pos, 'y');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int fullMatrix(String x, String y) {
+        int[][] dp = new int[x.length() + 1][y.length() + 1];
+        for (int i = 0; i <= x.length(); i++) dp[i][0] = i;
+        for (int j = 0; j <= y.length(); j++) dp[0][j] = j;
+        for (int i = 1; i <= x.length(); i++) {
+            for (int j = 1; j <= y.length(); j++) {
+                int cost = x.charAt(i - 1) == y.charAt(j - 1) ? 0 : 1;
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j - 1] + cost, dp[i - 1][j] + 1), dp[i][j - 1] + 1);
+            }
+        }
+        return dp[x.length()][y.length()];
+    }
 }
@@ -0,0 +1,64 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for series lookup and the Prometheus text output of MetricsRegistry.
+ */
+class MetricsRegistryTest {
+
+    @Test
+    void sameLabelsReturnSameSeries() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        LongAdder hits = metrics.counter("searches_total", "Searches", "result", "hit");
+        assertSame(hits, metrics.counter("searches_total", "Searches", "result", "hit"));
+        assertTrue(hits != metrics.counter("searches_total", "Searches", "result", "miss"));
+    }
+
+    @Test
+    void scrapeWritesCountersGaugesAndSummaries() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.counter("searches_total", "Searches by outcome", "result", "hit").add(3);
+        metrics.gauge("ratio", "A ratio", () -> 0.25);
+        LatencyHistogram histogram = metrics.histogram("lookup_seconds", "Lookup time", "route", "/search");
+        for (int i = 0; i < 100; i++) {
+            histogram.record(2_000_000);
+        }
+        String text = metrics.scrape();
+
+        assertTrue(text.contains("# HELP searches_total Searches by outcome\n# TYPE searches_total counter\n"), text);
+        assertTrue(text.contains("searches_total{result=\"hit\"} 3\n"), text);
+        assertTrue(text.contains("# TYPE ratio gauge\nratio 0.25\n"), text);
+        assertTrue(text.contains("# TYPE lookup_seconds summary\n"), text);
+        assertTrue(text.contains("lookup_seconds_count{route=\"/search\"} 100\n"), text);
+        assertTrue(text.contains("lookup_seconds_sum{route=\"/search\"} 0.2\n"), text);
+        String p99 = "lookup_seconds{route=\"/search\",quantile=\"0.99\"} ";
+        int at = text.indexOf(p99);
+        assertTrue(at >= 0, text);
+        double seconds = Double.parseDouble(text.substring(at + p99.length(), text.indexOf('\n', at)));
+        assertEquals(0.002, seconds, 0.002 / 16);
+        // JVM metrics are always present
+        assertTrue(text.contains("# TYPE jvm_gc_collections_total counter\n"), text);
+        assertTrue(text.contains("jvm_memory_heap_used_bytes "), text);
+    }
+
+    @Test
+    void labelValuesAreEscaped() {
+        assertEquals("word=\"a\\\"b\\\\c\\nd\"", MetricsRegistry.renderLabels("word", "a\"b\\c\nd"));
+    }
+
+    @Test
+    void conflictingRegistrationIsRejected() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.counter("things", "Things");
+        assertThrows(IllegalArgumentException.class, () -> metrics.histogram("things", "Things"));
+        assertThrows(IllegalArgumentException.class, () -> metrics.counter("things", "Things", "odd"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ResponseCacheTest {
+
+    @Test
+    void get_loadsOnceUntilExpired() throws Exception {
+        ResponseCache<String, String> cache = new ResponseCache<>(1000, 30, 30, String::length, String::isEmpty);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("k", k -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get("k", k -> "v" + loads.incrementAndGet()));
+        Thread.sleep(50);
+        assertEquals("v2", cache.get("k", k -> "v" + loads.incrementAndGet()));
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(2L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void get_usesSeparateTtlForNegativeResults() throws Exception {
+        ResponseCache<String, String> cache = new ResponseCache<>(1000, 60_000, 20, String::length, String::isEmpty);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("missing", k -> { loads.incrementAndGet(); return ""; });
+        cache.get("missing", k -> { loads.incrementAndGet(); return ""; });
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.stats().get("negativeHits"));
+
+        Thread.sleep(40);
+        cache.get("missing", k -> { loads.incrementAndGet(); return ""; });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedWhenOverWeight() throws Exception {
+        ResponseCache<String, String> cache = new ResponseCache<>(100, 60_000, 60_000, String::length, String::isEmpty);
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, "0123456789");
+            Thread.sleep(2);
+        }
+        cache.get("k0", k -> "reloaded"); // touch the oldest so it survives
+        cache.put("k10", "0123456789");
+
+        assertTrue(cache.weight() <= 100);
+        assertEquals("0123456789", cache.get("k0", k -> "reloaded"));
+        assertEquals("reloaded", cache.get("k1", k -> "reloaded"));
+    }
+
+    @Test
+    void get_sharesOneLoadBetweenConcurrentMisses() throws Exception {
+        ResponseCache<String, String> cache = new ResponseCache<>(1000, 60_000, 60_000, String::length, String::isEmpty);
+        AtomicInteger loads = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> cache.get("k", k -> {
+                loads.incrementAndGet();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "v";
+            }));
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_propagatesLoaderFailureWithoutCaching() {
+        ResponseCache<String, String> cache = new ResponseCache<>(1000, 60_000, 60_000, String::length, String::isEmpty);
+        assertThrows(IllegalStateException.class, () -> cache.get("k", k -> { throw new IllegalStateException("down"); }));
+        assertEquals("v", cache.get("k", k -> "v"));
+    }
+}
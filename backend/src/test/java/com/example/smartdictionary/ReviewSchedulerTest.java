@@ -0,0 +1,135 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ReviewSchedulerTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Test
+    void review_followsSm2Intervals() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        long now = 0;
+
+        assertEquals(1, scheduler.review("apple", true, now).getIntervalDays());
+        now += DAY;
+        assertEquals(6, scheduler.review("apple", true, now).getIntervalDays());
+        now += 6 * DAY;
+        ReviewScheduler.CardState state = scheduler.review("apple", 5, now);
+        // Ease was 2.5 + 0 + 0 after two grade-4 reviews, so the third interval is 6 * 2.5
+        assertEquals(15, state.getIntervalDays());
+        assertEquals(2.6, state.getEase(), 1e-9);
+        assertEquals(now + 15 * DAY, state.getDue());
+    }
+
+    @Test
+    void review_forgottenCardComesBackSoonWithLowerEase() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        scheduler.review("apple", true, 0);
+        scheduler.review("apple", true, DAY);
+        ReviewScheduler.CardState state = scheduler.review("apple", false, 7 * DAY);
+
+        assertEquals(0, state.getRepetitions());
+        assertEquals(1, state.getLapses());
+        assertEquals(7 * DAY + ReviewScheduler.RELEARN_DELAY_MS, state.getDue());
+        assertEquals(2.5 - 0.54, state.getEase(), 1e-9);
+        // Ease never drops below the SM-2 floor
+        for (int i = 0; i < 10; i++) {
+            state = scheduler.review("apple", 0, 8 * DAY);
+        }
+        assertEquals(ReviewScheduler.MIN_EASE, state.getEase(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> scheduler.review("apple", 6, 0));
+    }
+
+    @Test
+    void nextDue_returnsMostOverdueCard() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        scheduler.review("apple", true, 0);          // due day 1
+        scheduler.review("banana", false, 0);        // due in 10 minutes
+        scheduler.review("cherry", true, DAY / 2);   // due day 1.5
+
+        assertNull(scheduler.nextDue(60_000));
+        assertEquals("banana", scheduler.nextDue(DAY));
+        scheduler.review("banana", true, DAY);       // now due day 2
+        assertEquals("apple", scheduler.nextDue(DAY));
+        scheduler.review("apple", true, DAY);        // now due day 7
+        assertNull(scheduler.nextDue(DAY));
+        assertEquals("cherry", scheduler.nextDue(2 * DAY));
+        assertEquals(3, scheduler.size());
+        assertEquals(2, scheduler.countDue(2 * DAY));
+    }
+
+    @Test
+    void remove_andRestore() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        ReviewScheduler.CardState saved = scheduler.review("apple", true, 0);
+        assertTrue(scheduler.remove("apple"));
+        assertFalse(scheduler.isScheduled("apple"));
+        assertNull(scheduler.nextDue(10 * DAY));
+
+        scheduler.restore(saved);
+        assertEquals("apple", scheduler.nextDue(10 * DAY));
+        assertEquals(1, scheduler.get("apple").getIntervalDays());
+    }
+
+    @Test
+    void staleHeapEntriesAreCompacted() {
+        ReviewScheduler scheduler = new ReviewScheduler();
+        for (int i = 0; i < 10_000; i++) {
+            scheduler.review("w" + (i % 10), i % 3 != 0, i * 1000L);
+        }
+        assertEquals(10, scheduler.size());
+        String due = scheduler.nextDue(Long.MAX_VALUE);
+        assertTrue(due.startsWith("w"));
+    }
+
+    @Test
+    void nextNewCard_passesOverScheduledCardsWithoutMovingTheCursor() {
+        FlashcardList deck = new FlashcardList();
+        deck.addAll(List.of("a", "b", "c", "d"), word -> word);
+        UserSession session = new UserSession("learner", 100, deck);
+        session.review("a", true, 0);
+        session.review("b", true, 0);
+
+        assertEquals("c", session.nextNewCard().word);
+        assertEquals("c", session.nextNewCard().word);
+        assertEquals(0, session.getFlashcards().getCursor());
+
+        session.moveDeckPast("c");
+        assertEquals(3, session.getFlashcards().getCursor());
+        assertEquals("d", session.nextNewCard().word);
+        session.review("c", true, 0);
+        session.review("d", true, 0);
+        // Everything scheduled: the card under the cursor
+        assertEquals("d", session.nextNewCard().word);
+    }
+
+    @Test
+    void controller_showsDueReviewsBeforeNewCards() throws Exception {
+        ControllerTestSupport.with(null, controller -> {
+            String first = controller.getFlashcard("learner").get("word");
+
+            Map<String, Object> result = controller.notRememberCurrent("learner");
+            assertEquals(first, result.get("word"));
+            assertTrue(controller.getPendingNotRemembered("learner").contains(first));
+            // A forgotten card is not due for a few minutes, so the next new card is shown
+            String second = controller.getFlashcard("learner").get("word");
+            assertFalse(first.equals(second));
+
+            result = controller.rememberCurrent("learner");
+            assertEquals(second, result.get("word"));
+            assertEquals(1, result.get("intervalDays"));
+            assertEquals(2, controller.getSchedule("learner").get("scheduled"));
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests that POST /search/batch answers each word exactly as /search and /favorites/{word} do.
+ */
+class SearchBatchTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private DictionaryController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        controller = ControllerTestSupport.start(null);
+        // The spelling index is built after the dictionary; wait so misses get corrections
+        assertTrue(ControllerTestSupport.await(
+                () -> controller.search("aple", "warmup").get("correction") != null, 10_000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        controller.shutdown();
+    }
+
+    private List<Map<String, Object>> lines(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        List<Map<String, Object>> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(mapper.readValue(line, new TypeReference<Map<String, Object>>() {}));
+            }
+        }
+        return lines;
+    }
+
+    private void assertMatchesSingleLookups(List<String> words, List<Map<String, Object>> lines) {
+        assertEquals(words.size(), lines.size());
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            Map<String, Object> line = lines.get(i);
+            assertEquals(word, line.get("query"));
+            assertEquals(controller.search(word, "other"), line.get("search"), word);
+            assertEquals(controller.getFavorite(word, "reader"), line.get("favorite"), word);
+        }
+    }
+
+    @Test
+    void eachLineMatchesSearchAndFavorite() throws Exception {
+        controller.addFavorite("banana", null, "reader");
+        controller.addFavorite("notaword", Map.of("definition", "custom"), "reader");
+        List<String> words = List.of("apple", "Banana", "aple", "zzzzqqq", "apple", "notaword", "");
+
+        List<Map<String, Object>> lines = lines(controller.searchBatch(words, false, "reader"));
+        assertMatchesSingleLookups(words, lines);
+        assertEquals(true, ((Map<?, ?>) lines.get(1).get("favorite")).get("found"));
+        assertEquals("apple", ((Map<?, ?>) lines.get(2).get("search")).get("correction"));
+    }
+
+    @Test
+    void largeBatchKeepsRequestOrderAcrossChunks() throws Exception {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < DictionaryController.SEARCH_BATCH_CHUNK * 3 + 17; i++) {
+            words.add(i % 5 == 0 ? "apple" : i % 5 == 1 ? "banan" : "word" + i);
+        }
+        assertMatchesSingleLookups(words, lines(controller.searchBatch(words, false, "reader")));
+    }
+
+    @Test
+    void recordAddsToHistoryInOrder() throws Exception {
+        lines(controller.searchBatch(List.of("apple", "banana"), false, "quiet"));
+        assertTrue(controller.getHistory("quiet").isEmpty());
+
+        lines(controller.searchBatch(List.of("apple", "Banana", "aple"), true, "loud"));
+        assertEquals(List.of("aple", "banana", "apple"), controller.getHistory("loud"));
+    }
+
+    @Test
+    void oversizedBatchIsRejected() throws Exception {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i <= DictionaryController.MAX_SEARCH_BATCH; i++) {
+            words.add("w" + i);
+        }
+        ResponseEntity<StreamingResponseBody> response = controller.searchBatch(words, true, "reader");
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("error", lines(response).get(0).get("status"));
+    }
+}
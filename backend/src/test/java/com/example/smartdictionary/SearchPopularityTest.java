@@ -0,0 +1,68 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SearchPopularityTest {
+
+    @Test
+    void flush_movesRecordedHitsIntoTrieRanking() throws Exception {
+        Trie trie = new Trie();
+        trie.insert("apple");
+        trie.insert("apricot");
+        SearchPopularity popularity = new SearchPopularity(trie);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    popularity.record("apricot");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of("apple", "apricot"), trie.searchPrefix("ap")); // not flushed yet
+
+        popularity.flush();
+        assertEquals(4000.0, trie.getScore("apricot"), 1e-9);
+        assertEquals(List.of("apricot", "apple"), trie.searchPrefix("ap"));
+
+        popularity.flush(); // counters were reset
+        assertEquals(4000.0, trie.getScore("apricot"), 1e-9);
+    }
+
+    @Test
+    void moveTo_carriesRankingAndPendingHitsToANewTrie() {
+        Trie old = new Trie();
+        old.insert("apple");
+        old.insert("apricot");
+        old.insert("avocado");
+        SearchPopularity popularity = new SearchPopularity(old);
+        popularity.record("avocado");
+        popularity.flush();
+        popularity.record("apricot");
+        popularity.record("apricot"); // still pending
+
+        Trie next = new Trie();
+        next.insert("apple");
+        next.insert("apricot");
+        popularity.moveTo(next);
+        assertEquals(2.0, next.getScore("apricot"), 1e-9);
+        assertEquals(List.of("apricot", "apple"), next.searchPrefix("a")); // avocado is gone
+
+        popularity.record("apple");
+        popularity.record("apple");
+        popularity.record("apple");
+        popularity.flush();
+        assertEquals(3.0, next.getScore("apple"), 1e-9);
+        assertEquals(0.0, old.getScore("apple"), 1e-9);
+    }
+}
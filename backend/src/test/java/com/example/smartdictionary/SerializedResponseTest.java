@@ -0,0 +1,200 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for pre-serialized bodies, ETag revalidation and gzip negotiation, alone and
+ * through /search, /history, /favorites and the sample sets.
+ */
+class SerializedResponseTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void largeBodiesGetAGzipCopyWithItsOwnETag() throws Exception {
+        byte[] json = ("[" + "\"word\",".repeat(100) + "\"end\"]").getBytes(StandardCharsets.UTF_8);
+        SerializedResponse body = SerializedResponse.of(json);
+        assertNotNull(body.getGzip());
+        assertArrayEquals(json, gunzip(body.getGzip()));
+
+        ResponseEntity<byte[]> plain = body.respond(null, null);
+        ResponseEntity<byte[]> compressed = body.respond(null, "gzip, deflate, br");
+        assertSame(json, plain.getBody());
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, compressed.getHeaders().getFirst(HttpHeaders.VARY));
+        assertNotEquals(plain.getHeaders().getETag(), compressed.getHeaders().getETag());
+        assertEquals(body.getETag(), plain.getHeaders().getETag());
+    }
+
+    @Test
+    void smallBodiesAreNotCompressed() {
+        SerializedResponse body = SerializedResponse.of("{\"found\":true}".getBytes(StandardCharsets.UTF_8));
+        assertNull(body.getGzip());
+        assertNull(body.respond(null, "gzip").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void etagDependsOnlyOnTheBytes() {
+        byte[] a = "[\"a\"]".getBytes(StandardCharsets.UTF_8);
+        assertEquals(SerializedResponse.of(a).getETag(), SerializedResponse.of(a.clone()).getETag());
+        assertNotEquals(SerializedResponse.of(a).getETag(),
+                SerializedResponse.of("[\"b\"]".getBytes(StandardCharsets.UTF_8)).getETag());
+        assertTrue(SerializedResponse.of(a).getETag().matches("\"[A-Za-z0-9_-]+\""));
+    }
+
+    @Test
+    void ifNoneMatchAcceptsListsWeakTagsAndStar() {
+        assertTrue(SerializedResponse.matches("\"x\"", "\"x\""));
+        assertTrue(SerializedResponse.matches("\"a\", W/\"x\"", "\"x\""));
+        assertTrue(SerializedResponse.matches("*", "\"x\""));
+        assertFalse(SerializedResponse.matches("\"y\"", "\"x\""));
+        assertFalse(SerializedResponse.matches("x", "\"x\""));
+        assertFalse(SerializedResponse.matches(null, "\"x\""));
+    }
+
+    @Test
+    void acceptEncodingHonoursQualityAndWildcard() {
+        assertTrue(SerializedResponse.acceptsGzip("gzip"));
+        assertTrue(SerializedResponse.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(SerializedResponse.acceptsGzip("*"));
+        assertFalse(SerializedResponse.acceptsGzip("gzip;q=0"));
+        assertFalse(SerializedResponse.acceptsGzip("*, gzip;q=0"));
+        assertFalse(SerializedResponse.acceptsGzip("identity"));
+        assertFalse(SerializedResponse.acceptsGzip(null));
+    }
+
+    @Test
+    void searchHitsAreServedFromCachedBytesAndRevalidate() throws Exception {
+        DictionaryController controller = ControllerTestSupport.start(null);
+        try {
+            ResponseEntity<byte[]> first = controller.searchResponse("Apple", "alice", null, null);
+            assertEquals(200, first.getStatusCode().value());
+            Map<?, ?> parsed = JSON.readValue(first.getBody(), Map.class);
+            assertEquals(controller.search("apple", null), parsed);
+            String etag = first.getHeaders().getETag();
+            assertNotNull(etag);
+
+            // Same bytes for every user; a client holding them gets a 304 with no body
+            ResponseEntity<byte[]> again = controller.searchResponse("apple", "bob", null, null);
+            assertSame(first.getBody(), again.getBody());
+            ResponseEntity<byte[]> revalidated = controller.searchResponse("apple", "bob", etag, null);
+            assertEquals(304, revalidated.getStatusCode().value());
+            assertNull(revalidated.getBody());
+            assertEquals(etag, revalidated.getHeaders().getETag());
+
+            // A 304 is still a search: history and hit counts move
+            assertEquals(List.of("apple"), controller.getHistory("bob"));
+            assertTrue(controller.getMetrics().contains("dictionary_searches_total{result=\"hit\"} 4"));
+
+            // Misses are answered in full every time
+            ResponseEntity<byte[]> miss = controller.searchResponse("aple", "bob", null, null);
+            assertNull(miss.getHeaders().getETag());
+            assertEquals(false, JSON.readValue(miss.getBody(), Map.class).get("found"));
+        } finally {
+            controller.shutdown();
+        }
+    }
+
+    @Test
+    void reloadReplacesCachedEntries() throws Exception {
+        Path json = Files.createTempFile("dictionary", ".json");
+        DictionaryController controller = null;
+        try {
+            Files.writeString(json, "{\"apple\": \"A fruit.\"}");
+            controller = ControllerTestSupport.start(json);
+            ResponseEntity<byte[]> before = controller.searchResponse("apple", null, null, null);
+
+            Files.writeString(json, "{\"apple\": \"A crisp fruit.\"}");
+            assertEquals("ok", controller.reload().get().getBody().get("status"));
+            ResponseEntity<byte[]> after = controller.searchResponse("apple", null, before.getHeaders().getETag(), null);
+            assertEquals(200, after.getStatusCode().value());
+            assertEquals("A crisp fruit.", JSON.readValue(after.getBody(), Map.class).get("definition"));
+            assertNotEquals(before.getHeaders().getETag(), after.getHeaders().getETag());
+        } finally {
+            if (controller != null) controller.shutdown();
+            Files.deleteIfExists(json);
+        }
+    }
+
+    @Test
+    void historyAndFavoritesRevalidateAgainstTheirVersion() throws Exception {
+        DictionaryController controller = ControllerTestSupport.start(null);
+        try {
+            controller.search("apple", "alice");
+            ResponseEntity<byte[]> history = controller.historyResponse("alice", null);
+            assertEquals(List.of("apple"), JSON.readValue(history.getBody(), List.class));
+            String etag = history.getHeaders().getETag();
+            assertEquals(DictionaryController.USER_HEADER, history.getHeaders().getFirst(HttpHeaders.VARY));
+            assertEquals(304, controller.historyResponse("alice", etag).getStatusCode().value());
+
+            controller.search("banana", "alice");
+            ResponseEntity<byte[]> changed = controller.historyResponse("alice", etag);
+            assertEquals(200, changed.getStatusCode().value());
+            assertEquals(List.of("banana", "apple"), JSON.readValue(changed.getBody(), List.class));
+            // Another user's history never shares a tag it does not share content with
+            controller.search("apple", "bob");
+            assertNotEquals(controller.historyResponse("bob", null).getHeaders().getETag(),
+                    changed.getHeaders().getETag());
+
+            ResponseEntity<byte[]> favorites = controller.favoritesResponse("alice", null);
+            assertEquals(List.of(), JSON.readValue(favorites.getBody(), List.class));
+            String empty = favorites.getHeaders().getETag();
+            assertEquals(304, controller.favoritesResponse("alice", empty).getStatusCode().value());
+            controller.addFavorite("apple", null, "alice");
+            ResponseEntity<byte[]> added = controller.favoritesResponse("alice", empty);
+            assertEquals(200, added.getStatusCode().value());
+            assertEquals("apple", ((Map<?, ?>) JSON.readValue(added.getBody(), List.class).get(0)).get("word"));
+            controller.removeFavorite("apple", "alice");
+            assertNotEquals(added.getHeaders().getETag(),
+                    controller.favoritesResponse("alice", null).getHeaders().getETag());
+        } finally {
+            controller.shutdown();
+        }
+    }
+
+    @Test
+    void sampleSetsAreSentPrecompressed() throws Exception {
+        DictionaryController controller = ControllerTestSupport.start(null);
+        try {
+            ResponseEntity<byte[]> plain = controller.getAnimalSet(null, null);
+            ResponseEntity<byte[]> compressed = controller.getAnimalSet(null, "gzip");
+            assertEquals("gzip", compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertTrue(compressed.getBody().length < plain.getBody().length);
+            assertArrayEquals(plain.getBody(), gunzip(compressed.getBody()));
+            assertFalse(JSON.readValue(plain.getBody(), List.class).isEmpty());
+            assertEquals(304, controller.getCodingSet(
+                    controller.getCodingSet(null, "gzip").getHeaders().getETag(), "gzip").getStatusCode().value());
+        } finally {
+            controller.shutdown();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SessionJournalTest {
+
+    private Path dir;
+    private FlashcardList deck;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("sessions");
+        deck = new FlashcardList();
+        for (int i = 0; i < 20; i++) {
+            deck.add("word" + i, "definition " + i);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private SessionJournal openJournal() throws IOException {
+        SessionJournal journal = new SessionJournal(dir, 1, 1 << 20, 60_000);
+        journal.open();
+        return journal;
+    }
+
+    private UserSession restore(SessionJournal journal, String userId) {
+        UserSession session = new UserSession(userId, 100, deck);
+        journal.restore(session);
+        return session;
+    }
+
+    private static void study(UserSession session) {
+        session.addFavorite(new WordItem("apple", "A fruit"));
+        session.addFavorite(new WordItem("pear", "Another fruit"));
+        session.removeFavorite("pear");
+        session.pushHistory("apple");
+        session.pushHistory("banana");
+        session.pushHistory("apple");
+        session.pushNotRemembered("cat");
+        session.putCustomDefinition("cat", "A small animal");
+        session.review("cat", false, 1_000);
+        session.review("word3", true, 2_000);
+        session.addCard("zebra", "Striped animal");
+        session.removeCard("word5");
+        session.shuffleDeck(42);
+        session.advanceDeck();
+        session.advanceDeck();
+    }
+
+    // Everything a learner can see, in a comparable form
+    private static Map<String, Object> describe(UserSession session) {
+        Map<String, Object> state = new TreeMap<>();
+        List<String> favorites = new ArrayList<>();
+        for (WordItem item : session.getFavorites().list()) {
+            favorites.add(item.getWord() + "=" + item.getDefinition());
+        }
+        favorites.sort(null);
+        state.put("favorites", favorites);
+        state.put("history", session.getHistory().getHistory());
+        state.put("pending", session.getNotRemembered().getPending());
+        state.put("definitions", new TreeMap<>(session.getCustomDefinitions()));
+        List<String> schedule = new ArrayList<>();
+        for (ReviewScheduler.CardState card : session.getScheduler().states()) {
+            schedule.add(card.getWord() + ":" + card.getIntervalDays() + ":" + card.getDue() + ":" + card.getEase());
+        }
+        schedule.sort(null);
+        state.put("schedule", schedule);
+        state.put("deckSize", session.getFlashcards().getSize());
+        state.put("cursor", session.getFlashcards().getCursor());
+        state.put("current", session.getFlashcards().getCurrent().word);
+        return state;
+    }
+
+    @Test
+    void crashWithoutSnapshot_replaysTheLog() throws Exception {
+        SessionJournal journal = openJournal();
+        UserSession alice = restore(journal, "alice");
+        study(alice);
+        journal.sync();
+        Map<String, Object> expected = describe(alice);
+        journal.halt();
+
+        SessionJournal recovered = openJournal();
+        try {
+            assertEquals(expected, describe(restore(recovered, "alice")));
+            assertEquals(List.of("apple", "banana"), expected.get("history"));
+            assertEquals(21 - 1, expected.get("deckSize"));
+        } finally {
+            recovered.halt();
+        }
+    }
+
+    @Test
+    void snapshotPlusLogTail_recoversAndCutsTheLog() throws Exception {
+        SessionJournal journal = openJournal();
+        UserSession alice = restore(journal, "alice");
+        UserSession bob = restore(journal, "bob");
+        study(alice);
+        bob.addFavorite(new WordItem("kiwi", "Green fruit"));
+        journal.start(() -> List.of(alice, bob));
+        journal.snapshot();
+
+        // Changes after the snapshot only exist in the log
+        alice.pushHistory("cherry");
+        alice.review("cat", true, 700_000);
+        bob.removeFavorite("kiwi");
+        journal.sync();
+        Map<String, Object> expectedAlice = describe(alice);
+        Map<String, Object> expectedBob = describe(bob);
+        journal.halt();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("snapshot-")).count());
+        }
+        SessionJournal recovered = openJournal();
+        try {
+            assertEquals(expectedAlice, describe(restore(recovered, "alice")));
+            assertEquals(expectedBob, describe(restore(recovered, "bob")));
+            assertTrue(restore(recovered, "bob").getFavorites().list().isEmpty());
+        } finally {
+            recovered.halt();
+        }
+    }
+
+    @Test
+    void tornTailAfterCrash_keepsEverythingBeforeIt() throws Exception {
+        SessionJournal journal = openJournal();
+        UserSession alice = restore(journal, "alice");
+        study(alice);
+        journal.sync();
+        Map<String, Object> expected = describe(alice);
+        journal.halt();
+
+        Path newest;
+        try (Stream<Path> files = Files.list(dir)) {
+            newest = files.filter(f -> f.getFileName().toString().startsWith("wal-"))
+                    .max(Comparator.naturalOrder()).orElseThrow();
+        }
+        Files.write(newest, new byte[] {0, 0, 1, 0, 9, 9}, StandardOpenOption.APPEND);
+
+        SessionJournal recovered = openJournal();
+        try {
+            assertEquals(expected, describe(restore(recovered, "alice")));
+        } finally {
+            recovered.halt();
+        }
+    }
+
+    @Test
+    void evictedSession_isRebuiltOnNextUse() throws Exception {
+        SessionJournal journal = openJournal();
+        try {
+            SessionStore store = new SessionStore(10, 60_000, id -> restore(journal, id), journal::dehydrate);
+            study(store.get("alice"));
+            store.get("browser"); // never changes anything, so nothing is kept for it
+            Map<String, Object> expected = describe(store.get("alice"));
+
+            store.evictAll();
+            assertEquals(0, store.size());
+            assertTrue(journal.isSaved("alice"));
+            assertFalse(journal.isSaved("browser"));
+            assertEquals(0, journal.pendingCount());
+            assertEquals(expected, describe(store.get("alice")));
+
+            // A second round trip goes through a snapshot instead of the log
+            store.evictAll();
+            journal.start(store::sessions);
+            journal.snapshot();
+            assertEquals(expected, describe(store.get("alice")));
+        } finally {
+            journal.halt();
+        }
+    }
+
+    @Test
+    void snapshot_writesOnlySessionsThatChanged() throws Exception {
+        SessionJournal journal = openJournal();
+        try {
+            SessionStore store = new SessionStore(10, 60_000, id -> restore(journal, id), journal::dehydrate);
+            study(store.get("alice"));
+            store.get("bob").addFavorite(new WordItem("kiwi", "Green fruit"));
+            journal.start(store::sessions);
+            journal.snapshot();
+            assertEquals(2L, journal.getStats().get("sessionWrites"));
+
+            // Evicted alice is on disk already; only bob's new change is written
+            store.evictAll();
+            assertEquals(2L, journal.getStats().get("sessionWrites"));
+            store.get("alice");
+            store.get("bob").pushHistory("kiwi");
+            journal.snapshot();
+            journal.snapshot();
+            assertEquals(3L, journal.getStats().get("sessionWrites"));
+        } finally {
+            journal.halt();
+        }
+    }
+
+    @Test
+    void failedLog_refusesChanges_andReportsIt() throws Exception {
+        SessionJournal journal = openJournal();
+        MetricsRegistry metrics = new MetricsRegistry();
+        journal.registerMetrics(metrics);
+        UserSession alice = restore(journal, "alice");
+        alice.addFavorite(new WordItem("apple", "A fruit"));
+        journal.sync();
+        assertNull(journal.writeError());
+
+        // Without its directory the log cannot start a new segment and loses the one it had
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+        assertThrows(IOException.class, journal::snapshot);
+        alice.addFavorite(new WordItem("pear", "Another fruit"));
+        assertThrows(IOException.class, journal::sync);
+
+        assertNotNull(journal.writeError());
+        assertThrows(UncheckedIOException.class, () -> alice.addFavorite(new WordItem("kiwi", "Green fruit")));
+        assertEquals(1L, journal.getStats().get("rejected"));
+        assertEquals(journal.writeError(), journal.getStats().get("writeError"));
+        assertTrue(metrics.scrape().contains("session_journal_failed 1"));
+        assertTrue(metrics.scrape().contains("session_journal_rejected_total 1"));
+        assertThrows(IOException.class, journal::halt);
+        Files.createDirectories(dir);
+    }
+
+    private static List<String> deckOrder(UserSession session) {
+        FlashcardList cards = session.getFlashcards();
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < cards.getSize(); i++) {
+            order.add(cards.get(i).word + "=" + cards.get(i).definition);
+        }
+        return order;
+    }
+
+    @Test
+    void deckEdits_stayCompactAndReplayToTheSameDeck() throws Exception {
+        SessionJournal journal = openJournal();
+        UserSession alice = restore(journal, "alice");
+        alice.addCard("zebra", "Striped animal");
+        alice.removeCard("zebra");
+        assertTrue(alice.getDeckEdits().isEmpty());
+
+        journal.start(() -> List.of(alice));
+        for (int round = 0; round < 200; round++) {
+            alice.addCard("extra" + round % 3, "Extra card");
+            alice.removeCard("word" + round % 20);
+            if (round % 10 == 0) alice.shuffleDeck(round);
+            alice.removeCard("extra" + round % 3);
+            alice.addCard("word" + round % 20, "Moved to the end");
+            if (round == 100) journal.snapshot();
+        }
+        // 820 edits, but each card costs at most a removal and an add, plus the edits since the last shuffle
+        assertTrue(alice.getDeckEdits().size() <= 2 * 23 + 1 + 4 * 10, alice.getDeckEdits().toString());
+        journal.sync();
+        List<String> expected = deckOrder(alice);
+        Map<String, Object> described = describe(alice);
+        journal.halt();
+
+        SessionJournal recovered = openJournal();
+        try {
+            UserSession restored = restore(recovered, "alice");
+            assertEquals(expected, deckOrder(restored));
+            assertEquals(described, describe(restored));
+            assertEquals(alice.getDeckEdits().size(), restored.getDeckEdits().size());
+        } finally {
+            recovered.halt();
+        }
+    }
+
+    @Test
+    void recovery_foldsTheLogIntoSessionFiles() throws Exception {
+        SessionJournal journal = openJournal();
+        UserSession alice = restore(journal, "alice");
+        study(alice);
+        journal.sync();
+        Map<String, Object> expected = describe(alice);
+        journal.halt();
+
+        SessionJournal recovered = openJournal();
+        try {
+            assertTrue(recovered.isSaved("alice"));
+            assertEquals(0, recovered.pendingCount());
+            try (Stream<Path> files = Files.list(dir)) {
+                assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("wal-")).count());
+            }
+            assertEquals(expected, describe(restore(recovered, "alice")));
+        } finally {
+            recovered.halt();
+        }
+    }
+
+    @Test
+    void controller_keepsFavoritesAndScheduleAcrossRestarts() throws Exception {
+        PersistenceConfig persistence = PersistenceConfig.defaults().withDirectory(dir);
+        DictionaryController controller = ControllerTestSupport.start(null, persistence);
+        controller.addFavorite("Apple", null, "learner");
+        controller.search("banana", "learner");
+        String studied = controller.getFlashcard("learner").get("word");
+        controller.notRememberCurrent("learner");
+        controller.syncJournal();
+        controller.shutdown();
+
+        ControllerTestSupport.with(null, persistence, restarted -> {
+            assertEquals(Boolean.TRUE, restarted.getFavorite("apple", "learner").get("found"));
+            assertEquals(List.of("banana"), restarted.getHistory("learner"));
+            assertEquals(List.of(studied), restarted.getPendingNotRemembered("learner"));
+            assertEquals(1, restarted.getSchedule("learner").get("scheduled"));
+            assertTrue(restarted.listFavorites("other").isEmpty());
+        });
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class SessionStoreTest {
+
+    private final FlashcardList deck = new FlashcardList();
+
+    private SessionStore newStore(int maxSessions, long idleTimeoutMs) {
+        return new SessionStore(maxSessions, idleTimeoutMs, id -> new UserSession(id, 100, deck));
+    }
+
+    @Test
+    void get_keepsUsersApart() {
+        SessionStore store = newStore(10, 60_000);
+        store.get("alice").getHistory().push("apple");
+        store.get("bob").getFavorites().add(new WordItem("banana", "Yellow fruit"));
+
+        assertEquals(List.of("apple"), store.get("alice").getHistory().getHistory());
+        assertTrue(store.get("bob").getHistory().getHistory().isEmpty());
+        assertTrue(store.get("alice").getFavorites().list().isEmpty());
+        assertSame(store.get("alice"), store.get("alice"));
+    }
+
+    @Test
+    void get_blankIdsShareAnonymousSession() {
+        SessionStore store = newStore(10, 60_000);
+        assertSame(store.get(null), store.get(""));
+        assertEquals(SessionStore.ANONYMOUS, store.get(" ").getUserId());
+    }
+
+    @Test
+    void get_evictsLeastRecentlyUsedBeyondCap() throws Exception {
+        SessionStore store = newStore(10, 60_000);
+        UserSession first = store.get("user0");
+        Thread.sleep(5);
+        for (int i = 1; i < 11; i++) {
+            store.get("user" + i);
+        }
+        assertTrue(store.size() <= 10);
+        assertNotSame(first, store.get("user0"));
+    }
+
+    @Test
+    void sweepIdle_dropsExpiredSessions() throws Exception {
+        SessionStore store = newStore(10, 20);
+        store.get("alice");
+        Thread.sleep(40);
+        store.get("bob");
+        store.sweepIdle();
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void anonymousSession_isNeverSweptOrEvicted() throws Exception {
+        SessionStore store = newStore(10, 20);
+        UserSession anonymous = store.get(null);
+        anonymous.getFavorites().add(new WordItem("apple", "A fruit"));
+        Thread.sleep(40);
+        store.sweepIdle();
+        assertSame(anonymous, store.get(null));
+
+        Thread.sleep(5);
+        for (int i = 0; i < 30; i++) {
+            store.get("user" + i);
+        }
+        assertTrue(store.size() <= 11);
+        assertSame(anonymous, store.get(""));
+        assertEquals(1, store.get(null).getFavorites().list().size());
+    }
+
+    @Test
+    void sessionOpenedBeforeTheDeckLoaded_movesToItOnNextUse() {
+        AtomicReference<FlashcardList> shared = new AtomicReference<>(new FlashcardList());
+        SessionStore store = new SessionStore(10, 60_000, id -> new UserSession(id, 100, shared::get));
+        UserSession alice = store.get("alice");
+        assertEquals(0, alice.getFlashcards().getSize());
+        assertTrue(alice.addCard("mine", "My own card"));
+
+        FlashcardList loaded = new FlashcardList();
+        loaded.addAll(List.of("apple", "banana", "cherry"), word -> word);
+        shared.set(loaded);
+        FlashcardList deck = alice.getFlashcards();
+        assertEquals(4, deck.getSize());
+        assertEquals("apple", deck.getCurrent().word);
+        assertEquals(3, deck.indexOf("mine"));
+        assertSame(deck, alice.getFlashcards());
+        assertEquals(3, loaded.getSize());
+    }
+
+    @Test
+    void sessions_forkSharedDeckWithOwnCursor() {
+        deck.add("apple", "A fruit");
+        deck.add("banana", "Yellow fruit");
+        SessionStore store = newStore(10, 60_000);
+        UserSession alice = store.get("alice");
+        UserSession bob = store.get("bob");
+
+        alice.getFlashcards().getNext();
+        alice.getFlashcards().add("cherry", "Small red fruit");
+
+        assertEquals("banana", alice.getFlashcards().getCurrent().word);
+        assertEquals("apple", bob.getFlashcards().getCurrent().word);
+        assertEquals(3, alice.getFlashcards().getSize());
+        assertEquals(2, bob.getFlashcards().getSize());
+        assertEquals(2, deck.getSize());
+        // Forks share the cards themselves
+        assertSame(deck.getCurrent(), bob.getFlashcards().getCurrent());
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class SpellingIndexTest {
+
+    @Test
+    void findClosest_returnsExactMatchWhenPresent() {
+        SpellingIndex index = new SpellingIndex(Set.of("apple", "banana", "carrot"), 2);
+        assertEquals("apple", index.findClosest("apple"));
+    }
+
+    @Test
+    void findClosest_handlesInsertionDeletionAndSubstitution() {
+        SpellingIndex index = new SpellingIndex(Set.of("apple", "banana", "zebra"), 2);
+        assertEquals("apple", index.findClosest("appl"));   // deletion
+        assertEquals("apple", index.findClosest("apples")); // insertion
+        assertEquals("zebra", index.findClosest("zibra"));  // substitution
+        assertEquals("banana", index.findClosest("bnanaa")); // two edits
+    }
+
+    @Test
+    void findClosest_returnsNullWhenTooFar() {
+        SpellingIndex index = new SpellingIndex(Set.of("apple", "banana", "carrot"), 2);
+        assertNull(index.findClosest("xyz"));
+    }
+
+    @Test
+    void findClosest_matchesLinearScanDistance() {
+        List<String> words = List.of("apple", "apply", "ample", "maple", "banana", "bandana", "code", "coder", "cider");
+        SpellingIndex index = new SpellingIndex(words, 2);
+        for (String query : List.of("appel", "aple", "bananna", "cod", "codr", "mapel", "qqqqq")) {
+            String expected = Levenshtein.findClosest(query, Set.copyOf(words));
+            String actual = index.findClosest(query);
+            if (expected == null) {
+                assertNull(actual);
+            } else {
+                assertEquals(Levenshtein.calculate(query, expected), Levenshtein.calculate(query, actual));
+            }
+        }
+    }
+}
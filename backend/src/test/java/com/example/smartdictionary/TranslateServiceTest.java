@@ -1,20 +1,67 @@
 package com.example.smartdictionary;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.sun.net.httpserver.HttpServer;
+
 /**
- * Unit tests for TranslateService guard rails (no network dependency).
+ * Unit tests for TranslateService guard rails, caching and batching,
+ * run against a local stub of the MyMemory API.
  */
 class TranslateServiceTest {
 
+    private HttpServer server;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
     private TranslateService translateService;
 
     @BeforeEach
-    void setUp() {
-        translateService = new TranslateService();
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/get", exchange -> {
+            upstreamCalls.incrementAndGet();
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String query = exchange.getRequestURI().getRawQuery();
+            String text = URLDecoder.decode(query.substring(2, query.indexOf('&')), StandardCharsets.UTF_8);
+            boolean fail = text.equals("fail");
+            byte[] body = ("{\"responseData\":{\"translatedText\":\"vi:" + text + "\"}}").getBytes(StandardCharsets.UTF_8);
+            concurrent.decrementAndGet();
+            exchange.sendResponseHeaders(fail ? 500 : 200, fail ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (!fail) out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        translateService = new TranslateService("http://127.0.0.1:" + server.getAddress().getPort() + "/get");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
     }
 
     @Test
@@ -26,4 +73,51 @@ class TranslateServiceTest {
     void translateEnToVi_returnsNull_onBlankInput() {
         assertNull(translateService.translateEnToVi(""));
     }
+
+    @Test
+    void translate_cachesByNormalizedText() {
+        assertEquals("vi:hello world", translateService.translateEnToVi("hello world"));
+        assertEquals("vi:hello world", translateService.translateEnToVi("  hello   world "));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void translate_reportsErrorsPerCall() {
+        TranslateService.Translation failed = translateService.translate("fail");
+        TranslateService.Translation ok = translateService.translate("cat");
+
+        assertFalse(failed.isOk());
+        assertEquals("HTTP 500", failed.getError());
+        assertTrue(ok.isOk());
+        assertNull(ok.getError());
+    }
+
+    @Test
+    void translate_doesNotCacheServerErrors() {
+        assertFalse(translateService.translate("fail").isOk());
+        assertFalse(translateService.translate("fail").isOk());
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void translateBatch_sendsOnlyUncachedDistinctTextsWithBoundedParallelism() {
+        translateService.translate("cat");
+        upstreamCalls.set(0);
+
+        List<String> texts = new ArrayList<>();
+        texts.add("cat");
+        for (int i = 0; i < 40; i++) {
+            texts.add("word" + (i % 20));
+        }
+        texts.add("");
+        List<TranslateService.Translation> results = translateService.translateBatch(texts);
+
+        assertEquals(texts.size(), results.size());
+        assertEquals("vi:cat", results.get(0).getTranslation());
+        assertEquals("vi:word5", results.get(6).getTranslation());
+        assertEquals("word5", results.get(6).getText());
+        assertFalse(results.get(results.size() - 1).isOk());
+        assertEquals(20, upstreamCalls.get());
+        assertTrue(maxConcurrent.get() <= TranslateService.MAX_PARALLEL_REQUESTS);
+    }
 }
@@ -0,0 +1,319 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class TrieTest {
+
+    @Test
+    void searchPrefix_returnsCompletionsInAlphabeticalOrder() {
+        Trie trie = new Trie();
+        for (String word : List.of("banana", "apricot", "apple", "application", "app", "bug")) {
+            trie.insert(word);
+        }
+
+        assertEquals(List.of("app", "apple", "application"), trie.searchPrefix("app"));
+        assertEquals(List.of("app", "apple", "application", "apricot"), trie.searchPrefix("ap"));
+        assertEquals(List.of("banana", "bug"), trie.searchPrefix("B"));
+    }
+
+    @Test
+    void searchPrefix_limitsToFiveSuggestions() {
+        Trie trie = new Trie();
+        for (String word : List.of("cg", "cf", "ce", "cd", "cc", "cb", "ca")) {
+            trie.insert(word);
+        }
+        assertEquals(List.of("ca", "cb", "cc", "cd", "ce"), trie.searchPrefix("c"));
+    }
+
+    @Test
+    void searchPrefix_returnsEmptyForUnknownPrefix() {
+        Trie trie = new Trie();
+        trie.insert("apple");
+        assertTrue(trie.searchPrefix("x").isEmpty());
+        assertTrue(trie.searchPrefix("applesauce").isEmpty());
+    }
+
+    @Test
+    void insert_ignoresDuplicatesAndSupportsContains() {
+        Trie trie = new Trie();
+        trie.insert("apple");
+        trie.insert("Apple");
+        assertEquals(1, trie.size());
+        assertTrue(trie.contains("apple"));
+        assertFalse(trie.contains("app"));
+        assertEquals(List.of("apple"), trie.searchPrefix("a"));
+    }
+
+    @Test
+    void searchPrefix_ignoresAccentsCaseAndWidth() {
+        Trie trie = new Trie();
+        for (String word : List.of("phở", "pho", "phòng", "đà nẵng", "apple")) {
+            trie.insert(word);
+        }
+        assertEquals(5, trie.size()); // "pho" and "phở" share a node but are both kept
+        assertEquals(List.of("pho", "phòng", "phở"), trie.searchPrefix("pho"));
+        assertEquals(List.of("pho", "phòng", "phở"), trie.searchPrefix("PHỎ"));
+        assertEquals(List.of("pho", "phòng", "phở"), trie.searchPrefix("ｐｈｏ"));
+        assertEquals(List.of("đà nẵng"), trie.searchPrefix("da n"));
+        assertEquals(List.of("apple"), trie.searchPrefix("ap\u0301"));
+        assertTrue(trie.contains("Phở"));
+        assertFalse(trie.contains("phó"));
+
+        trie.boost("phở", 2);
+        assertEquals(2.0, trie.getScore("phở"), 1e-9);
+        assertEquals(0.0, trie.getScore("pho"), 1e-9);
+        assertEquals(List.of("phở", "pho", "phòng"), trie.searchPrefix("ph"));
+    }
+
+    @Test
+    void insert_growsBeyondInitialCapacity() {
+        Trie trie = new Trie();
+        for (int i = 0; i < 1000; i++) {
+            trie.insert("word" + i);
+        }
+        assertEquals(1000, trie.size());
+        assertEquals(List.of("word999"), trie.searchPrefix("word999"));
+        assertEquals(List.of("word0", "word1", "word10", "word100", "word101"), trie.searchPrefix("word"));
+    }
+
+    @Test
+    void boost_ranksPopularWordsFirst() {
+        Trie trie = new Trie();
+        for (String word : List.of("apple", "application", "apricot", "app")) {
+            trie.insert(word);
+        }
+        trie.boost("apricot", 3);
+        trie.boost("application", 1);
+
+        assertEquals(List.of("apricot", "application", "app", "apple"), trie.searchPrefix("ap"));
+        assertEquals(List.of("application", "app", "apple"), trie.searchPrefix("app"));
+
+        trie.boost("apple", 5);
+        assertEquals(List.of("apple", "apricot", "application", "app"), trie.searchPrefix("a"));
+    }
+
+    @Test
+    void boost_promotesWordIntoFullList() {
+        Trie trie = new Trie();
+        for (String word : List.of("ca", "cb", "cc", "cd", "ce", "cz")) {
+            trie.insert(word);
+        }
+        trie.boost("cz", 1);
+        assertEquals(List.of("cz", "ca", "cb", "cc", "cd"), trie.searchPrefix("c"));
+        trie.boost("unknown", 10); // ignored
+        assertEquals(List.of("cz", "ca", "cb", "cc", "cd"), trie.searchPrefix("c"));
+    }
+
+    @Test
+    void decay_halvesOlderHitsWithoutReordering() {
+        Trie trie = new Trie();
+        trie.insert("apple");
+        trie.insert("apricot");
+        trie.boost("apple", 4);
+        trie.decay();
+        assertEquals(2.0, trie.getScore("apple"), 1e-9);
+        assertEquals(List.of("apple", "apricot"), trie.searchPrefix("ap"));
+
+        // Three new hits now outweigh four halved ones
+        trie.boost("apricot", 3);
+        assertEquals(List.of("apricot", "apple"), trie.searchPrefix("ap"));
+    }
+
+    @Test
+    void searchPrefix_neverSeesTornListsDuringBoosts() throws Exception {
+        Trie trie = new Trie();
+        for (int i = 0; i < 50; i++) {
+            trie.insert("w" + i);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<List<String>> bad = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                List<String> result = trie.searchPrefix("w");
+                if (result.size() != Trie.MAX_SUGGESTIONS || new HashSet<>(result).size() != result.size()) {
+                    bad.set(result);
+                }
+            }
+        });
+        reader.start();
+        for (int round = 0; round < 20_000; round++) {
+            trie.boost("w" + (round % 50), 1 + round % 7);
+        }
+        running.set(false);
+        reader.join();
+        assertNull(bad.get());
+        assertNotEquals(List.of("w0", "w1", "w10", "w11", "w12"), trie.searchPrefix("w"));
+    }
+
+    @Test
+    void lookups_runAlongsideInsertsThatGrowTheArrays() throws Exception {
+        Trie trie = new Trie();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            Trie.Cursor cursor = trie.cursor();
+            try {
+                while (running.get()) {
+                    trie.searchPrefix("ab");
+                    trie.searchFuzzyPrefix("abcx", 1);
+                    trie.contains("abc");
+                    cursor.moveTo("abc");
+                    cursor.suggestions();
+                    cursor.moveTo("b");
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder word = new StringBuilder("a");
+            for (int length = 2 + random.nextInt(8); word.length() < length; ) {
+                word.append((char) ('a' + random.nextInt(4)));
+            }
+            trie.insert(word.toString());
+        }
+        running.set(false);
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(Trie.MAX_SUGGESTIONS, trie.searchPrefix("ab").size());
+    }
+
+    @Test
+    void searchFuzzyPrefix_ranksExactMatchesBeforeTypos() {
+        Trie trie = new Trie();
+        for (String word : List.of("aplenty", "apple", "apply", "ample", "maple", "banana", "angle")) {
+            trie.insert(word);
+        }
+        // One edit for a four-letter prefix: "apply" would need two
+        assertEquals(List.of("aplenty", "ample", "apple", "maple"), trie.searchFuzzyPrefix("aple", 2));
+        assertEquals(List.of("ample"), trie.searchFuzzyPrefix("amplx", 2));
+        assertEquals(List.of("banana"), trie.searchFuzzyPrefix("bnana", 1));
+        // Six letters allow two edits, but only after the first letter as typed
+        assertEquals(List.of("banana"), trie.searchFuzzyPrefix("bnanaa", 2));
+        assertEquals(List.of("banana"), trie.searchFuzzyPrefix("vanana", 2));
+        assertTrue(trie.searchFuzzyPrefix("vnanaa", 2).isEmpty());
+        assertEquals(List.of("apple", "apply"), trie.searchFuzzyPrefix("Applw", 1));
+        // Too short for any typo allowance: the same as searchPrefix
+        assertEquals(trie.searchPrefix("ap"), trie.searchFuzzyPrefix("ap", 2));
+        assertEquals(trie.searchPrefix("apl"), trie.searchFuzzyPrefix("apl", 0));
+        assertTrue(trie.searchFuzzyPrefix("xyzzy", 1).isEmpty());
+
+        trie.boost("maple", 3);
+        assertEquals(List.of("aplenty", "maple", "ample", "apple"), trie.searchFuzzyPrefix("aple", 2));
+    }
+
+    @Test
+    void searchFuzzyPrefix_matchesABruteForceScan() {
+        Random random = new Random(3);
+        List<String> words = new ArrayList<>();
+        Trie trie = new Trie();
+        for (int i = 0; i < 3_000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 3 + random.nextInt(6), j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(6)));
+            }
+            if (!trie.contains(word.toString())) {
+                words.add(word.toString());
+                trie.insert(word.toString());
+            }
+        }
+        for (int q = 0; q < 300; q++) {
+            String query = words.get(random.nextInt(words.size()));
+            query = query.substring(0, 1 + random.nextInt(query.length()));
+            for (int typos = random.nextInt(3); typos > 0; typos--) {
+                int at = random.nextInt(query.length() + 1);
+                query = query.substring(0, at) + (char) ('a' + random.nextInt(6)) + query.substring(at);
+            }
+            int distance = query.length() < 3 ? 0 : query.length() < 6 ? 1 : 2;
+
+            // Fewest edits to any prefix of the word, then alphabetical; two edits need the first letter
+            List<String[]> expected = new ArrayList<>();
+            for (String word : words) {
+                int best = Integer.MAX_VALUE;
+                for (int end = 0; end <= word.length(); end++) {
+                    best = Math.min(best, Levenshtein.calculate(query, word.substring(0, end)));
+                }
+                if (best <= Math.min(distance, 1) || best <= distance && word.charAt(0) == query.charAt(0)) {
+                    expected.add(new String[] {String.valueOf(best), word});
+                }
+            }
+            expected.sort((a, b) -> a[0].equals(b[0]) ? a[1].compareTo(b[1]) : a[0].compareTo(b[0]));
+            List<String> top = new ArrayList<>();
+            for (int i = 0; i < expected.size() && i < Trie.MAX_SUGGESTIONS; i++) {
+                top.add(expected.get(i)[1]);
+            }
+            assertEquals(top, trie.searchFuzzyPrefix(query, 2), query);
+        }
+    }
+
+    @Test
+    void cursor_stepsOneNodePerKeystroke() {
+        Trie trie = new Trie();
+        for (String word : List.of("apple", "apply", "apricot", "banana", "phở")) {
+            trie.insert(word);
+        }
+        Trie.Cursor cursor = trie.cursor();
+        assertEquals(List.of("apple", "apply", "apricot", "banana", "phở"), cursor.suggestions());
+        assertEquals(1, cursor.moveTo("a"));
+        assertEquals(1, cursor.moveTo("ap"));
+        assertEquals(1, cursor.moveTo("app"));
+        assertEquals(List.of("apple", "apply"), cursor.suggestions());
+        // Backspace is one step up, and retyping one step down
+        assertEquals(1, cursor.moveTo("ap"));
+        assertEquals(List.of("apple", "apply", "apricot"), cursor.suggestions());
+        // Replacing the last letter steps up once and down once
+        assertEquals(2, cursor.moveTo("aq"));
+        assertTrue(cursor.suggestions().isEmpty());
+        assertEquals(0, cursor.moveTo("aq"));
+        assertEquals(4, cursor.moveTo("APRI"));
+        assertEquals(List.of("apricot"), cursor.suggestions());
+        // Folded like searchPrefix
+        assertEquals(7, cursor.moveTo("PHỞ"));
+        assertEquals(List.of("phở"), cursor.suggestions());
+        assertEquals(3, cursor.moveTo(""));
+        assertEquals(0, cursor.length());
+    }
+
+    @Test
+    void cursor_matchesSearchPrefixWhileTyping() {
+        Random random = new Random(11);
+        Trie trie = new Trie();
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 2 + random.nextInt(8), j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(5)));
+            }
+            trie.insert(word.toString());
+        }
+        Trie.Cursor cursor = trie.cursor();
+        StringBuilder typed = new StringBuilder();
+        for (int keystroke = 0; keystroke < 5_000; keystroke++) {
+            int action = random.nextInt(10);
+            if (action < 6 || typed.length() == 0) {
+                typed.append((char) ('a' + random.nextInt(6)));
+            } else if (action < 9) {
+                typed.setLength(typed.length() - 1);
+            } else {
+                typed.setCharAt(random.nextInt(typed.length()), (char) ('a' + random.nextInt(5)));
+            }
+            if (typed.length() > 40) typed.setLength(0);
+            cursor.moveTo(typed.toString());
+            assertEquals(trie.searchPrefix(typed.toString()), cursor.suggestions(), typed.toString());
+        }
+    }
+}
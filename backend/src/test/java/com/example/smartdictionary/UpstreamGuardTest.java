@@ -0,0 +1,96 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the circuit breaker and concurrency limit in UpstreamGuard.
+ */
+class UpstreamGuardTest {
+
+    private static CompletableFuture<Integer> status(int code) {
+        return CompletableFuture.completedFuture(code);
+    }
+
+    private static Throwable failureOf(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            return e.getCause();
+        }
+        throw new AssertionError("expected the call to fail");
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures_andFailsFast() {
+        UpstreamGuard guard = new UpstreamGuard("test", 10, 3, 60_000);
+        AtomicInteger started = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            guard.call(() -> { started.incrementAndGet(); return status(500); }, code -> code >= 500).join();
+        }
+        assertEquals("open", guard.getState());
+
+        CompletableFuture<Integer> rejected = guard.call(() -> { started.incrementAndGet(); return status(200); },
+                code -> code >= 500);
+        assertInstanceOf(UpstreamGuard.RejectedException.class, failureOf(rejected));
+        assertEquals(3, started.get());
+        assertEquals(1, guard.getRejected());
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        UpstreamGuard guard = new UpstreamGuard("test", 10, 3, 60_000);
+        guard.call(() -> status(500), code -> code >= 500).join();
+        guard.call(() -> status(500), code -> code >= 500).join();
+        guard.call(() -> status(200), code -> code >= 500).join();
+        guard.call(() -> status(500), code -> code >= 500).join();
+        assertEquals("closed", guard.getState());
+    }
+
+    @Test
+    void trialCallClosesCircuitAfterOpenPeriod() throws InterruptedException {
+        UpstreamGuard guard = new UpstreamGuard("test", 10, 1, 50);
+        failureOf(guard.call(() -> CompletableFuture.failedFuture(new RuntimeException("timeout")), code -> false));
+        assertEquals("open", guard.getState());
+
+        Thread.sleep(80);
+        assertEquals(200, guard.call(() -> status(200), code -> code >= 500).join().intValue());
+        assertEquals("closed", guard.getState());
+    }
+
+    @Test
+    void failedTrialReopensCircuit() throws InterruptedException {
+        UpstreamGuard guard = new UpstreamGuard("test", 10, 1, 50);
+        guard.call(() -> status(503), code -> code >= 500).join();
+        Thread.sleep(80);
+        guard.call(() -> status(503), code -> code >= 500).join();
+        assertEquals("open", guard.getState());
+    }
+
+    @Test
+    void rejectsCallsBeyondConcurrencyLimit() {
+        UpstreamGuard guard = new UpstreamGuard("test", 2, 100, 60_000);
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        CompletableFuture<Integer> second = new CompletableFuture<>();
+        CompletableFuture<Integer> a = guard.call(() -> first, code -> false);
+        CompletableFuture<Integer> b = guard.call(() -> second, code -> false);
+
+        Throwable third = failureOf(guard.call(() -> status(200), code -> false));
+        assertInstanceOf(UpstreamGuard.RejectedException.class, third);
+
+        first.complete(200);
+        assertEquals(200, a.join().intValue());
+        // The freed permit can be used again
+        assertEquals(200, guard.call(() -> status(200), code -> false).join().intValue());
+        second.complete(200);
+        assertEquals(200, b.join().intValue());
+        assertEquals(1, guard.getRejected());
+        assertEquals(3, guard.getCalls());
+    }
+}
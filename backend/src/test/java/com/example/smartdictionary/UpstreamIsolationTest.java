@@ -0,0 +1,151 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * With both upstream APIs hanging: upstream calls hand back a future, never run more
+ * than the concurrency limit at once, time out, and fail without reaching the upstream
+ * once the circuit opens, while local /search and /suggest keep answering. The latency
+ * of local calls under this load is measured by UpstreamIsolationBenchmark.
+ */
+class UpstreamIsolationTest {
+
+    private static final int HANGING_CALLS = 200;
+    private static final int MAX_CONCURRENT = 16;
+
+    private HttpServer server;
+    private final CountDownLatch release = new CountDownLatch(1);
+    //Requests the hanging upstream received, per API
+    private final Map<String, AtomicInteger> received = new ConcurrentHashMap<>();
+    private DictionaryController controller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String api = exchange.getRequestURI().getPath().startsWith("/entries/") ? "definitions" : "translate";
+            received.computeIfAbsent(api, k -> new AtomicInteger()).incrementAndGet();
+            try {
+                release.await(30, TimeUnit.SECONDS); // never answers until the test lets it
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "hanging-upstream");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    private void start(long requestTimeoutMs) throws InterruptedException {
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        UpstreamConfig upstream = UpstreamConfig.defaults()
+                .withDictionaryApiUrl(base + "/entries/")
+                .withTranslateApiUrl(base + "/get")
+                .withLimits(requestTimeoutMs, MAX_CONCURRENT, 5, 60_000);
+        controller = new DictionaryController(100, 1000, 30, "", upstream, PersistenceConfig.defaults(), new MetricsRegistry());
+        controller.init();
+        assertTrue(controller.awaitReady(10_000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (controller != null) controller.shutdown();
+        release.countDown();
+        server.stop(0);
+    }
+
+    private int received(String api) {
+        AtomicInteger count = received.get(api);
+        return count == null ? 0 : count.get();
+    }
+
+    private static String error(CompletableFuture<Map<String, Object>> call) {
+        Map<String, Object> result = call.join();
+        assertEquals("error", result.get("status"));
+        return String.valueOf(result.get("error"));
+    }
+
+    @Test
+    void callsBeyondTheLimitAreRejectedAtOnce() throws Exception {
+        start(30_000);
+        List<CompletableFuture<Map<String, Object>>> definitions = new ArrayList<>();
+        List<CompletableFuture<Map<String, Object>>> translations = new ArrayList<>();
+        for (int i = 0; i < HANGING_CALLS; i++) {
+            definitions.add(controller.getExternalDefinitions("word" + i));
+            translations.add(controller.translate("text " + i));
+        }
+        for (List<CompletableFuture<Map<String, Object>>> calls : List.of(definitions, translations)) {
+            // The first MAX_CONCURRENT hold their permits; the rest failed before a request was sent
+            for (int i = 0; i < HANGING_CALLS; i++) {
+                if (i < MAX_CONCURRENT) {
+                    assertFalse(calls.get(i).isDone(), "call " + i);
+                } else {
+                    assertTrue(error(calls.get(i)).contains("too many calls in flight"), "call " + i);
+                }
+            }
+        }
+
+        // Local endpoints answer while every upstream permit is held
+        assertEquals(Boolean.TRUE, controller.search("apple", null).get("found"));
+        assertEquals(List.of("apple"), controller.suggest("apple", 0));
+
+        release.countDown();
+        for (int i = 0; i < MAX_CONCURRENT; i++) {
+            error(definitions.get(i));
+            error(translations.get(i));
+        }
+        assertEquals(MAX_CONCURRENT, received("definitions"));
+        assertEquals(MAX_CONCURRENT, received("translate"));
+        assertEquals((long) HANGING_CALLS - MAX_CONCURRENT, controller.getExternalDefinitionsStats().get("upstreamRejected"));
+    }
+
+    @Test
+    void hangingUpstreamTimesOut() throws Exception {
+        start(300);
+        assertTrue(error(controller.getExternalDefinitions("slow")).contains("timed out"));
+        assertTrue(error(controller.translate("slow")).contains("timed out"));
+        assertEquals(1, received("definitions"));
+        assertEquals("closed", controller.getExternalDefinitionsStats().get("circuit"));
+    }
+
+    @Test
+    void openCircuitRejectsWithoutCallingUpstream() throws Exception {
+        start(300);
+        for (int i = 0; i < 5; i++) {
+            error(controller.getExternalDefinitions("slow" + i));
+        }
+        assertEquals("open", controller.getExternalDefinitionsStats().get("circuit"));
+        int sent = received("definitions");
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(error(controller.getExternalDefinitions("another" + i)).contains("circuit is open"));
+        }
+        assertEquals(sent, received("definitions"));
+        assertEquals("closed", controller.getTranslateStats().get("circuit"));
+    }
+}
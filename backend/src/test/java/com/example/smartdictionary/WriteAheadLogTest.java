@@ -0,0 +1,174 @@
+package com.example.smartdictionary;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WriteAheadLogTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("wal");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private List<String> replay(List<Long> lsns) throws IOException {
+        List<String> records = new ArrayList<>();
+        WriteAheadLog log = WriteAheadLog.open(dir, 0, 1, (payload, lsn) -> {
+            records.add(new String(payload, StandardCharsets.UTF_8));
+            lsns.add(lsn);
+        });
+        log.close();
+        return records;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Path newestSegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("wal-"))
+                    .max(Comparator.naturalOrder()).orElseThrow();
+        }
+    }
+
+    @Test
+    void append_isReplayedInOrderAfterReopen() throws Exception {
+        WriteAheadLog log = WriteAheadLog.open(dir, 1, 1, (payload, lsn) -> {});
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i + 1L, log.append(bytes("record" + i)));
+        }
+        log.sync();
+        assertEquals(100, log.durableLsn());
+        log.close();
+
+        List<Long> lsns = new ArrayList<>();
+        List<String> records = replay(lsns);
+        assertEquals(100, records.size());
+        assertEquals("record0", records.get(0));
+        assertEquals("record99", records.get(99));
+        assertEquals(100L, lsns.get(99).longValue());
+
+        // LSNs continue where the log left off
+        WriteAheadLog reopened = WriteAheadLog.open(dir, 1, 1, (payload, lsn) -> {});
+        assertEquals(101, reopened.append(bytes("more")));
+        reopened.close();
+    }
+
+    @Test
+    void tornTailRecord_isCutOffOnRecovery() throws Exception {
+        WriteAheadLog log = WriteAheadLog.open(dir, 0, 1, (payload, lsn) -> {});
+        log.append(bytes("one"));
+        log.append(bytes("two"));
+        log.append(bytes("three"));
+        log.close();
+
+        // A crash in the middle of a write leaves half a frame behind
+        Path segment = newestSegment();
+        long intact = Files.size(segment);
+        Files.write(segment, new byte[] {0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        assertEquals(List.of("one", "two", "three"), replay(new ArrayList<>()));
+        assertEquals(intact, Files.size(segment));
+    }
+
+    @Test
+    void corruptChecksumInLastRecord_dropsIt() throws Exception {
+        WriteAheadLog log = WriteAheadLog.open(dir, 0, 1, (payload, lsn) -> {});
+        log.append(bytes("kept"));
+        log.append(bytes("flipped"));
+        log.close();
+
+        Path segment = newestSegment();
+        byte[] data = Files.readAllBytes(segment);
+        data[data.length - 1] ^= 0x55;
+        Files.write(segment, data);
+
+        assertEquals(List.of("kept"), replay(new ArrayList<>()));
+    }
+
+    @Test
+    void concurrentAppends_shareFsyncs() throws Exception {
+        WriteAheadLog log = WriteAheadLog.open(dir, 2, 1, (payload, lsn) -> {});
+        int threads = 8;
+        int perThread = 500;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    log.append(bytes(id + ":" + i));
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        log.sync();
+        assertTrue(log.getSyncs() < threads * perThread / 10, "syncs: " + log.getSyncs());
+        log.close();
+
+        assertEquals(threads * perThread, replay(new ArrayList<>()).size());
+    }
+
+    @Test
+    void roll_andDeleteThrough_dropOldSegments() throws Exception {
+        WriteAheadLog log = WriteAheadLog.open(dir, 0, 1, (payload, lsn) -> {});
+        log.append(bytes("old"));
+        log.sync();
+        long closed = log.roll();
+        log.append(bytes("new"));
+        log.sync();
+        log.deleteThrough(closed);
+        log.close();
+
+        assertEquals(List.of("new"), replay(new ArrayList<>()));
+    }
+
+    @Test
+    void writeFailure_stopsTheLog_andLaterAppendsFail() throws Exception {
+        WriteAheadLog log = WriteAheadLog.open(dir, 0, 1, (payload, lsn) -> {});
+        log.append(bytes("saved"));
+        log.sync();
+        // With the directory gone the next segment cannot be opened, and the writer has no file left
+        Files.delete(newestSegment());
+        Files.delete(dir);
+        assertThrows(IOException.class, log::roll);
+        log.append(bytes("lost"));
+        assertThrows(IOException.class, log::sync);
+
+        assertNotNull(log.getWriteError());
+        assertThrows(UncheckedIOException.class, () -> log.append(bytes("refused")));
+        assertThrows(IOException.class, log::close);
+        Files.createDirectories(dir);
+    }
+}
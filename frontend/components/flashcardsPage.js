@@ -300,6 +300,29 @@ export function setupFlashcardsPage() {
             // Only fetch definitions if words changed or cache is invalid
             let cards;
             if (wordsChanged || !historyCache.cards) {
+                // One batch lookup for every word; record=false so rendering the deck does not reorder history
+                const definitions = new Map();
+                try {
+                    const batchRes = await fetch('http://localhost:8080/search/batch?record=false', {
+                        method: 'POST',
+                        headers: { 'Content-Type': 'application/json' },
+                        body: JSON.stringify(words)
+                    });
+                    const body = await batchRes.text();
+                    for (const line of body.split('\n')) {
+                        if (!line.trim()) continue;
+                        const result = JSON.parse(line);
+                        if (result.search?.found) {
+                            definitions.set(result.query, result.search.definition);
+                        }
+                    }
+                } catch {
+                    // fall back to external definitions below
+                }
+                if (!isOnFlashcardsPage() || !isActive) {
+                    return historyCache.cards || [];
+                }
+
                 cards = await Promise.all(words.map(async (word) => {
                     // Check before each word fetch
                     if (!isOnFlashcardsPage() || !isActive) {
@@ -307,10 +330,7 @@ export function setupFlashcardsPage() {
                     }
                     
                     try {
-                        const searchRes = await fetch(`http://localhost:8080/search?word=${encodeURIComponent(word)}`);
-                        const searchData = await searchRes.json();
-
-                        let def = searchData?.definition || searchData?.meaning || searchData?.def;
+                        let def = definitions.get(word);
 
                         // If not found in local dictionary, try external definitions
                         if (!def) {
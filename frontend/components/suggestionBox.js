@@ -3,41 +3,77 @@ export function setupSuggestions(onSelect) {
     const input = document.getElementById('search-input');
     const box = document.getElementById('suggestion-box');
 
+    //Keystrokes go over one WebSocket: the server keeps our place in the Trie between them,
+    //so each letter is one step instead of a new request that walks the whole prefix again.
+    //seq numbers the keystrokes; only the answer to the latest one is shown.
+    let socket = null;
+    let seq = 0;
+
+    function connect() {
+        socket = new WebSocket('ws://localhost:8080/suggest/ws');
+        socket.onmessage = (event) => {
+            const reply = JSON.parse(event.data);
+            if (reply.seq === seq && input.value.length > 0) {
+                render(reply.suggestions);
+            }
+        };
+        //Server restarted or network dropped: use /suggest until we are back
+        socket.onclose = () => {
+            socket = null;
+            setTimeout(connect, 2000);
+        };
+    }
+
+    //Render UI: It creates a small list of divs.
+    //If you click one, it puts that word into the input box and runs the search.
+    function render(words) {
+        box.innerHTML = '';
+        if (words.length > 0) {
+            box.style.display = 'block';
+            words.forEach(word => {
+                const div = document.createElement('div');
+                div.innerText = word;
+                div.onclick = () => {
+                    input.value = word;
+                    box.style.display = 'none';
+                    onSelect(word);
+                };
+                box.appendChild(div);
+            });
+        } else {
+            box.style.display = 'none';
+        }
+    }
+
+    connect();
+
     //Logic: It uses the input event (triggers every time you type a letter).
     input.addEventListener('input', async () => {
         const prefix = input.value;
+        const current = ++seq;
         if (prefix.length < 1) {
             box.style.display = 'none';
             return;
         }
 
+        //fuzzy=2 still suggests words when the prefix has a typo; exact matches come first
+        if (socket && socket.readyState === WebSocket.OPEN) {
+            socket.send(JSON.stringify({ seq: current, q: prefix, fuzzy: 2 }));
+            return;
+        }
+
         try {
             // UPDATED: Port 8080
-            //Talking to Java: It calls /suggest?q=app. 
+            //Talking to Java: It calls /suggest?q=app.
             //Java uses the Trie data structure to return ["apple", "application", "apricot"] instantly.
-            const res = await fetch(`http://localhost:8080/suggest?q=${prefix}`);
+            const res = await fetch(`http://localhost:8080/suggest?q=${encodeURIComponent(prefix)}&fuzzy=2`);
             const words = await res.json();
-
-            //Render UI: It creates a small list of divs. 
-            //If you click one, it puts that word into the input box and runs the search.
-            box.innerHTML = '';
-            if (words.length > 0) {
-                box.style.display = 'block';
-                words.forEach(word => {
-                    const div = document.createElement('div');
-                    div.innerText = word;
-                    div.onclick = () => {
-                        input.value = word;
-                        box.style.display = 'none';
-                        onSelect(word);
-                    };
-                    box.appendChild(div);
-                });
-            } else {
-                box.style.display = 'none';
+            //A later keystroke may have been answered already
+            if (current === seq) {
+                render(words);
             }
         } catch (e) {
             console.error("Suggestion fetch failed", e);
         }
     });
-}
\ No newline at end of file
+}